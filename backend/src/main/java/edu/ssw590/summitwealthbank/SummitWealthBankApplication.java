@@ -2,8 +2,10 @@ package edu.ssw590.summitwealthbank;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SummitWealthBankApplication {
 
 	public static void main(String[] args) {
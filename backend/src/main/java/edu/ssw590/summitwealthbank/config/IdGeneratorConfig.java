@@ -0,0 +1,37 @@
+package edu.ssw590.summitwealthbank.config;
+
+import edu.ssw590.summitwealthbank.service.IdReservationService;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
+import edu.ssw590.summitwealthbank.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Id generators for references and account numbers. Every instance of the
+ * application sharing a database needs its own app.ids.node-id. Both generators
+ * are registered with the {@link IdReservationService} before first use, so a
+ * restart resumes after the ticks the previous run reserved.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 4;
+
+    @Bean
+    public ReferenceGenerator referenceGenerator(@Value("${app.ids.node-id:0}") long nodeId,
+                                                 IdReservationService reservations) {
+        // References: 1 s ticks, 1024 per second per node before borrowing from the next second
+        SnowflakeIdGenerator referenceIds = new SnowflakeIdGenerator(EPOCH_MILLIS, 1000, NODE_BITS, 10, nodeId);
+        // Account numbers: 1 h ticks, 2048 per hour per node before borrowing from the next hour
+        SnowflakeIdGenerator accountIds = new SnowflakeIdGenerator(EPOCH_MILLIS, 3_600_000, NODE_BITS, 11, nodeId);
+        reservations.register("reference-" + nodeId, referenceIds);
+        // Reservations count ticks, so the hourly generator does not reuse the old per-minute name
+        reservations.register("account-hourly-" + nodeId, accountIds);
+        return new ReferenceGenerator(referenceIds, accountIds, ZoneId.systemDefault());
+    }
+}
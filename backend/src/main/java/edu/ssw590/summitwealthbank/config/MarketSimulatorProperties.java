@@ -0,0 +1,36 @@
+package edu.ssw590.summitwealthbank.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings for the market simulator (app.market-sim.*).
+ * Volatility and drift are annualised; time-scale is simulated seconds per real second.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.market-sim")
+public class MarketSimulatorProperties {
+
+    private boolean enabled = false;
+    private long tickMs = 100;
+    private long persistIntervalMs = 1000;
+    private double timeScale = 60;
+    private double drift = 0.05;
+    private double defaultVolatility = 0.30;
+    // Keyed by sector in lower-case kebab form, e.g. consumer-cyclical
+    private Map<String, Double> sectorVolatility = new HashMap<>();
+
+    public double volatilityFor(String sector) {
+        if (sector == null) {
+            return defaultVolatility;
+        }
+        String key = sector.trim().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-");
+        return sectorVolatility.getOrDefault(key, defaultVolatility);
+    }
+}
@@ -4,11 +4,14 @@ import edu.ssw590.summitwealthbank.dto.AccountOpenRequest;
 import edu.ssw590.summitwealthbank.dto.AddMoneyRequest;
 import edu.ssw590.summitwealthbank.model.Account;
 import edu.ssw590.summitwealthbank.service.AccountService;
+import edu.ssw590.summitwealthbank.service.LedgerService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,6 +21,7 @@ import java.util.List;
 public class AccountController {
 
     private final AccountService accountService;
+    private final LedgerService ledgerService;
 
     @GetMapping
     public List<Account> getMyAccounts(Authentication authentication) {
@@ -42,6 +46,21 @@ public class AccountController {
         return accountService.getAccountsByEmail(email);
     }
 
+    /**
+     * Ledger balance as of a point in time (ISO date-time; now when omitted).
+     */
+    @GetMapping("/{accountId}/balance")
+    public ResponseEntity<?> getBalanceAsOf(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf,
+            Authentication authentication) {
+        try {
+            return ResponseEntity.ok(ledgerService.balanceAsOf(accountId, asOf, authentication.getName()));
+        } catch (IllegalArgumentException | SecurityException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/deposit")
     public ResponseEntity<?> addMoney(@RequestBody AddMoneyRequest request, Authentication authentication) {
         try {
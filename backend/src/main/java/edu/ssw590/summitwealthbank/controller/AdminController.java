@@ -3,20 +3,34 @@ package edu.ssw590.summitwealthbank.controller;
 import edu.ssw590.summitwealthbank.dto.AdminActionRequest;
 import edu.ssw590.summitwealthbank.dto.AdminStockCreateRequest;
 import edu.ssw590.summitwealthbank.dto.AdminStockUpdatePriceRequest;
+import edu.ssw590.summitwealthbank.dto.CursorPage;
 import edu.ssw590.summitwealthbank.dto.StockTransactionResponse;
-import edu.ssw590.summitwealthbank.dto.TransactionResponse;
 import edu.ssw590.summitwealthbank.model.Stock;
 import edu.ssw590.summitwealthbank.model.User;
 import edu.ssw590.summitwealthbank.service.AdminService;
 import edu.ssw590.summitwealthbank.service.AdminStockService;
+import edu.ssw590.summitwealthbank.service.ExportService;
+import edu.ssw590.summitwealthbank.service.LedgerService;
+import edu.ssw590.summitwealthbank.service.PnlRollupService;
 import edu.ssw590.summitwealthbank.service.StockService;
 import edu.ssw590.summitwealthbank.service.TransferService;
+import edu.ssw590.summitwealthbank.util.PageCursor;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -28,6 +42,9 @@ public class AdminController {
     private final AdminStockService adminStockService;
     private final TransferService transferService;
     private final StockService stockService;
+    private final ExportService exportService;
+    private final PnlRollupService pnlRollupService;
+    private final LedgerService ledgerService;
 
     @PostMapping("/freeze")
     public void freeze(@RequestBody AdminActionRequest request) {
@@ -57,14 +74,100 @@ public class AdminController {
 
     @GetMapping("/transactions/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<TransactionResponse> getAllTransactions(@RequestParam(defaultValue = "100") int limit) {
-        return transferService.getAllTransactions(limit);
+    public ResponseEntity<?> getAllTransactions(@RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(transferService.getAllTransactions(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/stock-transactions/all")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<StockTransactionResponse> getAllStockTransactions(@RequestParam(defaultValue = "100") int limit) {
-        return stockService.getAllStockTransactions(limit);
+    public ResponseEntity<?> getAllStockTransactions(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            CursorPage<StockTransactionResponse> page = stockService.getAllStockTransactions(limit, cursor);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Streams every transfer or stock trade in [from, to) as NDJSON or CSV.
+     * Rows go straight from a database cursor to the response, so exports of any
+     * size run in flat memory. gzip=true compresses the download (.gz).
+     */
+    @GetMapping("/export/{dataset}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        ExportService.Dataset exportDataset;
+        ExportService.Format exportFormat;
+        try {
+            exportDataset = ExportService.Dataset.from(dataset);
+            exportFormat = ExportService.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            // Written directly: an error dispatch to /error would be rejected by security
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write(e.getMessage());
+            return;
+        }
+
+        String filename = exportDataset.name().toLowerCase() + "." + exportFormat.name().toLowerCase() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                exportService.export(exportDataset, exportFormat, from, to, compressed);
+            }
+        } else {
+            exportService.export(exportDataset, exportFormat, from, to, out);
+            out.flush();
+        }
+    }
+
+    @GetMapping("/accounts/{accountId}/ledger/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reconcileLedger(@PathVariable Long accountId) {
+        try {
+            return ResponseEntity.ok(ledgerService.reconcile(accountId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/ledger/checkpoint")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> checkpointLedger() {
+        int rows = ledgerService.checkpoint();
+        return ResponseEntity.ok("Wrote " + rows + " balance checkpoints");
+    }
+
+    @PostMapping("/stocks/pnl/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> backfillPnlRollups() {
+        try {
+            int rows = pnlRollupService.backfill();
+            return ResponseEntity.ok("Rebuilt " + rows + " P&L rollups");
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 
     // Stock Management Endpoints
@@ -91,6 +194,26 @@ public class AdminController {
         }
     }
 
+    @PostMapping(value = "/stocks/update-prices", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateStockPrices(@RequestBody List<AdminStockUpdatePriceRequest> updates) {
+        try {
+            return ResponseEntity.ok(adminStockService.updateStockPrices(updates));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/stocks/update-prices", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> updateStockPricesCsv(InputStream body) {
+        try {
+            return ResponseEntity.ok(adminStockService.updateStockPricesFromCsv(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/stocks")
     @PreAuthorize("hasRole('ADMIN')")
     public List<Stock> getAllStocks() {
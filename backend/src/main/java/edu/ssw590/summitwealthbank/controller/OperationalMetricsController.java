@@ -1,6 +1,7 @@
 package edu.ssw590.summitwealthbank.controller;
 
 import edu.ssw590.summitwealthbank.repository.*;
+import edu.ssw590.summitwealthbank.service.StockQuoteCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +22,7 @@ public class OperationalMetricsController {
     private final TransactionRepository transactionRepository;
     private final StockTransactionRepository stockTransactionRepository;
     private final StockRepository stockRepository;
+    private final StockQuoteCache quoteCache;
 
     /**
      * Get operational metrics for dashboard
@@ -83,6 +85,13 @@ public class OperationalMetricsController {
                 "availableStocks", stocksInInventory
         ));
 
+        metrics.put("quoteCache", Map.of(
+                "size", quoteCache.size(),
+                "version", quoteCache.getCatalogVersion(),
+                "hits", quoteCache.getHits(),
+                "misses", quoteCache.getMisses()
+        ));
+
         return ResponseEntity.ok(metrics);
     }
 
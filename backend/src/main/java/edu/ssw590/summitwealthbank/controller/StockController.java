@@ -3,12 +3,26 @@ package edu.ssw590.summitwealthbank.controller;
 import edu.ssw590.summitwealthbank.dto.*;
 import edu.ssw590.summitwealthbank.model.Stock;
 import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.service.BatchTradeService;
+import edu.ssw590.summitwealthbank.service.IdempotencyService;
+import edu.ssw590.summitwealthbank.service.OrderMatchingService;
+import edu.ssw590.summitwealthbank.service.PnlRollupService;
+import edu.ssw590.summitwealthbank.service.PriceHistoryService;
+import edu.ssw590.summitwealthbank.service.StockPriceStreamService;
 import edu.ssw590.summitwealthbank.service.StockService;
+import edu.ssw590.summitwealthbank.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,12 +32,42 @@ import java.util.List;
 public class StockController {
 
     private final StockService stockService;
+    private final OrderMatchingService orderMatchingService;
+    private final BatchTradeService batchTradeService;
+    private final StockPriceStreamService priceStreamService;
+    private final PnlRollupService pnlRollupService;
+    private final PriceHistoryService priceHistoryService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/available")
     public List<Stock> getAvailableStocks() {
         return stockService.getAvailableStocks();
     }
 
+    /**
+     * Server-Sent Events: a "snapshot" of the catalog, then coalesced "prices" deltas.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPrices() {
+        return priceStreamService.subscribe();
+    }
+
+    /**
+     * Realized P&L from the daily rollups; from/to are inclusive ISO dates.
+     */
+    @GetMapping("/pnl")
+    public ResponseEntity<?> getProfitAndLoss(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "symbol") String groupBy,
+            Authentication authentication) {
+        try {
+            return ResponseEntity.ok(pnlRollupService.getUserPnl(authentication.getName(), from, to, groupBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/portfolio")
     public List<StockPortfolioResponse> getMyPortfolio(Authentication authentication) {
         String email = authentication.getName();
@@ -33,45 +77,78 @@ public class StockController {
     @PostMapping("/buy")
     public ResponseEntity<?> buyStock(
             @RequestBody StockBuyRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
-        try {
-            String email = authentication.getName();
-            StockTransaction transaction = stockService.buyStock(
-                    request.getAccountId(),
-                    request.getStockSymbol(),
-                    request.getQuantity(),
-                    email
-            );
-            return ResponseEntity.ok(transaction);
-        } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+        String email = authentication.getName();
+        return idempotencyService.execute(email, idempotencyKey, "POST /api/stocks/buy", request, () -> {
+            try {
+                StockTransaction transaction = stockService.buyStock(
+                        request.getAccountId(),
+                        request.getStockSymbol(),
+                        request.getQuantity(),
+                        email
+                );
+                return ResponseEntity.ok(transaction);
+            } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (ConcurrencyFailureException e) {
+                // Still conflicting after every retry
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("The account is busy; please try again");
+            }
+        });
     }
 
     @PostMapping("/sell")
     public ResponseEntity<?> sellStock(
             @RequestBody StockSellRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        String email = authentication.getName();
+        return idempotencyService.execute(email, idempotencyKey, "POST /api/stocks/sell", request, () -> {
+            try {
+                StockTransaction transaction = stockService.sellStock(
+                        request.getAccountId(),
+                        request.getStockSymbol(),
+                        request.getQuantity(),
+                        email
+                );
+                return ResponseEntity.ok(transaction);
+            } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            } catch (ConcurrencyFailureException e) {
+                // Still conflicting after every retry
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("The account is busy; please try again");
+            }
+        });
+    }
+
+    @PostMapping("/orders/batch")
+    public ResponseEntity<?> executeBatch(
+            @RequestBody StockBatchOrderRequest request,
             Authentication authentication) {
         try {
             String email = authentication.getName();
-            StockTransaction transaction = stockService.sellStock(
-                    request.getAccountId(),
-                    request.getStockSymbol(),
-                    request.getQuantity(),
-                    email
-            );
-            return ResponseEntity.ok(transaction);
+            return ResponseEntity.ok(batchTradeService.executeBatch(request, email));
         } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting after every retry
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The account is busy; please try again");
         }
     }
 
     @GetMapping("/transactions")
-    public List<StockTransactionResponse> getMyTransactions(
+    public ResponseEntity<?> getMyTransactions(
             Authentication authentication,
-            @RequestParam(defaultValue = "50") int limit) {
-        String email = authentication.getName();
-        return stockService.getUserTransactionHistory(email, limit);
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            String email = authentication.getName();
+            CursorPage<StockTransactionResponse> page = stockService.getUserTransactionHistory(email, limit, cursor);
+            return withCursor(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/transactions/{reference}")
@@ -86,4 +163,77 @@ public class StockController {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    // Order book endpoints
+
+    @PostMapping("/orders")
+    public ResponseEntity<?> placeOrder(
+            @RequestBody StockOrderRequest request,
+            Authentication authentication) {
+        try {
+            String email = authentication.getName();
+            return ResponseEntity.ok(orderMatchingService.placeOrder(request, email));
+        } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting after every retry
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The account is busy; please try again");
+        }
+    }
+
+    @DeleteMapping("/orders/{orderId}")
+    public ResponseEntity<?> cancelOrder(
+            @PathVariable Long orderId,
+            Authentication authentication) {
+        try {
+            String email = authentication.getName();
+            return ResponseEntity.ok(orderMatchingService.cancelOrder(orderId, email));
+        } catch (IllegalArgumentException | IllegalStateException | SecurityException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ConcurrencyFailureException e) {
+            // Still conflicting after every retry
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The account is busy; please try again");
+        }
+    }
+
+    @GetMapping("/orders")
+    public List<StockOrderResponse> getMyOpenOrders(Authentication authentication) {
+        String email = authentication.getName();
+        return orderMatchingService.getOpenOrders(email);
+    }
+
+    @GetMapping("/{symbol}/book")
+    public ResponseEntity<?> getOrderBook(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "10") int depth) {
+        try {
+            return ResponseEntity.ok(orderMatchingService.getOrderBook(symbol, depth));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * OHLC candles for charts; interval is 1m, 1h or 1d and from/to are ISO date-times.
+     */
+    @GetMapping("/{symbol}/candles")
+    public ResponseEntity<?> getCandles(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "1m") String interval,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(priceHistoryService.getCandles(symbol, interval, from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private static <T> ResponseEntity<List<T>> withCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
 }
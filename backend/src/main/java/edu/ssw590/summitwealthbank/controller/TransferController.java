@@ -1,17 +1,30 @@
 package edu.ssw590.summitwealthbank.controller;
 
+import edu.ssw590.summitwealthbank.dto.BulkTransferRequest;
+import edu.ssw590.summitwealthbank.dto.CursorPage;
 import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.dto.TransferHistoryQuery;
 import edu.ssw590.summitwealthbank.dto.TransferRequest;
 import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.service.BulkTransferService;
+import edu.ssw590.summitwealthbank.service.IdempotencyService;
+import edu.ssw590.summitwealthbank.service.TransactionSearchIndex;
+import edu.ssw590.summitwealthbank.service.TransferHistoryService;
 import edu.ssw590.summitwealthbank.service.TransferService;
+import edu.ssw590.summitwealthbank.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @RestController
@@ -20,49 +33,153 @@ import java.util.Map;
 public class TransferController {
 
     private final TransferService transferService;
+    private final BulkTransferService bulkTransferService;
+    private final TransferHistoryService transferHistoryService;
+    private final TransactionSearchIndex searchIndex;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/api/transfer")
-    public ResponseEntity<?> transfer(@RequestBody TransferRequest request, Authentication authentication) {
+    public ResponseEntity<?> transfer(
+            @RequestBody TransferRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        String email = authentication.getName();
+        return idempotencyService.execute(email, idempotencyKey, "POST /api/transfer", request, () -> {
+            try {
+                Transaction transaction = transferService.transfer(request, email);
+                return ResponseEntity.ok(transaction);
+            } catch (IllegalArgumentException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            } catch (IllegalStateException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            } catch (SecurityException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            } catch (ConcurrencyFailureException e) {
+                // Still conflicting after every retry
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", "The account is busy; please try again");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+            } catch (Exception e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", "An unexpected error occurred. Please try again.");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            }
+        });
+    }
+
+    /**
+     * Payroll: one source account, many destinations, settled in a single commit.
+     */
+    @PostMapping("/api/transfer/batch")
+    public ResponseEntity<?> transferBatch(
+            @RequestBody BulkTransferRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        String email = authentication.getName();
+        return idempotencyService.execute(email, idempotencyKey, "POST /api/transfer/batch", request, () -> {
+            try {
+                return ResponseEntity.ok(bulkTransferService.transferBatch(request, email));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            } catch (IllegalStateException | SecurityException e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", e.getMessage());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            } catch (ConcurrencyFailureException e) {
+                // Still conflicting after every retry
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", "The account is busy; please try again");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+            } catch (Exception e) {
+                Map<String, String> errorResponse = new HashMap<>();
+                errorResponse.put("message", "An unexpected error occurred. Please try again.");
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+            }
+        });
+    }
+
+    @GetMapping("/api/transfer/{accountId}")
+    public List<Transaction> getTransactions(@PathVariable Long accountId) {
+        return transferService.getTransactions(accountId);
+    }
+
+    @GetMapping("/api/transactions/recent")
+    public ResponseEntity<?> getRecentTransactions(
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
         try {
             String email = authentication.getName();
-            Transaction transaction = transferService.transfer(request, email);
-            return ResponseEntity.ok(transaction);
+            return ResponseEntity.ok(transferService.getRecentTransactionsByEmail(email, limit));
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        } catch (IllegalStateException e) {
+        }
+    }
+
+    /**
+     * Filterable transfer history, newest first; continue with the X-Next-Cursor header of the previous page.
+     */
+    @GetMapping("/api/transactions/history")
+    public ResponseEntity<?> getTransferHistory(
+            @RequestParam(required = false) Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(defaultValue = "all") String direction,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor,
+            Authentication authentication) {
+        try {
+            TransferHistoryQuery query = TransferHistoryQuery.builder()
+                    .accountId(accountId)
+                    .from(from)
+                    .to(to)
+                    .minAmount(minAmount)
+                    .maxAmount(maxAmount)
+                    .direction(parseDirection(direction))
+                    .limit(limit)
+                    .cursor(cursor)
+                    .build();
+            CursorPage<TransactionResponse> page = transferHistoryService.getHistory(authentication.getName(), query);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(PageCursor.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMessage());
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         } catch (SecurityException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
-        } catch (Exception e) {
-            Map<String, String> errorResponse = new HashMap<>();
-            errorResponse.put("message", "An unexpected error occurred. Please try again.");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
 
-    @GetMapping("/api/transfer/{accountId}")
-    public List<Transaction> getTransactions(@PathVariable Long accountId) {
-        return transferService.getTransactions(accountId);
-    }
-
-    @GetMapping("/api/transactions/recent")
-    public List<TransactionResponse> getRecentTransactions(
-            @RequestParam(defaultValue = "10") int limit,
-            Authentication authentication) {
-        String email = authentication.getName();
-        return transferService.getRecentTransactionsByEmail(email, limit);
-    }
-
+    /**
+     * Looks up one transfer by reference, or with q lists the newest transfers whose description
+     * contains every word of q (word prefixes match).
+     */
     @GetMapping("/api/transactions/search")
     public ResponseEntity<?> searchTransaction(
-            @RequestParam String reference,
+            @RequestParam(required = false) String reference,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "50") int limit,
             Authentication authentication) {
+        if (reference == null) {
+            return searchDescriptions(q, limit, authentication);
+        }
         try {
             String email = authentication.getName();
             TransactionResponse transaction = transferService.searchByReference(reference, email);
@@ -81,4 +198,27 @@ public class TransferController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+
+    // Helper methods
+
+    private ResponseEntity<?> searchDescriptions(String q, int limit, Authentication authentication) {
+        try {
+            if (q == null) {
+                throw new IllegalArgumentException("Either reference or q is required");
+            }
+            return ResponseEntity.ok(searchIndex.search(authentication.getName(), q, limit));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        }
+    }
+
+    private static TransferHistoryQuery.Direction parseDirection(String direction) {
+        try {
+            return TransferHistoryQuery.Direction.valueOf(direction.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Direction must be in, out or all");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class BulkTransferRequest {
+    private Long fromAccountId;
+    private String description;
+    private List<Leg> legs;
+
+    @Data
+    public static class Leg {
+        private Long toAccountId;
+        private BigDecimal amount;
+        private String description;
+    }
+}
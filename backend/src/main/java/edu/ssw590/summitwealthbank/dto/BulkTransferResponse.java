@@ -0,0 +1,20 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTransferResponse {
+    private Long fromAccountId;
+    private Integer legs;
+    private BigDecimal totalAmount;
+    private List<String> transactionReferences;
+}
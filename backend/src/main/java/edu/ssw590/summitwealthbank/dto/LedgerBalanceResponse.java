@@ -0,0 +1,21 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerBalanceResponse {
+    private Long accountId;
+    private LocalDateTime asOf;
+    private BigDecimal balance;
+    // Checkpoint the balance was computed from; null when it summed the whole history
+    private LocalDateTime checkpointAsOf;
+}
@@ -0,0 +1,19 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerReconciliationResponse {
+    private Long accountId;
+    private BigDecimal accountBalance;
+    private BigDecimal ledgerBalance;
+    private boolean consistent;
+}
@@ -0,0 +1,19 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StockBatchOrderRequest {
+    private Long accountId;
+    private List<Leg> legs;
+
+    @Data
+    public static class Leg {
+        private StockTransaction.TransactionType side;
+        private String stockSymbol;
+        private Long quantity;
+    }
+}
@@ -0,0 +1,23 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBatchOrderResponse {
+    private Long accountId;
+    private Integer legs;
+    private BigDecimal totalBought;
+    private BigDecimal totalSold;
+    private BigDecimal realizedProfitLoss;
+    private BigDecimal balance;
+    private List<String> transactionReferences;
+}
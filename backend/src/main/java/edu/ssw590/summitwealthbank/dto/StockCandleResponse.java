@@ -0,0 +1,37 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import edu.ssw590.summitwealthbank.util.CentsArraySerializer;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Candles in column form: element i of every array belongs to the same candle.
+ * Keeps a year of 1-minute candles compact on the wire. Prices are held in
+ * cents and written as decimals.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCandleResponse {
+    private String symbol;
+    private String interval;
+    private long[] time;        // Bucket start, epoch seconds
+
+    @JsonSerialize(using = CentsArraySerializer.class)
+    private long[] open;
+
+    @JsonSerialize(using = CentsArraySerializer.class)
+    private long[] high;
+
+    @JsonSerialize(using = CentsArraySerializer.class)
+    private long[] low;
+
+    @JsonSerialize(using = CentsArraySerializer.class)
+    private long[] close;
+
+    private int[] ticks;        // Price changes folded into the candle
+}
@@ -0,0 +1,17 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import edu.ssw590.summitwealthbank.model.StockOrder;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class StockOrderRequest {
+    private Long accountId;
+    private String stockSymbol;
+    private StockTransaction.TransactionType side;
+    private StockOrder.OrderType orderType;
+    private BigDecimal limitPrice;
+    private Long quantity;
+}
@@ -0,0 +1,27 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockOrderResponse {
+    private Long orderId;
+    private String stockSymbol;
+    private String side;
+    private String orderType;
+    private BigDecimal limitPrice;
+    private Long quantity;
+    private Long filledQuantity;
+    private Long remainingQuantity;
+    private String status;
+    private List<StockTransaction> fills;
+}
@@ -0,0 +1,24 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockPnlResponse {
+    private String stockSymbol;     // Set when grouped by symbol
+    private LocalDate date;         // Set when grouped by day
+    private BigDecimal realizedProfitLoss;
+    private Long tradeCount;
+    private Long sharesBought;
+    private Long sharesSold;
+    private BigDecimal buyAmount;
+    private BigDecimal sellAmount;
+}
@@ -0,0 +1,20 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One symbol's entry in a price stream event. A removed update carries only the symbol.
+ */
+@Value
+@Builder
+public class StockPriceUpdate {
+    String symbol;
+    BigDecimal currentPrice;
+    Long availableShares;
+    LocalDateTime updatedAt;
+    boolean removed;
+}
@@ -0,0 +1,23 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of a stock's catalog entry held by the quote cache.
+ * The version increases every time any quote in the catalog changes.
+ */
+@Value
+@Builder(toBuilder = true)
+public class StockQuote {
+    String symbol;
+    String companyName;
+    BigDecimal currentPrice;
+    Long totalShares;
+    String sector;
+    long version;
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,35 @@
+package edu.ssw590.summitwealthbank.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferHistoryQuery {
+    // One of the caller's accounts; all of them when null
+    private Long accountId;
+    // Inclusive lower and exclusive upper bound on the timestamp
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private BigDecimal minAmount;
+    private BigDecimal maxAmount;
+    @Builder.Default
+    private Direction direction = Direction.ALL;
+    @Builder.Default
+    private int limit = 50;
+    private String cursor;
+
+    public enum Direction {
+        // Money leaving the accounts, arriving in them, or both
+        OUT,
+        IN,
+        ALL
+    }
+}
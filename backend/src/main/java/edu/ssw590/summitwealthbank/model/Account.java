@@ -34,19 +34,16 @@ public class Account {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // Optimistic lock: bumped on every update, also by the JDBC batch paths
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
-        if (accountNumber == null) {
-            accountNumber = generateAccountNumber();
-        }
-    }
-
-    private String generateAccountNumber() {
-        // Generate a random 10-digit account number
-        return String.format("%010d", (long) (Math.random() * 10000000000L));
     }
 
     // Add a transient status field based on frozen status
@@ -0,0 +1,28 @@
+package edu.ssw590.summitwealthbank.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Highest tick an id generator on one node may issue ids in. A restarted
+ * generator starts after it, so ticks borrowed ahead of the clock before the
+ * restart are never issued twice.
+ */
+@Entity
+@Table(name = "id_reservation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdReservation {
+
+    @Id
+    @Column(length = 64)
+    private String name;            // generator and node, e.g. "reference-0"
+
+    @Column(nullable = false)
+    private Long reservedTick;
+}
@@ -0,0 +1,52 @@
+package edu.ssw590.summitwealthbank.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a money-moving request sent with an Idempotency-Key header.
+ * The row is inserted before the request runs (responseStatus null while in progress)
+ * and completed with the response that retries of the same key replay.
+ */
+@Entity
+@Table(name = "idempotency_record",
+       uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_user_key",
+               columnNames = {"user_email", "idempotency_key"}),
+       indexes = @Index(name = "idx_idempotency_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_email", nullable = false)
+    private String userEmail;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private String endpoint;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;     // SHA-256 of the request body, hex
+
+    private Integer responseStatus;
+
+    private String responseContentType;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;    // unbounded: a committed response must always fit
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
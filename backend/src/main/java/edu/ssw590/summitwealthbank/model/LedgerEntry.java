@@ -0,0 +1,59 @@
+package edu.ssw590.summitwealthbank.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One debit (negative amount) or credit (positive amount) on an account. Rows are
+ * only ever appended; Account.balance is the running sum of an account's entries.
+ * A transfer posts a debit and a credit with the same reference, summing to zero.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entry",
+       indexes = @Index(name = "idx_ledger_entry_account_ts_id", columnList = "account_id, timestamp, id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    // Transaction or stock transaction reference, when the movement has one
+    private String reference;
+
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    public enum Kind {
+        OPENING,
+        DEPOSIT,
+        TRANSFER,
+        STOCK_BUY,
+        STOCK_SELL,
+        ORDER_ESCROW,
+        ORDER_SETTLEMENT,
+        WEALTH_BUY,
+        WEALTH_SELL
+    }
+}
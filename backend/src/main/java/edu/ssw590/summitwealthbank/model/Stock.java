@@ -33,7 +33,8 @@ public class Stock {
     @Column(nullable = false)
     private Long totalShares;
 
-    @Column(nullable = false)
+    // Owned by ShareInventoryService, which flushes it with batched JDBC updates
+    @Column(nullable = false, updatable = false)
     private Long availableShares;
 
     @Column(name = "created_at")
@@ -47,6 +48,11 @@ public class Stock {
     @Column(length = 500)
     private String description;
 
+    // Optimistic lock for entity edits; the JDBC price and inventory writers own their columns and leave it alone
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,44 @@
+package edu.ssw590.summitwealthbank.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A run of consecutive OHLC candles of one symbol and interval (1m, 1h or 1d),
+ * packed into a single row by PriceHistoryService (see CandleBlocks for the layout).
+ * Blocks are only ever inserted or replaced by compaction, never updated in place.
+ */
+@Entity
+@Table(name = "stock_candle_block",
+       indexes = @Index(name = "idx_stock_candle_block_range", columnList = "symbol, interval_code, block_start"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockCandleBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String symbol;
+
+    @Column(name = "interval_code", nullable = false, length = 2)
+    private String intervalCode;    // 1m, 1h or 1d
+
+    @Column(name = "block_start", nullable = false)
+    private Long blockStart;        // Start of the first candle, epoch seconds (UTC)
+
+    @Column(name = "block_end", nullable = false)
+    private Long blockEnd;          // Start of the last candle, epoch seconds (UTC)
+
+    @Column(nullable = false)
+    private Integer candleCount;
+
+    @Column(nullable = false, length = 65536)
+    private byte[] data;
+}
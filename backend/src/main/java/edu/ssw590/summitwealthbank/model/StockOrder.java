@@ -0,0 +1,88 @@
+package edu.ssw590.summitwealthbank.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "stock_order",
+       indexes = @Index(name = "idx_stock_order_status", columnList = "status, stock_symbol"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "stock_symbol", nullable = false)
+    private String stockSymbol;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StockTransaction.TransactionType side;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderType orderType;
+
+    // Null for market orders
+    @Column(precision = 10, scale = 2)
+    private BigDecimal limitPrice;
+
+    @Column(nullable = false)
+    private Long quantity;
+
+    @Column(nullable = false)
+    private Long remainingQuantity;
+
+    // Average cost of the shares escrowed by a sell order, used for realized profit/loss
+    @Column(precision = 10, scale = 2)
+    private BigDecimal costBasis;
+
+    // Funds taken from the account when a buy was placed: limit price x quantity, or the sweep cost of a market buy
+    @Column(precision = 19, scale = 2)
+    private BigDecimal escrowAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum OrderType {
+        LIMIT,
+        MARKET
+    }
+
+    public enum OrderStatus {
+        OPEN,
+        FILLED,
+        CANCELLED
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,55 @@
+package edu.ssw590.summitwealthbank.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Realized P&L and volume of one account in one symbol on one day.
+ * Maintained by PnlRollupService as trades are recorded.
+ */
+@Entity
+@Table(name = "stock_pnl_rollup",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "stock_symbol", "trade_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockPnlRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "stock_symbol", nullable = false)
+    private String stockSymbol;
+
+    @Column(name = "trade_date", nullable = false)
+    private LocalDate tradeDate;
+
+    @Column(nullable = false)
+    private Long tradeCount;
+
+    @Column(nullable = false)
+    private Long buyQuantity;
+
+    @Column(nullable = false)
+    private Long sellQuantity;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal buyAmount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal sellAmount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal realizedProfitLoss;
+}
@@ -10,7 +10,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_transaction")
+@Table(name = "stock_transaction",
+       indexes = {
+               @Index(name = "idx_stock_transaction_account_ts_id", columnList = "account_id, timestamp, id"),
+               @Index(name = "idx_stock_transaction_ts_id", columnList = "timestamp, id")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
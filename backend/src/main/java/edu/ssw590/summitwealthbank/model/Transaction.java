@@ -6,6 +6,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_transaction_ts_id", columnList = "timestamp, id"),
+        // One per side of a transfer, so account history never needs an OR across columns
+        @Index(name = "idx_transaction_from_ts_id", columnList = "from_account_id, timestamp, id"),
+        @Index(name = "idx_transaction_to_ts_id", columnList = "to_account_id, timestamp, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
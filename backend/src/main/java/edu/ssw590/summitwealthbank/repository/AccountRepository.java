@@ -1,10 +1,66 @@
 package edu.ssw590.summitwealthbank.repository;
 
 import edu.ssw590.summitwealthbank.model.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface AccountRepository extends JpaRepository<Account, Long> {
     List<Account> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // SELECT ... FOR UPDATE: the row stays locked until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+
+    // Single-statement balance changes: the WHERE clause is the check and the row count the result.
+    // They bump the version so entity-based writers notice, and clear the persistence context it bypasses
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.balance >= :amount AND a.frozen = false")
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.balance >= :amount AND a.frozen = false "
+            + "AND a.user.id IN (SELECT u.id FROM User u WHERE u.email = :email)")
+    int debitOwned(@Param("id") Long id, @Param("email") String email, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.frozen = false")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // Projection so the eager user association is not loaded for every account
+    @Query("SELECT a.id AS id, a.accountNumber AS accountNumber FROM Account a WHERE a.id IN :ids")
+    List<AccountNumberView> findAccountNumbersByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id AS id, a.frozen AS frozen FROM Account a WHERE a.id IN :ids")
+    List<AccountStatusView> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id AS id, a.user.id AS userId FROM Account a WHERE a.id IN :ids")
+    List<AccountOwnerView> findOwnersByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface AccountNumberView {
+        Long getId();
+        String getAccountNumber();
+    }
+
+    interface AccountStatusView {
+        Long getId();
+        boolean isFrozen();
+    }
+
+    interface AccountOwnerView {
+        Long getId();
+        Long getUserId();
+    }
+}
@@ -0,0 +1,7 @@
+package edu.ssw590.summitwealthbank.repository;
+
+import edu.ssw590.summitwealthbank.model.IdReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface IdReservationRepository extends JpaRepository<IdReservation, String> {
+}
@@ -0,0 +1,29 @@
+package edu.ssw590.summitwealthbank.repository;
+
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    List<LedgerEntry> findByAccountIdOrderByIdAsc(Long accountId);
+
+    // Range scan on (account_id, timestamp): entries after a checkpoint, up to the requested time
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e "
+            + "WHERE e.accountId = :accountId AND e.timestamp > :after AND e.timestamp <= :upTo")
+    BigDecimal sumBetween(@Param("accountId") Long accountId,
+                          @Param("after") LocalDateTime after,
+                          @Param("upTo") LocalDateTime upTo);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e WHERE e.accountId = :accountId")
+    BigDecimal sumAll(@Param("accountId") Long accountId);
+
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e "
+            + "WHERE e.accountId = :accountId AND e.timestamp <= :upTo")
+    BigDecimal sumUpTo(@Param("accountId") Long accountId, @Param("upTo") LocalDateTime upTo);
+}
@@ -0,0 +1,17 @@
+package edu.ssw590.summitwealthbank.repository;
+
+import edu.ssw590.summitwealthbank.model.StockOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockOrderRepository extends JpaRepository<StockOrder, Long> {
+
+    List<StockOrder> findByStatusOrderByIdAsc(StockOrder.OrderStatus status);
+
+    List<StockOrder> findByStockSymbolAndStatusOrderByIdAsc(String stockSymbol, StockOrder.OrderStatus status);
+
+    List<StockOrder> findByAccountIdInAndStatusOrderByIdDesc(List<Long> accountIds, StockOrder.OrderStatus status);
+}
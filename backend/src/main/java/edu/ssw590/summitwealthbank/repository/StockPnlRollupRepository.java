@@ -0,0 +1,48 @@
+package edu.ssw590.summitwealthbank.repository;
+
+import edu.ssw590.summitwealthbank.model.StockPnlRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface StockPnlRollupRepository extends JpaRepository<StockPnlRollup, Long> {
+
+    @Query("SELECT r.stockSymbol AS symbol, SUM(r.realizedProfitLoss) AS realizedProfitLoss, " +
+           "SUM(r.tradeCount) AS tradeCount, SUM(r.buyQuantity) AS buyQuantity, SUM(r.sellQuantity) AS sellQuantity, " +
+           "SUM(r.buyAmount) AS buyAmount, SUM(r.sellAmount) AS sellAmount " +
+           "FROM StockPnlRollup r " +
+           "WHERE r.accountId IN :accountIds AND r.tradeDate >= :from AND r.tradeDate <= :to " +
+           "GROUP BY r.stockSymbol ORDER BY r.stockSymbol")
+    List<PnlRow> sumBySymbol(@Param("accountIds") Collection<Long> accountIds,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+    @Query("SELECT r.tradeDate AS tradeDate, SUM(r.realizedProfitLoss) AS realizedProfitLoss, " +
+           "SUM(r.tradeCount) AS tradeCount, SUM(r.buyQuantity) AS buyQuantity, SUM(r.sellQuantity) AS sellQuantity, " +
+           "SUM(r.buyAmount) AS buyAmount, SUM(r.sellAmount) AS sellAmount " +
+           "FROM StockPnlRollup r " +
+           "WHERE r.accountId IN :accountIds AND r.tradeDate >= :from AND r.tradeDate <= :to " +
+           "GROUP BY r.tradeDate ORDER BY r.tradeDate")
+    List<PnlRow> sumByDay(@Param("accountIds") Collection<Long> accountIds,
+                          @Param("from") LocalDate from,
+                          @Param("to") LocalDate to);
+
+    /**
+     * One aggregated row; only the grouping key of the query that produced it is set.
+     */
+    interface PnlRow {
+        String getSymbol();
+        LocalDate getTradeDate();
+        BigDecimal getRealizedProfitLoss();
+        Long getTradeCount();
+        Long getBuyQuantity();
+        Long getSellQuantity();
+        BigDecimal getBuyAmount();
+        BigDecimal getSellAmount();
+    }
+}
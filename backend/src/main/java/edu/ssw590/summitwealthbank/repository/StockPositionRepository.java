@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,8 +18,38 @@ public interface StockPositionRepository extends JpaRepository<StockPosition, Lo
 
     List<StockPosition> findByAccountId(Long accountId);
 
+    List<StockPosition> findByAccountIdAndStockSymbolIn(Long accountId, Collection<String> stockSymbols);
+
     @Query("SELECT sp FROM StockPosition sp WHERE sp.accountId IN :accountIds")
     List<StockPosition> findByAccountIds(@Param("accountIds") List<Long> accountIds);
 
+    /**
+     * Every position owned by the user with its stock, market value and profit/loss,
+     * resolved in a single joined query.
+     */
+    @Query("SELECT sp.stockSymbol AS stockSymbol, s.companyName AS companyName, " +
+           "sp.totalShares AS totalShares, sp.averageCostBasis AS averageCostBasis, " +
+           "s.currentPrice AS currentPrice, " +
+           "s.currentPrice * sp.totalShares AS marketValue, " +
+           "sp.averageCostBasis * sp.totalShares AS costBasis, " +
+           "(s.currentPrice - sp.averageCostBasis) * sp.totalShares AS profitLoss " +
+           "FROM StockPosition sp " +
+           "JOIN Stock s ON s.symbol = sp.stockSymbol " +
+           "JOIN Account a ON a.id = sp.accountId " +
+           "WHERE a.user.email = :email " +
+           "ORDER BY sp.id")
+    List<PortfolioRow> findPortfolioByUserEmail(@Param("email") String email);
+
     void deleteByAccountIdAndStockSymbolAndTotalShares(Long accountId, String stockSymbol, Long totalShares);
+
+    interface PortfolioRow {
+        String getStockSymbol();
+        String getCompanyName();
+        Long getTotalShares();
+        BigDecimal getAverageCostBasis();
+        BigDecimal getCurrentPrice();
+        BigDecimal getMarketValue();
+        BigDecimal getCostBasis();
+        BigDecimal getProfitLoss();
+    }
 }
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,10 +14,14 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
 
     Optional<Stock> findBySymbol(String symbol);
 
+    List<Stock> findBySymbolIn(Collection<String> symbols);
+
     List<Stock> findByAvailableSharesGreaterThan(Long shares);
 
     List<Stock> findAllByOrderByCompanyNameAsc();
 
+    List<Stock> findAllByOrderBySymbolAsc();
+
     @Query("SELECT s FROM Stock s WHERE s.availableShares > 0 ORDER BY s.symbol ASC")
     List<Stock> findAvailableStocks();
 }
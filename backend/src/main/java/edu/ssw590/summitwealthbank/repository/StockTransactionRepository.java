@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,14 +20,35 @@ public interface StockTransactionRepository extends JpaRepository<StockTransacti
 
     Optional<StockTransaction> findByTransactionReference(String transactionReference);
 
-    @Query("SELECT st FROM StockTransaction st WHERE st.accountId IN :accountIds ORDER BY st.timestamp DESC")
+    @Query("SELECT st FROM StockTransaction st WHERE st.accountId IN :accountIds ORDER BY st.timestamp DESC, st.id DESC")
     List<StockTransaction> findRecentByAccountIds(
         @Param("accountIds") List<Long> accountIds,
         Pageable pageable
     );
 
-    @Query("SELECT st FROM StockTransaction st ORDER BY st.timestamp DESC")
+    // Keyset page after (timestamp, id); served by idx_stock_transaction_account_ts_id
+    @Query("SELECT st FROM StockTransaction st WHERE st.accountId IN :accountIds " +
+           "AND st.timestamp <= :timestamp AND (st.timestamp < :timestamp OR st.id < :id) " +
+           "ORDER BY st.timestamp DESC, st.id DESC")
+    List<StockTransaction> findRecentByAccountIdsBefore(
+        @Param("accountIds") List<Long> accountIds,
+        @Param("timestamp") LocalDateTime timestamp,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    @Query("SELECT st FROM StockTransaction st ORDER BY st.timestamp DESC, st.id DESC")
     List<StockTransaction> findAllRecent(Pageable pageable);
 
+    // Keyset page after (timestamp, id); served by idx_stock_transaction_ts_id
+    @Query("SELECT st FROM StockTransaction st " +
+           "WHERE st.timestamp <= :timestamp AND (st.timestamp < :timestamp OR st.id < :id) " +
+           "ORDER BY st.timestamp DESC, st.id DESC")
+    List<StockTransaction> findAllRecentBefore(
+        @Param("timestamp") LocalDateTime timestamp,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
     List<StockTransaction> findByStockSymbolOrderByTimestampDesc(String stockSymbol);
 }
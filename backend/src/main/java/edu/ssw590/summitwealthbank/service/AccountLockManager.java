@@ -0,0 +1,116 @@
+package edu.ssw590.summitwealthbank.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process account locks for single-node deployments, so conflicting
+ * balance updates queue in memory instead of colliding in the database.
+ *
+ * Account ids are hashed onto a fixed, power-of-two number of stripes. A
+ * caller locks all stripes of an operation at once, in ascending stripe
+ * order, so two transfers in opposite directions can never deadlock; two
+ * accounts on the same stripe simply share one lock. Only meaningful when a
+ * single application instance updates the accounts.
+ */
+@Service
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int shift;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+
+    public AccountLockManager(MeterRegistry meterRegistry,
+                              @Value("${app.account-locks.stripes:1024}") int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        size = Math.max(size, 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.shift = 64 - Integer.numberOfTrailingZeros(size);
+        this.waitTimer = Timer.builder("account.lock.wait")
+                .description("Time spent waiting for account stripe locks")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.holdTimer = Timer.builder("account.lock.hold")
+                .description("Time account stripe locks were held")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Locks the stripes of the given accounts until the returned handle is closed. Null ids are skipped.
+     */
+    public Held lock(Collection<Long> accountIds) {
+        int[] indexes = accountIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeOf)
+                .sorted()
+                .distinct()
+                .toArray();
+        long started = System.nanoTime();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        long acquired = System.nanoTime();
+        waitTimer.record(acquired - started, TimeUnit.NANOSECONDS);
+        return new Held(indexes, acquired);
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    // Fibonacci hashing: consecutive ids land on well-spread stripes
+    int stripeOf(Long accountId) {
+        if (shift == 64) {
+            return 0;
+        }
+        return (int) ((accountId * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * Locked stripes; closing releases them in reverse order.
+     */
+    public final class Held implements AutoCloseable {
+
+        private final int[] indexes;
+        private final long acquiredAt;
+        private boolean released;
+
+        private Held(int[] indexes, long acquiredAt) {
+            this.indexes = indexes;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            holdTimer.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Held" + Arrays.toString(indexes);
+        }
+    }
+}
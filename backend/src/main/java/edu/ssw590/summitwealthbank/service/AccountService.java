@@ -2,14 +2,18 @@ package edu.ssw590.summitwealthbank.service;
 
 import edu.ssw590.summitwealthbank.dto.AccountOpenRequest;
 import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
 import edu.ssw590.summitwealthbank.model.User;
 import edu.ssw590.summitwealthbank.repository.AccountRepository;
 import edu.ssw590.summitwealthbank.repository.UserRepository;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 
 @Service
@@ -18,7 +22,11 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
+    private final ReferenceGenerator referenceGenerator;
+    private final ConcurrencyControl concurrencyControl;
+    private final LedgerService ledgerService;
 
+    @Transactional
     public Account openAccount(AccountOpenRequest request) {
         User user = userRepository.findByEmail(request.getEmail())  // CHANGED from getUsername
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + request.getEmail()));
@@ -28,9 +36,12 @@ public class AccountService {
                 .type(request.getType())
                 .balance(request.getInitialDeposit() != null ? request.getInitialDeposit() : BigDecimal.ZERO)
                 .frozen(false)
+                .accountNumber(referenceGenerator.accountNumber())
                 .build();
 
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        ledgerService.post(saved.getId(), saved.getBalance(), LedgerEntry.Kind.OPENING, null);
+        return saved;
     }
 
     public List<Account> getUserAccounts(Long userId) {
@@ -52,16 +63,20 @@ public class AccountService {
         return accountRepository.findByUserId(user.getId());
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Account addMoney(Long accountId, BigDecimal amount, String userEmail) {
         // Validate amount
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
 
-        // Get account
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new IllegalArgumentException("Account not found"));
+        return concurrencyControl.execute("deposit", Arrays.asList(accountId),
+                () -> deposit(accountId, amount, userEmail));
+    }
+
+    private Account deposit(Long accountId, BigDecimal amount, String userEmail) {
+        // Get account (locked in pessimistic mode)
+        Account account = concurrencyControl.loadAccount(accountId);
 
         // Validate ownership
         if (!account.getUser().getEmail().equals(userEmail)) {
@@ -78,10 +93,10 @@ public class AccountService {
             throw new IllegalArgumentException("Cannot add money to a frozen account");
         }
 
-        // Add money
-        account.setBalance(account.getBalance().add(amount));
-
-        return accountRepository.save(account);
+        // Add money, then return the account as stored
+        concurrencyControl.credit(account, amount);
+        ledgerService.post(accountId, amount, LedgerEntry.Kind.DEPOSIT, null);
+        return getAccount(accountId);
     }
 
     public List<Account> getAllAccounts() {
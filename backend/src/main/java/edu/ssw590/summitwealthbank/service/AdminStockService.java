@@ -1,20 +1,47 @@
 package edu.ssw590.summitwealthbank.service;
 
 import edu.ssw590.summitwealthbank.dto.AdminStockCreateRequest;
+import edu.ssw590.summitwealthbank.dto.AdminStockUpdatePriceRequest;
+import edu.ssw590.summitwealthbank.dto.StockPriceBulkUpdateResponse;
 import edu.ssw590.summitwealthbank.model.Stock;
 import edu.ssw590.summitwealthbank.repository.StockRepository;
+import edu.ssw590.summitwealthbank.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class AdminStockService {
 
+    static final int MAX_BULK_PRICE_UPDATES = 50_000;
+    // Largest value that fits stock.current_price (precision 10, scale 2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final String BULK_PRICE_SQL = "UPDATE stock SET current_price = ?, updated_at = ? WHERE symbol = ?";
+
     private final StockRepository stockRepository;
+    private final ShareInventoryService shareInventory;
+    private final StockQuoteCache quoteCache;
+    private final StockPriceStreamService priceStream;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional
     public Stock createStock(AdminStockCreateRequest request) {
@@ -33,7 +60,10 @@ public class AdminStockService {
                 .description(request.getDescription())
                 .build();
 
-        return stockRepository.save(stock);
+        Stock saved = stockRepository.save(stock);
+        shareInventory.register(saved);
+        quoteCache.refresh(saved);
+        return saved;
     }
 
     @Transactional
@@ -42,7 +72,115 @@ public class AdminStockService {
                 .orElseThrow(() -> new IllegalArgumentException("Stock not found: " + symbol));
 
         stock.setCurrentPrice(newPrice);
-        return stockRepository.save(stock);
+        Stock saved = stockRepository.save(stock);
+        quoteCache.refresh(saved);
+        return saved;
+    }
+
+    /**
+     * BULK PRICE UPDATE FLOW:
+     * 1. Validate every row (symbol, price, duplicates) and report all problems at once
+     * 2. Apply all prices with one JDBC batch in this transaction
+     * 3. Reject the whole batch if any symbol matched no stock
+     * 4. After commit, update the quote cache and publish a single price-stream event
+     */
+    @Transactional
+    public StockPriceBulkUpdateResponse updateStockPrices(List<AdminStockUpdatePriceRequest> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("At least one price update is required");
+        }
+        if (updates.size() > MAX_BULK_PRICE_UPDATES) {
+            throw new IllegalArgumentException("A bulk update cannot contain more than " + MAX_BULK_PRICE_UPDATES + " prices");
+        }
+
+        // 1. Validate
+        Map<String, BigDecimal> prices = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < updates.size(); i++) {
+            AdminStockUpdatePriceRequest update = updates.get(i);
+            String symbol = update == null || update.getSymbol() == null ? "" : update.getSymbol().trim().toUpperCase(Locale.ROOT);
+            BigDecimal price = update == null ? null : update.getNewPrice();
+            String problem = validatePrice(symbol, price);
+            if (problem == null && prices.containsKey(symbol)) {
+                problem = "duplicate symbol " + symbol;
+            }
+            if (problem != null) {
+                errors.add("row " + (i + 1) + ": " + problem);
+            } else {
+                prices.put(symbol, price.setScale(2, RoundingMode.HALF_UP));
+            }
+        }
+        rejectIfInvalid(errors);
+
+        // 2. Apply
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> batch = new ArrayList<>(prices.size());
+        prices.forEach((symbol, price) -> batch.add(new Object[]{price, timestamp, symbol}));
+        int[] counts = jdbcTemplate.batchUpdate(BULK_PRICE_SQL, batch);
+
+        // 3. Unknown symbols roll the whole batch back
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                errors.add("unknown symbol " + batch.get(i)[2]);
+            }
+        }
+        rejectIfInvalid(errors);
+
+        // 4. Publish
+        AfterCommit.run(() -> priceStream.publishAtomically(() ->
+                prices.forEach((symbol, price) -> quoteCache.reprice(symbol, current -> price, now))));
+
+        return StockPriceBulkUpdateResponse.builder()
+                .updated(prices.size())
+                .updatedAt(now)
+                .build();
+    }
+
+    /**
+     * Reads "symbol,price" lines (an optional header line is skipped) and applies
+     * them with {@link #updateStockPrices(List)}.
+     */
+    @Transactional
+    public StockPriceBulkUpdateResponse updateStockPricesFromCsv(InputStream csv) {
+        List<AdminStockUpdatePriceRequest> updates = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (lineNumber == 1 && fields[0].trim().equalsIgnoreCase("symbol")) {
+                    continue;
+                }
+                if (fields.length != 2) {
+                    errors.add("line " + lineNumber + ": expected symbol,price");
+                    continue;
+                }
+                if (updates.size() == MAX_BULK_PRICE_UPDATES) {
+                    throw new IllegalArgumentException("A bulk update cannot contain more than " + MAX_BULK_PRICE_UPDATES + " prices");
+                }
+                AdminStockUpdatePriceRequest update = new AdminStockUpdatePriceRequest();
+                update.setSymbol(fields[0]);
+                try {
+                    update.setNewPrice(new BigDecimal(fields[1].trim()));
+                } catch (NumberFormatException e) {
+                    errors.add("line " + lineNumber + ": invalid price " + fields[1].trim());
+                    continue;
+                }
+                updates.add(update);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        rejectIfInvalid(errors);
+        return updateStockPrices(updates);
     }
 
     public List<Stock> getAllStocks() {
@@ -55,10 +193,39 @@ public class AdminStockService {
                 .orElseThrow(() -> new IllegalArgumentException("Stock not found: " + symbol));
 
         // Only allow deletion if no shares are owned by users
-        if (stock.getAvailableShares() < stock.getTotalShares()) {
+        if (shareInventory.getAvailable(stock.getSymbol()) < stock.getTotalShares()) {
             throw new IllegalStateException("Cannot delete stock with active positions");
         }
 
         stockRepository.delete(stock);
+        shareInventory.remove(stock.getSymbol());
+        quoteCache.evict(stock.getSymbol());
+    }
+
+    // Helper methods
+
+    private String validatePrice(String symbol, BigDecimal price) {
+        if (symbol.isEmpty()) {
+            return "symbol is required";
+        }
+        if (price == null) {
+            return "price is required for " + symbol;
+        }
+        if (price.signum() <= 0) {
+            return "price must be greater than zero for " + symbol;
+        }
+        if (price.compareTo(MAX_PRICE) > 0) {
+            return "price is too large for " + symbol;
+        }
+        return null;
+    }
+
+    private void rejectIfInvalid(List<String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        String shown = String.join("; ", errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS)));
+        String more = errors.size() > MAX_REPORTED_ERRORS ? " (and " + (errors.size() - MAX_REPORTED_ERRORS) + " more)" : "";
+        throw new IllegalArgumentException("Invalid price updates: " + shown + more);
     }
 }
@@ -0,0 +1,328 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockBatchOrderRequest;
+import edu.ssw590.summitwealthbank.dto.StockBatchOrderResponse;
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import edu.ssw590.summitwealthbank.model.StockPosition;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.repository.StockPositionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Executes many house-pool buy/sell legs for one account as a single unit.
+ *
+ * Ownership is checked once, quotes come from the {@link StockQuoteCache},
+ * positions are loaded with one IN query, the legs are applied in memory, and
+ * every position, trade record, P&L rollup, ledger entry and the account balance are written
+ * with JDBC batches. Share availability goes through {@link ShareInventoryService}, so
+ * the stock table is not touched here.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchTradeService {
+
+    static final int MAX_LEGS = 500;
+
+    private static final String INSERT_POSITION_SQL =
+            "INSERT INTO stock_position (account_id, stock_symbol, total_shares, average_cost_basis, created_at, updated_at, "
+                    + "version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+    private static final String UPDATE_POSITION_SQL =
+            "UPDATE stock_position SET total_shares = ?, average_cost_basis = ?, updated_at = ?, version = version + 1 "
+                    + "WHERE id = ? AND version = ?";
+    private static final String DELETE_POSITION_SQL =
+            "DELETE FROM stock_position WHERE id = ? AND version = ?";
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO stock_transaction (transaction_reference, account_id, stock_symbol, type, quantity, "
+                    + "price_per_share, total_amount, profit_loss, timestamp, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE account SET balance = balance + ?, version = version + 1 "
+                    + "WHERE id = ? AND balance + ? >= 0 AND frozen = false";
+
+    private final StockPositionRepository positionRepository;
+    private final StockService stockService;
+    private final ConcurrencyControl concurrencyControl;
+    private final ShareInventoryService shareInventory;
+    private final StockQuoteCache quoteCache;
+    private final PortfolioValuationIndex valuationIndex;
+    private final PnlRollupService pnlRollups;
+    private final LedgerService ledgerService;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * BATCH TRADE FLOW:
+     * 1. Validate the legs and account ownership (once)
+     * 2. Resolve quotes from the cache and load positions with one query
+     * 3. Apply sells, then buys, in memory so purchases can be funded by the sales
+     * 4. Write positions, trade records and the balance with JDBC batches
+     * Any failure rolls back the whole batch, including share reservations; a
+     * position changed by a concurrent trade re-runs it (see {@link ConcurrencyControl}).
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public StockBatchOrderResponse executeBatch(StockBatchOrderRequest request, String userEmail) {
+        List<StockBatchOrderRequest.Leg> legs = validateLegs(request);
+        return concurrencyControl.execute("stock.batch", Arrays.asList(request.getAccountId()),
+                () -> applyBatch(request, legs, userEmail));
+    }
+
+    // Helper methods
+
+    private StockBatchOrderResponse applyBatch(StockBatchOrderRequest request, List<StockBatchOrderRequest.Leg> legs,
+                                               String userEmail) {
+        // 1. Validate ownership
+        Account account = stockService.validateAccountOwnership(
+                concurrencyControl.loadAccount(request.getAccountId()), userEmail);
+
+        // 2. Load stocks and positions
+        Set<String> symbols = legs.stream()
+                .map(StockBatchOrderRequest.Leg::getStockSymbol)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<String, StockQuote> stocks = quoteCache.findAll(symbols);
+        for (String symbol : symbols) {
+            if (!stocks.containsKey(symbol)) {
+                throw new IllegalArgumentException("Stock not found: " + symbol);
+            }
+        }
+
+        Map<String, WorkingPosition> positions = new HashMap<>();
+        for (StockPosition position : positionRepository.findByAccountIdAndStockSymbolIn(account.getId(), symbols)) {
+            positions.put(position.getStockSymbol(), new WorkingPosition(position));
+        }
+
+        // 3. Apply legs (stable sort keeps the caller's order within sells and within buys)
+        List<StockBatchOrderRequest.Leg> ordered = new ArrayList<>(legs);
+        ordered.sort(Comparator.comparing(leg -> leg.getSide() == StockTransaction.TransactionType.BUY));
+
+        BigDecimal cash = account.getBalance();
+        BigDecimal totalBought = BigDecimal.ZERO;
+        BigDecimal totalSold = BigDecimal.ZERO;
+        BigDecimal realized = BigDecimal.ZERO;
+        LocalDateTime now = LocalDateTime.now();
+        List<StockTransaction> records = new ArrayList<>();
+
+        for (StockBatchOrderRequest.Leg leg : ordered) {
+            String symbol = leg.getStockSymbol();
+            long quantity = leg.getQuantity();
+            BigDecimal price = stocks.get(symbol).getCurrentPrice();
+            BigDecimal amount = price.multiply(BigDecimal.valueOf(quantity));
+            WorkingPosition position = positions.get(symbol);
+
+            if (leg.getSide() == StockTransaction.TransactionType.BUY) {
+                if (cash.compareTo(amount) < 0) {
+                    throw new IllegalArgumentException("Insufficient funds in account for " + symbol + " leg");
+                }
+                if (!shareInventory.reserve(symbol, quantity)) {
+                    throw new IllegalArgumentException(
+                            String.format("Not enough shares available for %s. Available: %d, Requested: %d",
+                                    symbol, shareInventory.getAvailable(symbol), quantity));
+                }
+                if (position == null) {
+                    position = new WorkingPosition(null, null, 0, BigDecimal.ZERO);
+                    positions.put(symbol, position);
+                }
+                position.buy(quantity, amount);
+                cash = cash.subtract(amount);
+                totalBought = totalBought.add(amount);
+                records.add(record(account.getId(), symbol, StockTransaction.TransactionType.BUY,
+                        quantity, price, amount, null, now));
+            } else {
+                long owned = position == null ? 0 : position.shares;
+                if (owned < quantity) {
+                    throw new IllegalArgumentException(
+                            String.format("Not enough shares of %s. Owned: %d, Requested: %d", symbol, owned, quantity));
+                }
+                BigDecimal profitLoss = amount.subtract(position.averageCost.multiply(BigDecimal.valueOf(quantity)));
+                shareInventory.release(symbol, quantity);
+                position.shares -= quantity;
+                position.changed = true;
+                cash = cash.add(amount);
+                totalSold = totalSold.add(amount);
+                realized = realized.add(profitLoss);
+                records.add(record(account.getId(), symbol, StockTransaction.TransactionType.SELL,
+                        quantity, price, amount, profitLoss, now));
+            }
+        }
+
+        // 4. Write everything
+        writePositions(account.getId(), positions, now);
+        writeTransactions(records);
+        pnlRollups.record(records);
+        ledgerService.postAll(records.stream()
+                .map(t -> t.getType() == StockTransaction.TransactionType.BUY
+                        ? new LedgerService.Posting(t.getAccountId(), t.getTotalAmount().negate(),
+                                LedgerEntry.Kind.STOCK_BUY, t.getTransactionReference())
+                        : new LedgerService.Posting(t.getAccountId(), t.getTotalAmount(),
+                                LedgerEntry.Kind.STOCK_SELL, t.getTransactionReference()))
+                .collect(Collectors.toList()));
+
+        BigDecimal delta = cash.subtract(account.getBalance());
+        int updated = jdbcTemplate.update(UPDATE_BALANCE_SQL, delta, account.getId(), delta);
+        if (updated == 0) {
+            // Frozen since the ownership check, or the balance moved under us
+            throw concurrencyControl.debitRefused(account.getId(), "Insufficient funds in account");
+        }
+
+        return StockBatchOrderResponse.builder()
+                .accountId(account.getId())
+                .legs(legs.size())
+                .totalBought(totalBought)
+                .totalSold(totalSold)
+                .realizedProfitLoss(realized)
+                .balance(cash)
+                .transactionReferences(records.stream()
+                        .map(StockTransaction::getTransactionReference)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private List<StockBatchOrderRequest.Leg> validateLegs(StockBatchOrderRequest request) {
+        if (request.getAccountId() == null) {
+            throw new IllegalArgumentException("Account is required");
+        }
+        List<StockBatchOrderRequest.Leg> legs = request.getLegs();
+        if (legs == null || legs.isEmpty()) {
+            throw new IllegalArgumentException("At least one order leg is required");
+        }
+        if (legs.size() > MAX_LEGS) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_LEGS + " legs");
+        }
+        for (StockBatchOrderRequest.Leg leg : legs) {
+            if (leg.getSide() == null || leg.getStockSymbol() == null) {
+                throw new IllegalArgumentException("Every leg needs a side and a stock symbol");
+            }
+            if (leg.getQuantity() == null || leg.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero for " + leg.getStockSymbol());
+            }
+        }
+        return legs;
+    }
+
+    private StockTransaction record(Long accountId, String symbol, StockTransaction.TransactionType type,
+                                    long quantity, BigDecimal price, BigDecimal amount, BigDecimal profitLoss,
+                                    LocalDateTime timestamp) {
+        return StockTransaction.builder()
+                .transactionReference(stockService.generateStockTransactionReference())
+                .accountId(accountId)
+                .stockSymbol(symbol)
+                .type(type)
+                .quantity(quantity)
+                .pricePerShare(price)
+                .totalAmount(amount)
+                .profitLoss(profitLoss)
+                .timestamp(timestamp)
+                .notes("Batch order")
+                .build();
+    }
+
+    private void writePositions(Long accountId, Map<String, WorkingPosition> positions, LocalDateTime now) {
+        Timestamp ts = Timestamp.valueOf(now);
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+
+        positions.forEach((symbol, position) -> {
+            if (!position.changed) {
+                return;
+            }
+            if (position.id == null) {
+                if (position.shares > 0) {
+                    inserts.add(new Object[]{accountId, symbol, position.shares, position.averageCost, ts, ts});
+                }
+            } else if (position.shares == 0) {
+                deletes.add(new Object[]{position.id, position.version});
+            } else {
+                updates.add(new Object[]{position.shares, position.averageCost, ts, position.id, position.version});
+            }
+            valuationIndex.adjustPosition(accountId, symbol, position.shares - position.originalShares);
+        });
+
+        if (!deletes.isEmpty()) {
+            requireAllApplied(jdbcTemplate.batchUpdate(DELETE_POSITION_SQL, deletes));
+        }
+        if (!updates.isEmpty()) {
+            requireAllApplied(jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, updates));
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_POSITION_SQL, inserts);
+        }
+    }
+
+    // A position whose version moved was changed by another trade since it was read
+    private static void requireAllApplied(int[] counts) {
+        for (int count : counts) {
+            if (count == 0) {
+                throw new OptimisticLockingFailureException("A position in the batch was changed concurrently");
+            }
+        }
+    }
+
+    private void writeTransactions(List<StockTransaction> records) {
+        List<Object[]> rows = records.stream()
+                .map(t -> new Object[]{
+                        t.getTransactionReference(),
+                        t.getAccountId(),
+                        t.getStockSymbol(),
+                        t.getType().name(),
+                        t.getQuantity(),
+                        t.getPricePerShare(),
+                        t.getTotalAmount(),
+                        t.getProfitLoss(),
+                        Timestamp.valueOf(t.getTimestamp()),
+                        t.getNotes()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, rows);
+    }
+
+    /**
+     * Mutable copy of a position so the managed entity is never dirtied
+     * (which would trigger one unbatched UPDATE per entity at flush).
+     */
+    private static final class WorkingPosition {
+        private final Long id;
+        private final Long version;
+        private final long originalShares;
+        private long shares;
+        private BigDecimal averageCost;
+        private boolean changed;
+
+        private WorkingPosition(StockPosition position) {
+            this(position.getId(), position.getVersion(), position.getTotalShares(), position.getAverageCostBasis());
+        }
+
+        private WorkingPosition(Long id, Long version, long shares, BigDecimal averageCost) {
+            this.id = id;
+            this.version = version;
+            this.originalShares = shares;
+            this.shares = shares;
+            this.averageCost = averageCost;
+        }
+
+        private void buy(long quantity, BigDecimal cost) {
+            BigDecimal existingValue = averageCost.multiply(BigDecimal.valueOf(shares));
+            shares += quantity;
+            averageCost = existingValue.add(cost).divide(BigDecimal.valueOf(shares), 2, RoundingMode.HALF_UP);
+            changed = true;
+        }
+    }
+}
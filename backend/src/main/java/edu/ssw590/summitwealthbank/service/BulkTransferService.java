@@ -0,0 +1,184 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.BulkTransferRequest;
+import edu.ssw590.summitwealthbank.dto.BulkTransferResponse;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pays many destination accounts from one source account as a single unit (payroll).
+ *
+ * The source is debited once for the total with a conditional UPDATE that also checks
+ * ownership, frozen status and funds; destinations are checked with one IN query that
+ * reads only their id and frozen flag, not the eagerly joined owner; the credits and
+ * transfer records are written with JDBC batches in the same commit.
+ * Balance changes are set-based in every concurrency mode, so nothing here can lose
+ * an update; {@link ConcurrencyControl} still supplies the transaction and retries.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkTransferService {
+
+    static final int MAX_LEGS = 5000;
+
+    private static final String CREDIT_SQL =
+            "UPDATE account SET balance = balance + ?, version = version + 1 WHERE id = ? AND frozen = false";
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transaction (transaction_reference, from_account_id, to_account_id, amount, description, "
+                    + "timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final TransferService transferService;
+    private final AccountRepository accountRepository;
+    private final ConcurrencyControl concurrencyControl;
+    private final ReferenceGenerator referenceGenerator;
+    private final LedgerService ledgerService;
+    private final TransactionSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * BULK TRANSFER FLOW:
+     * 1. Validate the legs and total them
+     * 2. Check every destination exists and is not frozen with one id/frozen query
+     * 3. Apply the debit and the per-account credits in ascending account id order
+     * 4. Write one transfer record and one debit/credit ledger pair per leg with JDBC batches
+     * Any failure rolls back the whole batch.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BulkTransferResponse transferBatch(BulkTransferRequest request, String email) {
+        List<BulkTransferRequest.Leg> legs = validateLegs(request);
+        List<Long> accountIds = new ArrayList<>();
+        accountIds.add(request.getFromAccountId());
+        legs.forEach(leg -> accountIds.add(leg.getToAccountId()));
+        return concurrencyControl.execute("transfer.batch", accountIds, () -> applyBatch(request, legs, email));
+    }
+
+    // Helper methods
+
+    private BulkTransferResponse applyBatch(BulkTransferRequest request, List<BulkTransferRequest.Leg> legs,
+                                            String email) {
+        Long fromId = request.getFromAccountId();
+
+        // 1. Total per destination, sorted by id (several legs may pay the same account)
+        Map<Long, BigDecimal> credits = new TreeMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (BulkTransferRequest.Leg leg : legs) {
+            credits.merge(leg.getToAccountId(), leg.getAmount(), BigDecimal::add);
+            total = total.add(leg.getAmount());
+        }
+
+        // 2. Check destinations
+        Map<Long, AccountRepository.AccountStatusView> destinations =
+                accountRepository.findStatusesByIdIn(credits.keySet()).stream()
+                        .collect(Collectors.toMap(AccountRepository.AccountStatusView::getId, Function.identity()));
+        for (Long toId : credits.keySet()) {
+            AccountRepository.AccountStatusView to = destinations.get(toId);
+            if (to == null) {
+                throw new IllegalArgumentException("Account not found: " + toId);
+            }
+            if (to.isFrozen()) {
+                throw new IllegalStateException("Destination account " + toId + " is frozen. Transfer cannot be completed.");
+            }
+        }
+
+        // 3. Credits below the source, the debit, credits above it: the same lock order as single transfers
+        credit(credits.entrySet().stream()
+                .filter(entry -> entry.getKey() < fromId)
+                .collect(Collectors.toList()));
+        transferService.debitSource(fromId, email, total);
+        credit(credits.entrySet().stream()
+                .filter(entry -> entry.getKey() > fromId)
+                .collect(Collectors.toList()));
+
+        // 4. Record every leg
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> references = new ArrayList<>(legs.size());
+        List<Object[]> rows = new ArrayList<>(legs.size());
+        List<LedgerService.Posting> postings = new ArrayList<>(2 * legs.size());
+        for (BulkTransferRequest.Leg leg : legs) {
+            String reference = referenceGenerator.transactionReference();
+            String description = leg.getDescription() != null && !leg.getDescription().isBlank()
+                    ? leg.getDescription() : request.getDescription();
+            references.add(reference);
+            rows.add(new Object[]{reference, fromId, leg.getToAccountId(), leg.getAmount(), description, now});
+            postings.add(new LedgerService.Posting(fromId, leg.getAmount().negate(), LedgerEntry.Kind.TRANSFER, reference));
+            postings.add(new LedgerService.Posting(leg.getToAccountId(), leg.getAmount(), LedgerEntry.Kind.TRANSFER,
+                    reference));
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, rows);
+        ledgerService.postAll(postings);
+        // The batch insert does not return ids, so cached description indexes are rebuilt instead
+        List<Long> touched = new ArrayList<>(credits.keySet());
+        touched.add(fromId);
+        searchIndex.invalidateAfterCommit(touched);
+
+        return BulkTransferResponse.builder()
+                .fromAccountId(fromId)
+                .legs(legs.size())
+                .totalAmount(total)
+                .transactionReferences(references)
+                .build();
+    }
+
+    private void credit(List<Map.Entry<Long, BigDecimal>> credits) {
+        if (credits.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = credits.stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .collect(Collectors.toList());
+        int[] counts = jdbcTemplate.batchUpdate(CREDIT_SQL, rows);
+        for (int i = 0; i < counts.length; i++) {
+            // Frozen since it was loaded
+            if (counts[i] == 0) {
+                throw new IllegalStateException("Destination account " + credits.get(i).getKey()
+                        + " is frozen. Transfer cannot be completed.");
+            }
+        }
+    }
+
+    private List<BulkTransferRequest.Leg> validateLegs(BulkTransferRequest request) {
+        if (request.getFromAccountId() == null) {
+            throw new IllegalArgumentException("Source account is required");
+        }
+        List<BulkTransferRequest.Leg> legs = request.getLegs();
+        if (legs == null || legs.isEmpty()) {
+            throw new IllegalArgumentException("At least one transfer leg is required");
+        }
+        if (legs.size() > MAX_LEGS) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + MAX_LEGS + " legs");
+        }
+        boolean hasDefaultDescription = request.getDescription() != null && !request.getDescription().isBlank();
+        for (BulkTransferRequest.Leg leg : legs) {
+            if (leg.getToAccountId() == null) {
+                throw new IllegalArgumentException("Every leg needs a destination account");
+            }
+            if (leg.getToAccountId().equals(request.getFromAccountId())) {
+                throw new IllegalArgumentException("Cannot transfer to the same account");
+            }
+            if (leg.getAmount() == null || leg.getAmount().signum() <= 0) {
+                throw new IllegalArgumentException("Transfer amount must be greater than zero for account "
+                        + leg.getToAccountId());
+            }
+            if (!hasDefaultDescription && (leg.getDescription() == null || leg.getDescription().isBlank())) {
+                throw new IllegalArgumentException("Description is required and cannot be blank");
+            }
+        }
+        return legs;
+    }
+}
@@ -0,0 +1,270 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs balance-changing operations (transfers, trades, deposits, and the escrow,
+ * refunds and settlement of order-book orders) in a transaction under the
+ * configured concurrency mode.
+ *
+ * OPTIMISTIC reads accounts without locks and relies on the @Version columns of
+ * Account, StockPosition and Stock: a concurrent change makes the commit fail,
+ * and the whole operation is re-run after a jittered backoff. PESSIMISTIC reads
+ * accounts with SELECT ... FOR UPDATE (in id order, so two-account operations
+ * cannot deadlock) and holds the rows until commit. Both modes retry any
+ * concurrency failure, such as a lock timeout, up to app.concurrency.max-attempts.
+ * CONDITIONAL skips the read-modify-write for balances altogether: {@link #debit}
+ * and {@link #credit} become one UPDATE each whose WHERE clause checks funds and
+ * frozen status, and whose row count says whether it applied.
+ *
+ * With app.account-locks.enabled (single-node deployments) operations that name
+ * their accounts first take the {@link AccountLockManager} stripes for them and
+ * hold them across the transaction, so conflicting updates wait in memory and
+ * the database checks above become a safety net rather than the queue.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConcurrencyControl {
+
+    public enum Mode {
+        OPTIMISTIC,
+        PESSIMISTIC,
+        CONDITIONAL
+    }
+
+    private final AccountRepository accountRepository;
+    private final AccountLockManager lockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.concurrency.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.concurrency.backoff-base-ms:5}")
+    private long backoffBaseMs;
+
+    @Value("${app.concurrency.backoff-max-ms:200}")
+    private long backoffMaxMs;
+
+    @Value("${app.account-locks.enabled:false}")
+    private volatile boolean accountLocks;
+
+    private volatile Mode mode = Mode.CONDITIONAL;
+
+    @Value("${app.concurrency.mode:conditional}")
+    void configureMode(String configured) {
+        setMode(Mode.valueOf(configured.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+        log.info("Concurrency mode for transfers, trades and deposits: {}", mode);
+    }
+
+    public boolean isAccountLocks() {
+        return accountLocks;
+    }
+
+    public void setAccountLocks(boolean accountLocks) {
+        this.accountLocks = accountLocks;
+    }
+
+    /**
+     * Like {@link #execute(String, Supplier)}, holding the in-process locks of the given
+     * accounts across every attempt when account locks are enabled.
+     */
+    public <T> T execute(String operation, Collection<Long> accountIds, Supplier<T> work) {
+        if (!accountLocks || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return execute(operation, work);
+        }
+        try (AccountLockManager.Held held = lockManager.lock(accountIds)) {
+            return execute(operation, work);
+        }
+    }
+
+    /**
+     * Runs the operation in its own transaction, re-running it on a concurrency failure.
+     * Inside an existing transaction it simply joins it; the outer caller owns the retry.
+     */
+    public <T> T execute(String operation, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (ConcurrencyFailureException e) {
+                counter("concurrency.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("concurrency.retries.exhausted", operation).increment();
+                    log.warn("{} gave up after {} conflicting attempts: {}", operation, attempt, e.getMessage());
+                    throw e;
+                }
+                counter("concurrency.retries", operation).increment();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Loads an account for update: locked until commit in PESSIMISTIC mode, plain read otherwise.
+     */
+    public Account loadAccount(Long id) {
+        return (mode == Mode.PESSIMISTIC ? accountRepository.findByIdForUpdate(id) : accountRepository.findById(id))
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + id));
+    }
+
+    /**
+     * Loads two accounts for update, locking the lower id first so opposite transfers cannot deadlock.
+     */
+    public Account[] loadAccounts(Long firstId, Long secondId) {
+        if (firstId <= secondId) {
+            Account first = loadAccount(firstId);
+            return new Account[]{first, loadAccount(secondId)};
+        }
+        Account second = loadAccount(secondId);
+        return new Account[]{loadAccount(firstId), second};
+    }
+
+    /**
+     * Takes the amount from the account, or throws IllegalArgumentException with the given message
+     * when its balance does not cover it.
+     */
+    public void debit(Long accountId, BigDecimal amount, String insufficientFunds) {
+        if (mode == Mode.CONDITIONAL) {
+            conditionalDebit(accountId, amount, insufficientFunds);
+        } else {
+            debit(loadAccount(accountId), amount, insufficientFunds);
+        }
+    }
+
+    /**
+     * Like {@link #debit(Long, BigDecimal, String)} for an account this operation already loaded.
+     */
+    public void debit(Account account, BigDecimal amount, String insufficientFunds) {
+        if (mode == Mode.CONDITIONAL) {
+            conditionalDebit(account.getId(), amount, insufficientFunds);
+            return;
+        }
+        if (account.getBalance().compareTo(amount) < 0) {
+            throw new IllegalArgumentException(insufficientFunds);
+        }
+        account.setBalance(account.getBalance().subtract(amount));
+        accountRepository.save(account);
+    }
+
+    /**
+     * Debits only if the account belongs to the given user. Returns false instead of throwing,
+     * so the caller can work out and report why.
+     */
+    public boolean tryDebitOwned(Long accountId, String email, BigDecimal amount) {
+        return accountRepository.debitOwned(accountId, email, amount) == 1;
+    }
+
+    /**
+     * Adds the amount to the account.
+     */
+    public void credit(Long accountId, BigDecimal amount) {
+        if (mode == Mode.CONDITIONAL) {
+            conditionalCredit(accountId, amount);
+        } else {
+            credit(loadAccount(accountId), amount);
+        }
+    }
+
+    /**
+     * Like {@link #credit(Long, BigDecimal)} for an account this operation already loaded.
+     */
+    public void credit(Account account, BigDecimal amount) {
+        if (mode == Mode.CONDITIONAL) {
+            conditionalCredit(account.getId(), amount);
+            return;
+        }
+        account.setBalance(account.getBalance().add(amount));
+        accountRepository.save(account);
+    }
+
+    /**
+     * One conditional UPDATE; false when the account is missing or frozen.
+     */
+    public boolean tryCredit(Long accountId, BigDecimal amount) {
+        return accountRepository.credit(accountId, amount) == 1;
+    }
+
+    /**
+     * Why a conditional debit matched no row: the account is missing or frozen, or else it
+     * lacked funds (IllegalArgumentException with the given message).
+     */
+    public RuntimeException debitRefused(Long accountId, String insufficientFunds) {
+        RuntimeException reason = rejected(accountId);
+        return reason != null ? reason : new IllegalArgumentException(insufficientFunds);
+    }
+
+    // Helper methods
+
+    private void conditionalDebit(Long accountId, BigDecimal amount, String insufficientFunds) {
+        if (accountRepository.debit(accountId, amount) == 1) {
+            return;
+        }
+        throw debitRefused(accountId, insufficientFunds);
+    }
+
+    private void conditionalCredit(Long accountId, BigDecimal amount) {
+        if (tryCredit(accountId, amount)) {
+            return;
+        }
+        RuntimeException reason = rejected(accountId);
+        throw reason != null ? reason : new IllegalStateException("Account " + accountId + " could not be credited");
+    }
+
+    // Why a conditional update matched no row; null when the account is fine (so it lacked funds)
+    private RuntimeException rejected(Long accountId) {
+        Account account = accountRepository.findById(accountId).orElse(null);
+        if (account == null) {
+            return new IllegalArgumentException("Account not found: " + accountId);
+        }
+        if (account.isFrozen()) {
+            return new IllegalStateException("Account is frozen. Please contact support.");
+        }
+        return null;
+    }
+
+    // Full jitter: a random pause up to an exponentially growing cap
+    private void backoff(int attempt) {
+        long cap = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying after a conflict", e);
+        }
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name)
+                .tag("operation", operation)
+                .tag("mode", mode.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,244 @@
+package edu.ssw590.summitwealthbank.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams full dumps of the transfer and stock-trade tables for compliance.
+ *
+ * Rows are read through a forward-only, read-only JDBC cursor with a fetch size
+ * (Postgres only honours it inside a transaction, hence the read-only
+ * transaction) and written one at a time to the caller's stream, so heap use
+ * does not grow with the size of the export.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    static final int FETCH_SIZE = 1000;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public enum Dataset {
+        TRANSFERS("transaction",
+                new String[]{"id", "transaction_reference", "from_account_id", "to_account_id", "amount",
+                        "description", "timestamp"},
+                new String[]{"id", "transactionReference", "fromAccountId", "toAccountId", "amount",
+                        "description", "timestamp"}),
+        TRADES("stock_transaction",
+                new String[]{"id", "transaction_reference", "account_id", "stock_symbol", "type", "quantity",
+                        "price_per_share", "total_amount", "profit_loss", "timestamp", "notes"},
+                new String[]{"id", "transactionReference", "accountId", "stockSymbol", "type", "quantity",
+                        "pricePerShare", "totalAmount", "profitLoss", "timestamp", "notes"});
+
+        private final String table;
+        private final String[] columns;
+        private final String[] fields;
+
+        Dataset(String table, String[] columns, String[] fields) {
+            this.table = table;
+            this.columns = columns;
+            this.fields = fields;
+        }
+
+        public static Dataset from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown export: " + value + ". Use transfers or trades");
+            }
+        }
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format from(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown format: " + value + ". Use ndjson or csv");
+            }
+        }
+    }
+
+    /**
+     * Writes every row with from <= timestamp < to (either bound optional) in
+     * (timestamp, id) order. Returns the number of rows written. The stream is
+     * flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(Dataset dataset, Format format, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", dataset.columns))
+                .append(" FROM ").append(dataset.table);
+        List<Object> params = new ArrayList<>();
+        if (from != null || to != null) {
+            sql.append(" WHERE ");
+            if (from != null) {
+                sql.append("timestamp >= ?");
+                params.add(Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                sql.append(from != null ? " AND " : "").append("timestamp < ?");
+                params.add(Timestamp.valueOf(to));
+            }
+        }
+        sql.append(" ORDER BY timestamp, id");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == Format.NDJSON ? new NdjsonRowWriter(writer, dataset) : new CsvRowWriter(writer, dataset);
+        long[] rows = {0};
+
+        try {
+            rowWriter.start();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, resultSet -> {
+                try {
+                    rowWriter.write(resultSet);
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows[0];
+    }
+
+    private interface RowWriter {
+        default void start() throws IOException {
+        }
+
+        void write(ResultSet resultSet) throws SQLException, IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final Dataset dataset;
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer, Dataset dataset) {
+            this.writer = writer;
+            this.dataset = dataset;
+            try {
+                this.generator = JSON_FACTORY.createGenerator(writer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // One object per line; the writer is closed by the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < dataset.columns.length; i++) {
+                generator.writeFieldName(dataset.fields[i]);
+                Object value = resultSet.getObject(i + 1);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumber(decimal);
+                } else if (value instanceof Number number) {
+                    generator.writeNumber(number.longValue());
+                } else if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+        private final Dataset dataset;
+
+        private CsvRowWriter(Writer writer, Dataset dataset) {
+            this.writer = writer;
+            this.dataset = dataset;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", dataset.fields));
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet resultSet) throws SQLException, IOException {
+            for (int i = 0; i < dataset.columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = resultSet.getObject(i + 1);
+                if (value instanceof Timestamp timestamp) {
+                    writer.write(timestamp.toLocalDateTime().toString());
+                } else if (value instanceof BigDecimal decimal) {
+                    writer.write(decimal.toPlainString());
+                } else if (value != null) {
+                    writer.write(escape(value.toString()));
+                }
+            }
+            writer.write('\n');
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.model.IdReservation;
+import edu.ssw590.summitwealthbank.repository.IdReservationRepository;
+import edu.ssw590.summitwealthbank.util.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists how far ahead each id generator may issue ids, so a restart never
+ * reissues ticks the previous run borrowed from the future.
+ *
+ * A registered generator starts after the tick its node last reserved and is
+ * limited to a new reservation app.ids.reserve-ahead-ms beyond the clock (or
+ * beyond its own latest tick, when that is further). The reservation is written,
+ * in its own transaction, before the generator may use it. It is extended every
+ * app.ids.reserve-interval-ms, and on demand by the first caller of a burst that
+ * reaches it; callers that still find it exhausted after app.ids.max-wait-ms fail
+ * instead of blocking the request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdReservationService {
+
+    private final IdReservationRepository reservationRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.ids.reserve-ahead-ms:300000}")
+    private long reserveAheadMs;
+
+    @Value("${app.ids.max-wait-ms:1000}")
+    private long maxWaitMs;
+
+    private final Map<String, SnowflakeIdGenerator> generators = new ConcurrentHashMap<>();
+    // Never lowered, even if the clock steps back
+    private final Map<String, Long> reservedTicks = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the generator after the last tick reserved under this name and reserves its first window.
+     */
+    public void register(String name, SnowflakeIdGenerator generator) {
+        reservationRepository.findById(name)
+                .ifPresent(previous -> generator.startAfter(previous.getReservedTick()));
+        extend(name, generator);
+        generator.extendWith(() -> extend(name, generator), maxWaitMs);
+        generators.put(name, generator);
+    }
+
+    @Scheduled(fixedDelayString = "${app.ids.reserve-interval-ms:60000}")
+    public void extendReservations() {
+        generators.forEach((name, generator) -> {
+            try {
+                extend(name, generator);
+            } catch (RuntimeException e) {
+                // The current window still holds; the next run tries again
+                log.warn("Could not extend id reservation {}", name, e);
+            }
+        });
+    }
+
+    // Helper methods
+
+    // Synchronized: the scheduled run and an on-demand extension may race
+    private synchronized void extend(String name, SnowflakeIdGenerator generator) {
+        long aheadTicks = Math.max(1, reserveAheadMs / generator.getTickMillis());
+        long tick = Math.max(generator.getLatestTick() + aheadTicks, reservedTicks.getOrDefault(name, -1L));
+        // Committed on its own, even when the caller that needs the ids is inside a transaction
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status -> reservationRepository.save(
+                IdReservation.builder().name(name).reservedTick(tick).build()));
+        reservedTicks.put(name, tick);
+        generator.limitTo(tick);
+    }
+}
@@ -0,0 +1,316 @@
+package edu.ssw590.summitwealthbank.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Makes money-moving endpoints safe to retry with an Idempotency-Key header.
+ *
+ * The first request with a key claims it by inserting an idempotency_record row
+ * (unique per user and key) before it runs, then stores its response there.
+ * A retry with the same key gets that response replayed and never reaches the
+ * account or stock rows. Recently completed keys are also held in a bounded LRU
+ * cache, so most retries are answered without a database round trip.
+ *
+ * Responses with a 5xx status or a 409 (a write that kept conflicting and
+ * applied nothing), and requests that throw, release the claim so the client
+ * can retry. A key reused with a different request body or endpoint
+ * is rejected with 422, and a retry that arrives while the first request is
+ * still running gets 409. If the server dies mid-request the key stays claimed
+ * until it expires, so the request can never run twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotency-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO idempotency_record (user_email, idempotency_key, endpoint, request_hash, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    private static final String COMPLETE_SQL =
+            "UPDATE idempotency_record SET response_status = ?, response_content_type = ?, response_body = ? "
+                    + "WHERE user_email = ? AND idempotency_key = ?";
+    private static final String RELEASE_SQL =
+            "DELETE FROM idempotency_record WHERE user_email = ? AND idempotency_key = ? AND response_status IS NULL";
+    private static final String EXPIRE_SQL =
+            "DELETE FROM idempotency_record WHERE user_email = ? AND idempotency_key = ? AND created_at < ?";
+    private static final String FIND_SQL =
+            "SELECT endpoint, request_hash, response_status, response_content_type, response_body, created_at "
+                    + "FROM idempotency_record WHERE user_email = ? AND idempotency_key = ? AND created_at >= ?";
+    private static final String PURGE_SQL = "DELETE FROM idempotency_record WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // Access-ordered LRU; guarded by itself
+    private Map<String, StoredResponse> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private Counter evictions;
+    private Counter replays;
+
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                if (size() > cacheSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        FunctionCounter.builder("idempotency.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("idempotency.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        evictions = Counter.builder("idempotency.cache.evictions")
+                .description("Completed keys dropped from the in-memory cache to stay within its size")
+                .register(meterRegistry);
+        replays = Counter.builder("idempotency.replays")
+                .description("Retried requests answered with a stored response")
+                .register(meterRegistry);
+        Gauge.builder("idempotency.cache.size", this, service -> service.cacheSizeNow())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the action at most once per user and key, replaying its response for retries.
+     * Without a key the action simply runs.
+     */
+    public ResponseEntity<?> execute(String email, String key, String endpoint, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = email + '\n' + key;
+        String requestHash = hash(endpoint, request);
+
+        // 1. Recently completed keys are answered from memory
+        StoredResponse cached = cached(cacheKey);
+        if (cached != null) {
+            hits.increment();
+            return replay(cached, endpoint, requestHash);
+        }
+        misses.increment();
+
+        // 2. Claim the key; if someone already has, replay their outcome
+        if (!claim(email, key, endpoint, requestHash)) {
+            return replayFromDatabase(email, key, cacheKey, endpoint, requestHash);
+        }
+
+        // 3. Run the request and record its response, or release the key if it failed
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(email, key);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError() || response.getStatusCode() == HttpStatus.CONFLICT) {
+            release(email, key);
+            return response;
+        }
+
+        StoredResponse stored = store(endpoint, requestHash, response);
+        jdbcTemplate.update(COMPLETE_SQL, stored.status(), stored.contentType(), stored.body(), email, key);
+        synchronized (cache) {
+            cache.put(cacheKey, stored);
+        }
+        return response;
+    }
+
+    /**
+     * Drops records past their time to live; retries after that run again.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(expiryCutoff()));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+    }
+
+    // Helper methods
+
+    private StoredResponse cached(String cacheKey) {
+        synchronized (cache) {
+            StoredResponse stored = cache.get(cacheKey);
+            if (stored != null && stored.createdAt().isBefore(expiryCutoff())) {
+                cache.remove(cacheKey);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private boolean claim(String email, String key, String endpoint, String requestHash) {
+        try {
+            jdbcTemplate.update(CLAIM_SQL, email, key, endpoint, requestHash, Timestamp.valueOf(LocalDateTime.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            // A record past its time to live that the purge has not reached yet no longer counts
+            if (jdbcTemplate.update(EXPIRE_SQL, email, key, Timestamp.valueOf(expiryCutoff())) == 0) {
+                return false;
+            }
+        }
+        try {
+            jdbcTemplate.update(CLAIM_SQL, email, key, endpoint, requestHash, Timestamp.valueOf(LocalDateTime.now()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private ResponseEntity<?> replayFromDatabase(String email, String key, String cacheKey,
+                                                 String endpoint, String requestHash) {
+        List<StoredResponse> rows = jdbcTemplate.query(FIND_SQL, (resultSet, rowNum) -> new StoredResponse(
+                resultSet.getString(1),
+                resultSet.getString(2),
+                (Integer) resultSet.getObject(3),
+                resultSet.getString(4),
+                resultSet.getString(5),
+                resultSet.getTimestamp(6).toLocalDateTime()), email, key, Timestamp.valueOf(expiryCutoff()));
+        if (rows.isEmpty()) {
+            // The first request failed and released the key, or its record expired, in the meantime
+            return error(HttpStatus.CONFLICT, "The first request with this " + HEADER + " just failed; try again");
+        }
+        StoredResponse stored = rows.get(0);
+        if (stored.status() == null) {
+            if (!stored.matches(endpoint, requestHash)) {
+                return mismatch();
+            }
+            return error(HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress");
+        }
+        synchronized (cache) {
+            cache.put(cacheKey, stored);
+        }
+        return replay(stored, endpoint, requestHash);
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String endpoint, String requestHash) {
+        if (!stored.matches(endpoint, requestHash)) {
+            return mismatch();
+        }
+        replays.increment();
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.parseMediaType(stored.contentType()))
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private StoredResponse store(String endpoint, String requestHash, ResponseEntity<?> response) {
+        Object body = response.getBody();
+        String contentType;
+        String text;
+        if (body instanceof String string) {
+            contentType = MediaType.TEXT_PLAIN_VALUE;
+            text = string;
+        } else {
+            contentType = MediaType.APPLICATION_JSON_VALUE;
+            text = toJson(body);
+        }
+        return new StoredResponse(endpoint, requestHash, response.getStatusCode().value(), contentType, text,
+                LocalDateTime.now());
+    }
+
+    private void release(String email, String key) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, email, key);
+        } catch (RuntimeException e) {
+            log.warn("Could not release idempotency key after a failed request: {}", e.getMessage());
+        }
+    }
+
+    private String hash(String endpoint, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(endpoint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + value, e);
+        }
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minusHours(ttlHours);
+    }
+
+    private ResponseEntity<?> mismatch() {
+        return error(HttpStatus.UNPROCESSABLE_ENTITY,
+                HEADER + " was already used for a different request");
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("message", message));
+    }
+
+    private int cacheSizeNow() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private record StoredResponse(String endpoint, String requestHash, Integer status, String contentType,
+                                  String body, LocalDateTime createdAt) {
+        private boolean matches(String otherEndpoint, String otherHash) {
+            return endpoint.equals(otherEndpoint) && requestHash.equals(otherHash);
+        }
+    }
+}
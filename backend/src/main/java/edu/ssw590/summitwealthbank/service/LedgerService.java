@@ -0,0 +1,179 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.LedgerBalanceResponse;
+import edu.ssw590.summitwealthbank.dto.LedgerReconciliationResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.BalanceCheckpoint;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.BalanceCheckpointRepository;
+import edu.ssw590.summitwealthbank.repository.LedgerEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only, single-entry journal of signed movements per account, behind
+ * account balances.
+ *
+ * Every service that changes a balance posts the movement here in the same
+ * transaction: a transfer posts a debit and a credit under one reference,
+ * deposits, trades and wealth moves post against the one customer account they
+ * touch, with no contra entry for the bank side, so entries do not sum to zero
+ * across accounts. Account.balance is therefore a cached projection of the ledger and can
+ * be checked against it with {@link #reconcile}.
+ *
+ * A scheduled job writes a balance checkpoint per account that moved since its
+ * last one, so "balance as of T" is the latest checkpoint at or before T plus a
+ * range scan of the entries after it, instead of a sum over the full history.
+ * Checkpoints stop app.ledger.checkpoint-grace-ms in the past, so a transaction
+ * still in flight cannot commit an entry behind one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerService {
+
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT INTO ledger_entry (account_id, amount, kind, reference, timestamp) VALUES (?, ?, ?, ?, ?)";
+    // Latest checkpoint plus the entries after it, for every account with entries since then
+    private static final String CHECKPOINT_SQL =
+            "INSERT INTO balance_checkpoint (account_id, balance, as_of) "
+                    + "SELECT e.account_id, COALESCE(MAX(c.balance), 0) + SUM(e.amount), ? "
+                    + "FROM ledger_entry e "
+                    + "LEFT JOIN balance_checkpoint c ON c.account_id = e.account_id "
+                    + "AND c.as_of = (SELECT MAX(l.as_of) FROM balance_checkpoint l WHERE l.account_id = e.account_id) "
+                    + "WHERE e.timestamp <= ? AND (c.as_of IS NULL OR e.timestamp > c.as_of) "
+                    + "GROUP BY e.account_id";
+
+    private final LedgerEntryRepository entryRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.ledger.checkpoint-grace-ms:60000}")
+    private long checkpointGraceMs;
+
+    /**
+     * One movement on one account; positive amounts are credits, negative ones debits.
+     */
+    public record Posting(Long accountId, BigDecimal amount, LedgerEntry.Kind kind, String reference) {
+    }
+
+    public void post(Long accountId, BigDecimal amount, LedgerEntry.Kind kind, String reference) {
+        postAll(List.of(new Posting(accountId, amount, kind, reference)));
+    }
+
+    /**
+     * Debits the source and credits the destination under the transfer's reference.
+     */
+    public void postTransfer(Long fromAccountId, Long toAccountId, BigDecimal amount, String reference) {
+        postAll(List.of(
+                new Posting(fromAccountId, amount.negate(), LedgerEntry.Kind.TRANSFER, reference),
+                new Posting(toAccountId, amount, LedgerEntry.Kind.TRANSFER, reference)));
+    }
+
+    /**
+     * Appends the postings with one JDBC batch.
+     */
+    public void postAll(List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = postings.stream()
+                .filter(posting -> posting.amount().signum() != 0)
+                .map(posting -> new Object[]{
+                        posting.accountId(),
+                        posting.amount(),
+                        posting.kind().name(),
+                        posting.reference(),
+                        now})
+                .collect(Collectors.toList());
+        if (rows.size() == 1) {
+            jdbcTemplate.update(INSERT_ENTRY_SQL, rows.get(0));
+        } else if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, rows);
+        }
+    }
+
+    /**
+     * Balance of one of the user's accounts as of the given time.
+     */
+    @Transactional(readOnly = true)
+    public LedgerBalanceResponse balanceAsOf(Long accountId, LocalDateTime asOf, String email) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        if (!account.getUser().getEmail().equals(email)) {
+            throw new SecurityException("You don't have permission to access this account");
+        }
+        return balanceAsOf(accountId, asOf != null ? asOf : LocalDateTime.now());
+    }
+
+    @Transactional(readOnly = true)
+    public LedgerBalanceResponse balanceAsOf(Long accountId, LocalDateTime requested) {
+        LocalDateTime asOf = requested.truncatedTo(ChronoUnit.MICROS);
+        Optional<BalanceCheckpoint> checkpoint =
+                checkpointRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, asOf);
+        BigDecimal balance = checkpoint
+                .map(c -> c.getBalance().add(entryRepository.sumBetween(accountId, c.getAsOf(), asOf)))
+                .orElseGet(() -> entryRepository.sumUpTo(accountId, asOf));
+        return LedgerBalanceResponse.builder()
+                .accountId(accountId)
+                .asOf(asOf)
+                .balance(balance)
+                .checkpointAsOf(checkpoint.map(BalanceCheckpoint::getAsOf).orElse(null))
+                .build();
+    }
+
+    /**
+     * Compares the cached Account.balance with the sum of the account's ledger entries.
+     */
+    @Transactional(readOnly = true)
+    public LedgerReconciliationResponse reconcile(Long accountId) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        BigDecimal ledgerBalance = entryRepository.sumAll(accountId);
+        return LedgerReconciliationResponse.builder()
+                .accountId(accountId)
+                .accountBalance(account.getBalance())
+                .ledgerBalance(ledgerBalance)
+                .consistent(account.getBalance().compareTo(ledgerBalance) == 0)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.checkpoint-interval-ms:3600000}",
+            initialDelayString = "${app.ledger.checkpoint-interval-ms:3600000}")
+    public void scheduledCheckpoint() {
+        log.debug("Wrote {} balance checkpoints", checkpoint());
+    }
+
+    /**
+     * Checkpoints up to the grace period before now.
+     */
+    public int checkpoint() {
+        return checkpoint(LocalDateTime.now().minusNanos(checkpointGraceMs * 1_000_000));
+    }
+
+    /**
+     * Writes a checkpoint as of the cutoff for every account with entries since its last one.
+     */
+    @Transactional
+    public int checkpoint(LocalDateTime cutoff) {
+        // Databases keep microseconds and may round up; truncating keeps the cutoff exact (as in balanceAsOf)
+        Timestamp ts = Timestamp.valueOf(cutoff.truncatedTo(ChronoUnit.MICROS));
+        return jdbcTemplate.update(CHECKPOINT_SQL, ts, ts);
+    }
+}
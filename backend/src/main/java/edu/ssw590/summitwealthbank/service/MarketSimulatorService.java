@@ -0,0 +1,193 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.config.MarketSimulatorProperties;
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives every stock price with a geometric Brownian motion for demos and load tests.
+ *
+ * Each tick reprices every symbol in the {@link StockQuoteCache} in place, with
+ * the volatility of its sector, so trades and the price stream see the new
+ * prices immediately. Changed symbols are written to the stock table in one
+ * JDBC batch on a separate, slower schedule. Ticks run on their own thread, not
+ * the shared scheduler pool, so flushes and compaction cannot delay them and a
+ * slow tick cannot hold up those jobs. The exact price path is kept as a
+ * double per symbol so cent rounding never freezes a slow-moving price, and an
+ * admin price change is adopted as the new starting point.
+ *
+ * Only created when app.market-sim.enabled=true.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.market-sim", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class MarketSimulatorService {
+
+    // 252 trading days of 6.5 hours
+    static final double SECONDS_PER_TRADING_YEAR = 252 * 6.5 * 3600;
+    private static final BigDecimal MIN_PRICE = new BigDecimal("0.01");
+    private static final String PERSIST_SQL = "UPDATE stock SET current_price = ?, updated_at = ? WHERE symbol = ?";
+
+    private final StockQuoteCache quoteCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final MarketSimulatorProperties properties;
+
+    private final Map<String, PricePath> paths = new HashMap<>();
+    // Latest price per symbol not yet written to the stock table
+    private final Map<String, BigDecimal> pending = new HashMap<>();
+    // Only used from the tick thread
+    private final SplittableRandom random = new SplittableRandom();
+    private Timer tickTimer;
+    private Timer persistTimer;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        tickTimer = Timer.builder("market.sim.tick").register(meterRegistry);
+        persistTimer = Timer.builder("market.sim.persist").register(meterRegistry);
+        log.info("Market simulator enabled: tick {}ms, persist every {}ms, time scale {}x",
+                properties.getTickMs(), properties.getPersistIntervalMs(), properties.getTimeScale());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startTicking() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-sim-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tickSafely, properties.getTickMs(), properties.getTickMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies one GBM step to every cached symbol.
+     * S' = S * exp((mu - sigma^2 / 2) * dt + sigma * sqrt(dt) * Z)
+     */
+    public void tick() {
+        tickTimer.record(() -> {
+            double dt = properties.getTickMs() / 1000.0 * properties.getTimeScale() / SECONDS_PER_TRADING_YEAR;
+            double sqrtDt = Math.sqrt(dt);
+            LocalDateTime now = LocalDateTime.now();
+            List<StockQuote> quotes = quoteCache.getAll();
+
+            synchronized (pending) {
+                for (StockQuote quote : quotes) {
+                    String symbol = quote.getSymbol();
+                    PricePath path = paths.computeIfAbsent(symbol, key -> new PricePath());
+                    double sigma = properties.volatilityFor(quote.getSector());
+                    double drift = (properties.getDrift() - sigma * sigma / 2) * dt;
+
+                    BigDecimal before = quote.getCurrentPrice();
+                    BigDecimal after = quoteCache.reprice(symbol, current -> path.step(current, drift, sigma * sqrtDt), now);
+                    if (after != null && after.compareTo(before) != 0) {
+                        pending.put(symbol, after);
+                    }
+                }
+
+                if (paths.size() > quotes.size()) {
+                    Set<String> live = new HashSet<>();
+                    quotes.forEach(quote -> live.add(quote.getSymbol()));
+                    paths.keySet().retainAll(live);
+                    pending.keySet().retainAll(live);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the latest price of every symbol that moved since the last call in one batch.
+     */
+    @Scheduled(fixedDelayString = "${app.market-sim.persist-interval-ms:1000}")
+    public void persist() {
+        List<Object[]> batch = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        synchronized (pending) {
+            pending.forEach((symbol, price) -> batch.add(new Object[]{price, now, symbol}));
+            pending.clear();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            persistTimer.record(() -> jdbcTemplate.batchUpdate(PERSIST_SQL, batch));
+        } catch (RuntimeException e) {
+            synchronized (pending) {
+                // Keep any newer price that arrived meanwhile
+                batch.forEach(row -> pending.putIfAbsent((String) row[2], (BigDecimal) row[0]));
+            }
+            log.warn("Market simulator persist failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        persist();
+    }
+
+    // Helper methods
+
+    // An exception would cancel every later run of a scheduled executor task
+    private void tickSafely() {
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            log.warn("Market simulator tick failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Unrounded price of one symbol. Restarts from the cached price whenever that
+     * was changed by someone else (an admin update).
+     */
+    private final class PricePath {
+        private double price;
+        private BigDecimal applied;
+
+        private BigDecimal step(BigDecimal current, double drift, double scaledSigma) {
+            if (applied == null || applied.compareTo(current) != 0) {
+                price = current.doubleValue();
+            }
+            price *= Math.exp(drift + scaledSigma * random.nextGaussian());
+            BigDecimal next = BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP);
+            if (next.compareTo(MIN_PRICE) < 0) {
+                next = MIN_PRICE;
+                price = MIN_PRICE.doubleValue();
+            }
+            applied = next;
+            return next;
+        }
+    }
+}
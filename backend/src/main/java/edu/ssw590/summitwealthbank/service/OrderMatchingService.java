@@ -0,0 +1,684 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.OrderBookResponse;
+import edu.ssw590.summitwealthbank.dto.StockOrderRequest;
+import edu.ssw590.summitwealthbank.dto.StockOrderResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import edu.ssw590.summitwealthbank.model.StockOrder;
+import edu.ssw590.summitwealthbank.model.StockPosition;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.StockOrderRepository;
+import edu.ssw590.summitwealthbank.repository.StockPositionRepository;
+import edu.ssw590.summitwealthbank.repository.StockTransactionRepository;
+import edu.ssw590.summitwealthbank.util.OrderBook;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Limit and market orders matched in price-time priority against a per-symbol
+ * in-memory {@link OrderBook}. Runs beside the fixed-price house trades in
+ * {@link StockService}.
+ *
+ * Placing an order escrows what it can spend in its own transaction: a buy
+ * debits the account by limit price x quantity (or the sweep cost for a market
+ * buy, which then never spends more) and a sell removes the shares from the
+ * position. The order is then matched in memory under the lock of its symbol,
+ * which is held for nothing else, and its fills are queued to that symbol's
+ * settlement queue. Settlers (app.orders.settle-threads) drain each queue in
+ * order, settling up to app.orders.settle-max-batch queued orders and cancels
+ * per transaction: buyer against seller at the maker's price, refunding any
+ * price improvement, as ordinary StockTransaction records. The caller waits
+ * for its own settlement and gets back what it would have got from a direct
+ * transaction. Balances move through {@link ConcurrencyControl} like every
+ * other trade, which also retries concurrency failures.
+ *
+ * Orders of the same user never trade with each other: an incoming order stops
+ * at its owner's own resting order and the rest of it is cancelled and refunded.
+ *
+ * If a batch fails its orders are settled one at a time; one that still fails
+ * has its fills taken back off the book, its escrow returned and its error
+ * handed to the caller. Escrowed OPEN orders left unsettled by a restart are
+ * matched again, in id order, when the books are rebuilt.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderMatchingService {
+
+    private final StockOrderRepository orderRepository;
+    private final StockPositionRepository positionRepository;
+    private final StockTransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final StockService stockService;
+    private final ShareInventoryService shareInventory;
+    private final PortfolioValuationIndex valuationIndex;
+    private final PnlRollupService pnlRollups;
+    private final LedgerService ledgerService;
+    private final ConcurrencyControl concurrencyControl;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.orders.settle-threads:4}")
+    private int settleThreads;
+
+    @Value("${app.orders.settle-max-batch:256}")
+    private int maxBatch;
+
+    private final Map<String, Market> markets = new ConcurrentHashMap<>();
+    private final AtomicInteger settlerIds = new AtomicInteger();
+    private ExecutorService settlers;
+    private Timer settleTimer;
+    private DistributionSummary batchSize;
+
+    @PostConstruct
+    public void start() {
+        settlers = Executors.newFixedThreadPool(settleThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-settle-" + settlerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        settleTimer = Timer.builder("order.settle")
+                .description("Time to settle and commit one batch of matched orders")
+                .register(meterRegistry);
+        batchSize = DistributionSummary.builder("order.settle.batch")
+                .description("Orders and cancels settled in one transaction")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        settlers.shutdown();
+        settlers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildBooks() {
+        markets.clear();
+        List<StockOrder> open = orderRepository.findByStatusOrderByIdAsc(StockOrder.OrderStatus.OPEN);
+        Map<Long, Long> owners = accountRepository.findOwnersByIdIn(open.stream()
+                        .map(StockOrder::getAccountId)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(AccountRepository.AccountOwnerView::getId,
+                        AccountRepository.AccountOwnerView::getUserId));
+
+        int released = 0;
+        for (StockOrder order : open) {
+            if (order.getOrderType() == StockOrder.OrderType.MARKET) {
+                // Market orders never rest; one caught by a restart is simply refunded
+                concurrencyControl.execute("order.release", List.of(order.getAccountId()),
+                        () -> release(order.getId()));
+                released++;
+            } else {
+                // Replayed through matching so fills left unsettled by the restart settle now
+                match(marketFor(order.getStockSymbol()), toBookOrder(order, owners.get(order.getAccountId())));
+            }
+        }
+        log.info("Order books rebuilt from {} open orders ({} unsettled market orders released)",
+                open.size(), released);
+    }
+
+    /**
+     * PLACE ORDER FLOW:
+     * 1. Validate account ownership
+     * 2. Escrow funds (buy) or shares (sell) and record the order
+     * 3. Match against the book in price-time priority
+     * 4. Settle every fill between buyer and seller
+     * 5. Rest the limit remainder, or release the market remainder
+     */
+    public StockOrderResponse placeOrder(StockOrderRequest request, String userEmail) {
+        validateRequest(request);
+
+        Market market = marketFor(request.getStockSymbol());
+        OrderBook.Order taker = concurrencyControl.execute("order.place", List.of(request.getAccountId()),
+                () -> accept(request, userEmail, market));
+        return await(match(market, taker));
+    }
+
+    public StockOrderResponse cancelOrder(Long orderId, String userEmail) {
+        StockOrder existing = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+
+        stockService.validateAccountOwnership(existing.getAccountId(), userEmail);
+
+        Market market = marketFor(existing.getStockSymbol());
+        Settlement settlement;
+        synchronized (market) {
+            OrderBook.Order resting = market.book.cancel(orderId);
+            if (resting == null) {
+                throw new IllegalStateException(existing.getStatus() == StockOrder.OrderStatus.OPEN
+                        ? "Order is still being settled; please try again"
+                        : "Order is already " + existing.getStatus().name().toLowerCase());
+            }
+            settlement = new Settlement(resting, List.of(), true);
+            enqueue(market, settlement);
+        }
+        return await(settlement);
+    }
+
+    public OrderBookResponse getOrderBook(String stockSymbol, int depth) {
+        if (!shareInventory.contains(stockSymbol)) {
+            throw new IllegalArgumentException("Stock not found: " + stockSymbol);
+        }
+
+        Market market = marketFor(stockSymbol);
+        synchronized (market) {
+            return OrderBookResponse.builder()
+                    .stockSymbol(stockSymbol)
+                    .bids(toLevels(market.book.bids(depth)))
+                    .asks(toLevels(market.book.asks(depth)))
+                    .build();
+        }
+    }
+
+    public List<StockOrderResponse> getOpenOrders(String email) {
+        List<Long> accountIds = accountService.getAccountsByEmail(email).stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+
+        return orderRepository.findByAccountIdInAndStatusOrderByIdDesc(accountIds, StockOrder.OrderStatus.OPEN)
+                .stream()
+                .map(order -> toResponse(order, List.of()))
+                .collect(Collectors.toList());
+    }
+
+    // Order flow steps
+
+    // Steps 1-2, in the caller's transaction
+    private OrderBook.Order accept(StockOrderRequest request, String userEmail, Market market) {
+        String symbol = request.getStockSymbol();
+        boolean buy = request.getSide() == StockTransaction.TransactionType.BUY;
+        boolean limit = request.getOrderType() == StockOrder.OrderType.LIMIT;
+        long quantity = request.getQuantity();
+        BigDecimal limitPrice = limit ? request.getLimitPrice().setScale(2, RoundingMode.HALF_UP) : null;
+
+        // 1. Validate ownership
+        Account account = stockService.validateAccountOwnership(request.getAccountId(), userEmail);
+
+        // 2. Escrow
+        BigDecimal held = null;
+        BigDecimal costBasis = null;
+        if (buy) {
+            if (limit) {
+                held = limitPrice.multiply(BigDecimal.valueOf(quantity));
+            } else {
+                synchronized (market) {
+                    held = fromCents(market.book.costToBuy(quantity));
+                }
+                if (held.signum() == 0) {
+                    throw new IllegalArgumentException("No sell orders available for " + symbol);
+                }
+            }
+            // Checks and takes the funds in one step (a single conditional UPDATE in CONDITIONAL mode)
+            concurrencyControl.debit(account.getId(), held, "Insufficient funds in account");
+            ledgerService.post(account.getId(), held.negate(), LedgerEntry.Kind.ORDER_ESCROW, null);
+        } else {
+            StockPosition position = positionRepository
+                    .findByAccountIdAndStockSymbol(account.getId(), symbol)
+                    .orElseThrow(() -> new IllegalArgumentException("No position found for " + symbol));
+            if (position.getTotalShares() < quantity) {
+                throw new IllegalArgumentException(
+                        String.format("Not enough shares. Owned: %d, Requested: %d",
+                                position.getTotalShares(), quantity));
+            }
+            if (!limit) {
+                synchronized (market) {
+                    if (market.book.bestBid() == null) {
+                        throw new IllegalArgumentException("No buy orders available for " + symbol);
+                    }
+                }
+            }
+            costBasis = position.getAverageCostBasis();
+            removeShares(position, quantity);
+        }
+
+        StockOrder order = orderRepository.save(StockOrder.builder()
+                .accountId(account.getId())
+                .stockSymbol(symbol)
+                .side(request.getSide())
+                .orderType(request.getOrderType())
+                .limitPrice(limitPrice)
+                .quantity(quantity)
+                .remainingQuantity(quantity)
+                .costBasis(costBasis)
+                .escrowAmount(held)
+                .status(StockOrder.OrderStatus.OPEN)
+                .build());
+        return toBookOrder(order, account.getUser().getId());
+    }
+
+    // 3. Match in memory and queue the fills; the book lock is held for nothing else
+    private Settlement match(Market market, OrderBook.Order taker) {
+        synchronized (market) {
+            List<OrderBook.Fill> fills = market.book.submit(taker);
+            Settlement settlement = new Settlement(taker, fills, false);
+            settlement.rested = market.book.getOrder(taker.getId()) != null;
+            enqueue(market, settlement);
+            return settlement;
+        }
+    }
+
+    // Steps 4-5, on a settler: batches of queued settlements, in queue order, one transaction each
+    private void settleQueued(Market market) {
+        while (true) {
+            List<Settlement> batch = new ArrayList<>();
+            synchronized (market) {
+                while (batch.size() < maxBatch && !market.queue.isEmpty()) {
+                    batch.add(market.queue.poll());
+                }
+                if (batch.isEmpty()) {
+                    market.settling = false;
+                    return;
+                }
+            }
+            try {
+                settle(market, batch);
+            } catch (RuntimeException e) {
+                log.error("Order settlement failed on a batch of {} for {}", batch.size(), market.book.getSymbol(), e);
+            } finally {
+                // No caller is ever left waiting, whatever the settler ran into
+                for (Settlement settlement : batch) {
+                    settlement.result.completeExceptionally(new IllegalStateException("Order could not be settled"));
+                }
+            }
+        }
+    }
+
+    private void settle(Market market, List<Settlement> batch) {
+        Set<Long> accountIds = new TreeSet<>();
+        for (Settlement settlement : batch) {
+            accountIds.add(settlement.taker.getAccountId());
+            settlement.fills.forEach(fill -> accountIds.add(fill.getMaker().getAccountId()));
+        }
+        try {
+            settleTimer.record(() -> {
+                concurrencyControl.execute("order.settle", accountIds, () -> {
+                    for (Settlement settlement : batch) {
+                        settlement.response = settlement.cancel ? applyCancel(settlement) : applyFills(settlement);
+                    }
+                    return null;
+                });
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(market, batch.get(0), e);
+                return;
+            }
+            log.warn("Settling {} orders together failed, settling them one by one: {}", batch.size(), e.getMessage());
+            for (Settlement settlement : batch) {
+                settle(market, List.of(settlement));
+            }
+            return;
+        }
+        batchSize.record(batch.size());
+        for (Settlement settlement : batch) {
+            settlement.result.complete(settlement.response);
+        }
+    }
+
+    private StockOrderResponse applyFills(Settlement settlement) {
+        Set<Long> orderIds = new LinkedHashSet<>();
+        orderIds.add(settlement.taker.getId());
+        settlement.fills.forEach(fill -> orderIds.add(fill.getMaker().getId()));
+        Map<Long, StockOrder> orders = orderRepository.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(StockOrder::getId, Function.identity()));
+
+        StockOrder order = orders.get(settlement.taker.getId());
+        boolean buy = order.getSide() == StockTransaction.TransactionType.BUY;
+
+        // Order rows first: the conditional balance updates below flush and detach them
+        for (OrderBook.Fill fill : settlement.fills) {
+            fill(orders.get(fill.getMaker().getId()), fill.getQuantity());
+            fill(order, fill.getQuantity());
+        }
+        // Market orders and self-matched orders never rest
+        boolean released = !settlement.rested && order.getRemainingQuantity() > 0;
+        if (released) {
+            order.setStatus(StockOrder.OrderStatus.CANCELLED);
+        }
+        orderRepository.flush();
+
+        // 4. Settle
+        List<StockTransaction> takerFills = new ArrayList<>();
+        BigDecimal spent = BigDecimal.ZERO;
+        for (OrderBook.Fill fill : settlement.fills) {
+            StockOrder maker = orders.get(fill.getMaker().getId());
+            BigDecimal price = fromCents(fill.getPrice());
+
+            StockTransaction[] records = buy
+                    ? settle(order, maker, price, fill.getQuantity())
+                    : settle(maker, order, price, fill.getQuantity());
+            takerFills.add(buy ? records[0] : records[1]);
+            spent = spent.add(price.multiply(BigDecimal.valueOf(fill.getQuantity())));
+        }
+
+        // 5. Release the remainder of an order that did not rest
+        if (released || (buy && order.getOrderType() == StockOrder.OrderType.MARKET)) {
+            // Market buys hold the sweep cost; return whatever was not spent
+            refund(order, spent);
+        }
+        return toResponse(order, takerFills);
+    }
+
+    private StockOrderResponse applyCancel(Settlement settlement) {
+        StockOrder order = orderRepository.findById(settlement.taker.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + settlement.taker.getId()));
+        if (order.getStatus() != StockOrder.OrderStatus.OPEN) {
+            throw new IllegalStateException("Order is already " + order.getStatus().name().toLowerCase());
+        }
+
+        order.setStatus(StockOrder.OrderStatus.CANCELLED);
+        orderRepository.flush();
+        refund(order, BigDecimal.ZERO);
+        return toResponse(order, List.of());
+    }
+
+    // A settlement that failed on its own: put the book back and hand the error to the caller
+    private void fail(Market market, Settlement settlement, RuntimeException cause) {
+        log.warn("Order #{} could not be settled: {}", settlement.taker.getId(), cause.getMessage());
+        synchronized (market) {
+            if (settlement.cancel) {
+                market.book.restore(settlement.taker);
+            } else {
+                market.book.discard(settlement.taker);
+                market.book.undo(settlement.fills);
+            }
+        }
+        if (!settlement.cancel) {
+            try {
+                concurrencyControl.execute("order.release", List.of(settlement.taker.getAccountId()),
+                        () -> release(settlement.taker.getId()));
+            } catch (RuntimeException e) {
+                // Still OPEN and escrowed, so the next rebuild settles or releases it
+                log.error("Order #{} could not be released after a failed settlement", settlement.taker.getId(), e);
+            }
+        }
+        settlement.result.completeExceptionally(cause);
+    }
+
+    // Refunds everything an unsettled OPEN order escrowed and cancels it
+    private StockOrderResponse release(Long orderId) {
+        StockOrder order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+        if (order.getStatus() == StockOrder.OrderStatus.OPEN) {
+            order.setStatus(StockOrder.OrderStatus.CANCELLED);
+            orderRepository.flush();
+            refund(order, BigDecimal.ZERO);
+        }
+        return toResponse(order, List.of());
+    }
+
+    /**
+     * Settles one fill. Both sides are already escrowed, so this only moves the
+     * shares to the buyer, the proceeds to the seller, and refunds a limit buyer
+     * who paid less than their limit. Returns {buyRecord, sellRecord}.
+     */
+    private StockTransaction[] settle(StockOrder buyOrder, StockOrder sellOrder, BigDecimal price, long quantity) {
+        String symbol = buyOrder.getStockSymbol();
+        BigDecimal amount = price.multiply(BigDecimal.valueOf(quantity));
+        String buyReference = stockService.generateStockTransactionReference();
+        String sellReference = stockService.generateStockTransactionReference();
+
+        addShares(buyOrder.getAccountId(), symbol, quantity, price);
+        if (buyOrder.getOrderType() == StockOrder.OrderType.LIMIT) {
+            credit(buyOrder.getAccountId(), buyOrder.getLimitPrice().subtract(price).multiply(BigDecimal.valueOf(quantity)),
+                    LedgerEntry.Kind.ORDER_ESCROW, buyReference);
+        }
+        credit(sellOrder.getAccountId(), amount, LedgerEntry.Kind.ORDER_SETTLEMENT, sellReference);
+
+        BigDecimal profitLoss = price.subtract(sellOrder.getCostBasis()).multiply(BigDecimal.valueOf(quantity));
+        LocalDateTime now = LocalDateTime.now();
+
+        StockTransaction buyRecord = StockTransaction.builder()
+                .transactionReference(buyReference)
+                .accountId(buyOrder.getAccountId())
+                .stockSymbol(symbol)
+                .type(StockTransaction.TransactionType.BUY)
+                .quantity(quantity)
+                .pricePerShare(price)
+                .totalAmount(amount)
+                .timestamp(now)
+                .notes("Order #" + buyOrder.getId())
+                .build();
+
+        StockTransaction sellRecord = StockTransaction.builder()
+                .transactionReference(sellReference)
+                .accountId(sellOrder.getAccountId())
+                .stockSymbol(symbol)
+                .type(StockTransaction.TransactionType.SELL)
+                .quantity(quantity)
+                .pricePerShare(price)
+                .totalAmount(amount)
+                .profitLoss(profitLoss)
+                .timestamp(now)
+                .notes("Order #" + sellOrder.getId())
+                .build();
+
+        transactionRepository.save(buyRecord);
+        transactionRepository.save(sellRecord);
+        pnlRollups.record(List.of(buyRecord, sellRecord));
+        return new StockTransaction[]{buyRecord, sellRecord};
+    }
+
+    // Helper methods
+
+    private void validateRequest(StockOrderRequest request) {
+        if (request.getAccountId() == null || request.getStockSymbol() == null
+                || request.getSide() == null || request.getOrderType() == null) {
+            throw new IllegalArgumentException("Account, stock symbol, side and order type are required");
+        }
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        if (request.getOrderType() == StockOrder.OrderType.LIMIT
+                && (request.getLimitPrice() == null || request.getLimitPrice().signum() <= 0)) {
+            throw new IllegalArgumentException("Limit orders require a positive limit price");
+        }
+        if (!shareInventory.contains(request.getStockSymbol())) {
+            throw new IllegalArgumentException("Stock not found: " + request.getStockSymbol());
+        }
+    }
+
+    private Market marketFor(String stockSymbol) {
+        return markets.computeIfAbsent(stockSymbol, Market::new);
+    }
+
+    // Called under the market lock, so settlements are queued in matching order
+    private void enqueue(Market market, Settlement settlement) {
+        market.queue.add(settlement);
+        if (!market.settling) {
+            market.settling = true;
+            try {
+                settlers.execute(() -> settleQueued(market));
+            } catch (RejectedExecutionException e) {
+                // Shutting down: OPEN orders are settled or released by the next rebuild
+                market.settling = false;
+                market.queue.remove(settlement);
+                settlement.result.completeExceptionally(new IllegalStateException("Order settlement is shut down"));
+            }
+        }
+    }
+
+    private StockOrderResponse await(Settlement settlement) {
+        try {
+            return settlement.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void fill(StockOrder order, long quantity) {
+        if (order.getStatus() != StockOrder.OrderStatus.OPEN || order.getRemainingQuantity() < quantity) {
+            throw new IllegalStateException("Order #" + order.getId() + " cannot fill " + quantity + " more shares");
+        }
+        order.setRemainingQuantity(order.getRemainingQuantity() - quantity);
+        if (order.getRemainingQuantity() == 0) {
+            order.setStatus(StockOrder.OrderStatus.FILLED);
+        }
+    }
+
+    // Returns what the order escrowed and has not used: funds for a buy, shares for a sell
+    private void refund(StockOrder order, BigDecimal spent) {
+        long remaining = order.getRemainingQuantity();
+        if (order.getSide() == StockTransaction.TransactionType.SELL) {
+            if (remaining > 0) {
+                addShares(order.getAccountId(), order.getStockSymbol(), remaining, order.getCostBasis());
+            }
+        } else if (order.getOrderType() == StockOrder.OrderType.LIMIT) {
+            credit(order.getAccountId(), order.getLimitPrice().multiply(BigDecimal.valueOf(remaining)),
+                    LedgerEntry.Kind.ORDER_ESCROW, null);
+        } else {
+            credit(order.getAccountId(), order.getEscrowAmount().subtract(spent), LedgerEntry.Kind.ORDER_ESCROW, null);
+        }
+    }
+
+    private void credit(Long accountId, BigDecimal amount, LedgerEntry.Kind kind, String reference) {
+        if (amount.signum() == 0) {
+            return;
+        }
+        concurrencyControl.credit(accountId, amount);
+        ledgerService.post(accountId, amount, kind, reference);
+    }
+
+    private void addShares(Long accountId, String stockSymbol, long quantity, BigDecimal pricePerShare) {
+        StockPosition position = positionRepository
+                .findByAccountIdAndStockSymbol(accountId, stockSymbol)
+                .orElse(StockPosition.builder()
+                        .accountId(accountId)
+                        .stockSymbol(stockSymbol)
+                        .totalShares(0L)
+                        .averageCostBasis(BigDecimal.ZERO)
+                        .build());
+
+        BigDecimal existingValue = position.getAverageCostBasis()
+                .multiply(BigDecimal.valueOf(position.getTotalShares()));
+        BigDecimal newValue = pricePerShare.multiply(BigDecimal.valueOf(quantity));
+        long newTotalShares = position.getTotalShares() + quantity;
+
+        position.setTotalShares(newTotalShares);
+        position.setAverageCostBasis(existingValue.add(newValue)
+                .divide(BigDecimal.valueOf(newTotalShares), 2, RoundingMode.HALF_UP));
+        positionRepository.save(position);
+        valuationIndex.adjustPosition(accountId, stockSymbol, quantity);
+    }
+
+    private void removeShares(StockPosition position, long quantity) {
+        long remainingShares = position.getTotalShares() - quantity;
+        if (remainingShares == 0) {
+            positionRepository.delete(position);
+            // Flush so a later re-insert of the same (account, symbol) does not hit the unique constraint
+            positionRepository.flush();
+        } else {
+            position.setTotalShares(remainingShares);
+            positionRepository.save(position);
+        }
+        valuationIndex.adjustPosition(position.getAccountId(), position.getStockSymbol(), -quantity);
+    }
+
+    private OrderBook.Order toBookOrder(StockOrder order, Long ownerId) {
+        OrderBook.Side side = order.getSide() == StockTransaction.TransactionType.BUY
+                ? OrderBook.Side.BUY
+                : OrderBook.Side.SELL;
+        Long price = order.getLimitPrice() != null ? toCents(order.getLimitPrice()) : null;
+        // A market buy may spend only what it escrowed
+        Long budget = side == OrderBook.Side.BUY && price == null ? toCents(order.getEscrowAmount()) : null;
+        return new OrderBook.Order(order.getId(), order.getAccountId(), ownerId, side, price,
+                order.getRemainingQuantity(), budget);
+    }
+
+    private List<OrderBookResponse.Level> toLevels(List<OrderBook.LevelView> levels) {
+        return levels.stream()
+                .map(level -> OrderBookResponse.Level.builder()
+                        .price(fromCents(level.getPrice()))
+                        .quantity(level.getQuantity())
+                        .orders(level.getOrders())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private StockOrderResponse toResponse(StockOrder order, List<StockTransaction> fills) {
+        return StockOrderResponse.builder()
+                .orderId(order.getId())
+                .stockSymbol(order.getStockSymbol())
+                .side(order.getSide().name())
+                .orderType(order.getOrderType().name())
+                .limitPrice(order.getLimitPrice())
+                .quantity(order.getQuantity())
+                .filledQuantity(order.getQuantity() - order.getRemainingQuantity())
+                .remainingQuantity(order.getRemainingQuantity())
+                .status(order.getStatus().name())
+                .fills(fills)
+                .build();
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static final class Market {
+        private final OrderBook book;
+        // Matched orders and cancels waiting to settle, in matching order; guarded by the market
+        private final Queue<Settlement> queue = new ArrayDeque<>();
+        private boolean settling;
+
+        private Market(String symbol) {
+            this.book = new OrderBook(symbol);
+        }
+    }
+
+    // A matched order and its fills, or a cancel, waiting to settle
+    private static final class Settlement {
+        private final OrderBook.Order taker;
+        private final List<OrderBook.Fill> fills;
+        private final boolean cancel;
+        private final CompletableFuture<StockOrderResponse> result = new CompletableFuture<>();
+        private boolean rested;
+        private StockOrderResponse response;
+
+        private Settlement(OrderBook.Order taker, List<OrderBook.Fill> fills, boolean cancel) {
+            this.taker = taker;
+            this.fills = fills;
+            this.cancel = cancel;
+        }
+    }
+}
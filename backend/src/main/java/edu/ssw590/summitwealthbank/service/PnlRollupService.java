@@ -0,0 +1,258 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockPnlResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.repository.StockPnlRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains realized P&L and volume rollups per account, symbol and day.
+ *
+ * Every trade writer records its stock transactions here inside its own
+ * transaction, so a rollup commits or rolls back with the trade. Each touched
+ * row is upserted: an INSERT ... ON CONFLICT DO NOTHING creates it if missing,
+ * then an UPDATE adds the deltas. Keys are written in a fixed order so two
+ * trades never lock the same rows in opposite orders. P&L reads never scan
+ * the trade history.
+ *
+ * A backfill must not interleave with those trades: under READ COMMITTED its
+ * DELETE and INSERT ... SELECT could count a trade twice or drop it. Trades
+ * therefore hold a shared in-process lock from their first rollup write until
+ * their transaction completes, and a backfill takes it exclusively (giving up
+ * after app.pnl.backfill-lock-timeout-ms). On PostgreSQL the backfill also
+ * takes a table lock that blocks rollup writers on other instances.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PnlRollupService {
+
+    // Used when a bound of the requested range is omitted
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_pnl_rollup (account_id, stock_symbol, trade_date, trade_count, buy_quantity, "
+                    + "sell_quantity, buy_amount, sell_amount, realized_profit_loss) "
+                    + "VALUES (?, ?, ?, 0, 0, 0, 0, 0, 0) ON CONFLICT DO NOTHING";
+    private static final String UPDATE_SQL =
+            "UPDATE stock_pnl_rollup SET trade_count = trade_count + ?, buy_quantity = buy_quantity + ?, "
+                    + "sell_quantity = sell_quantity + ?, buy_amount = buy_amount + ?, sell_amount = sell_amount + ?, "
+                    + "realized_profit_loss = realized_profit_loss + ? "
+                    + "WHERE account_id = ? AND stock_symbol = ? AND trade_date = ?";
+    private static final String BACKFILL_SQL =
+            "INSERT INTO stock_pnl_rollup (account_id, stock_symbol, trade_date, trade_count, buy_quantity, "
+                    + "sell_quantity, buy_amount, sell_amount, realized_profit_loss) "
+                    + "SELECT account_id, stock_symbol, CAST(timestamp AS DATE), COUNT(*), "
+                    + "SUM(CASE WHEN type = 'BUY' THEN quantity ELSE 0 END), "
+                    + "SUM(CASE WHEN type = 'SELL' THEN quantity ELSE 0 END), "
+                    + "SUM(CASE WHEN type = 'BUY' THEN total_amount ELSE 0 END), "
+                    + "SUM(CASE WHEN type = 'SELL' THEN total_amount ELSE 0 END), "
+                    + "COALESCE(SUM(profit_loss), 0) "
+                    + "FROM stock_transaction GROUP BY account_id, stock_symbol, CAST(timestamp AS DATE)";
+
+    private final StockPnlRollupRepository rollupRepository;
+    private final AccountService accountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.pnl.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    @Value("${app.pnl.backfill-lock-timeout-ms:5000}")
+    private long backfillLockTimeoutMs;
+
+    // Shared by trade transactions writing rollups, exclusive for a backfill
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the given trades to their rollups. Must run in the trade's transaction.
+     */
+    public void record(Collection<StockTransaction> trades) {
+        Map<Key, Delta> deltas = new TreeMap<>(Key.ORDER);
+        for (StockTransaction trade : trades) {
+            Key key = new Key(trade.getAccountId(), trade.getStockSymbol(), trade.getTimestamp().toLocalDate());
+            deltas.computeIfAbsent(key, k -> new Delta()).add(trade);
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> inserts = new ArrayList<>(deltas.size());
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            Date day = Date.valueOf(key.day());
+            inserts.add(new Object[]{key.accountId(), key.symbol(), day});
+            updates.add(new Object[]{delta.trades, delta.buyQuantity, delta.sellQuantity, delta.buyAmount,
+                    delta.sellAmount, delta.profitLoss, key.accountId(), key.symbol(), day});
+        });
+
+        Lock shared = rebuildLock.readLock();
+        shared.lock();
+        boolean releasedOnCompletion = releaseOnCompletion(shared);
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        } finally {
+            if (!releasedOnCompletion) {
+                shared.unlock();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds every rollup from the trade history with one set-based statement, in its own
+     * transaction. Waits for trades already writing rollups to complete, and holds new ones back
+     * until it commits; throws IllegalStateException if they do not drain within the timeout.
+     */
+    public int backfill() {
+        Lock exclusive = rebuildLock.writeLock();
+        try {
+            if (!exclusive.tryLock(backfillLockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Trades are still being recorded; try the backfill again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to rebuild P&L rollups", e);
+        }
+        try {
+            int rows = transactionTemplate.execute(status -> {
+                if (isPostgres()) {
+                    // Readers may continue; writers from any instance wait for this commit
+                    jdbcTemplate.execute("LOCK TABLE stock_pnl_rollup IN SHARE ROW EXCLUSIVE MODE");
+                }
+                jdbcTemplate.update("DELETE FROM stock_pnl_rollup");
+                return jdbcTemplate.update(BACKFILL_SQL);
+            });
+            log.info("Rebuilt {} P&L rollups from stock transaction history", rows);
+            return rows;
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (backfillOnStartup && rollupRepository.count() == 0) {
+            backfill();
+        }
+    }
+
+    /**
+     * Realized P&L of all the user's accounts in [from, to], grouped by symbol or by day.
+     */
+    @Transactional(readOnly = true)
+    public List<StockPnlResponse> getUserPnl(String email, LocalDate from, LocalDate to, String groupBy) {
+        LocalDate start = from != null ? from : EARLIEST;
+        LocalDate end = to != null ? to : LATEST;
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        boolean bySymbol;
+        if ("symbol".equalsIgnoreCase(groupBy)) {
+            bySymbol = true;
+        } else if ("day".equalsIgnoreCase(groupBy)) {
+            bySymbol = false;
+        } else {
+            throw new IllegalArgumentException("groupBy must be symbol or day");
+        }
+
+        List<Long> accountIds = accountService.getAccountsByEmail(email).stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        if (accountIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<StockPnlRollupRepository.PnlRow> rows = bySymbol
+                ? rollupRepository.sumBySymbol(accountIds, start, end)
+                : rollupRepository.sumByDay(accountIds, start, end);
+        return rows.stream()
+                .map(row -> StockPnlResponse.builder()
+                        .stockSymbol(bySymbol ? row.getSymbol() : null)
+                        .date(bySymbol ? null : row.getTradeDate())
+                        .realizedProfitLoss(row.getRealizedProfitLoss())
+                        .tradeCount(row.getTradeCount())
+                        .sharesBought(row.getBuyQuantity())
+                        .sharesSold(row.getSellQuantity())
+                        .buyAmount(row.getBuyAmount())
+                        .sellAmount(row.getSellAmount())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // Helper methods
+
+    private static boolean releaseOnCompletion(Lock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return true;
+    }
+
+    private boolean isPostgres() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+
+    private record Key(Long accountId, String symbol, LocalDate day) {
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::accountId)
+                .thenComparing(Key::symbol)
+                .thenComparing(Key::day);
+    }
+
+    private static final class Delta {
+        private long trades;
+        private long buyQuantity;
+        private long sellQuantity;
+        private BigDecimal buyAmount = BigDecimal.ZERO;
+        private BigDecimal sellAmount = BigDecimal.ZERO;
+        private BigDecimal profitLoss = BigDecimal.ZERO;
+
+        private void add(StockTransaction trade) {
+            trades++;
+            if (trade.getType() == StockTransaction.TransactionType.BUY) {
+                buyQuantity += trade.getQuantity();
+                buyAmount = buyAmount.add(trade.getTotalAmount());
+            } else {
+                sellQuantity += trade.getQuantity();
+                sellAmount = sellAmount.add(trade.getTotalAmount());
+            }
+            if (trade.getProfitLoss() != null) {
+                profitLoss = profitLoss.add(trade.getProfitLoss());
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import edu.ssw590.summitwealthbank.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incrementally maintained stock market value of every account.
+ *
+ * Keeps a symbol -> (account -> shares) reverse index built from stock_position.
+ * When a symbol's price changes in the {@link StockQuoteCache}, only the holders
+ * of that symbol are revalued, by shares x price change. Trades adjust the index
+ * after their transaction commits. Reading an account's value is a single map
+ * lookup, so total-wealth queries no longer load and price every position.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioValuationIndex {
+
+    private static final String LOAD_SQL = "SELECT account_id, stock_symbol, total_shares FROM stock_position";
+
+    private final StockQuoteCache quoteCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Guarded by this; values are read lock-free
+    private final Map<String, Map<Long, Long>> holders = new HashMap<>();
+    private final Map<String, BigDecimal> prices = new HashMap<>();
+    private final Map<Long, BigDecimal> accountValues = new ConcurrentHashMap<>();
+    private Counter revaluations;
+
+    @PostConstruct
+    public void registerListener() {
+        quoteCache.addPriceListener(this::onPriceChange);
+        revaluations = Counter.builder("portfolio.valuation.revaluations")
+                .description("Account values adjusted because a held symbol changed price")
+                .register(meterRegistry);
+        Gauge.builder("portfolio.valuation.accounts", accountValues, Map::size)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        holders.clear();
+        prices.clear();
+        accountValues.clear();
+        for (StockQuote quote : quoteCache.getAll()) {
+            prices.put(quote.getSymbol(), quote.getCurrentPrice());
+        }
+
+        int[] positions = {0};
+        jdbcTemplate.query(LOAD_SQL, resultSet -> {
+            apply(resultSet.getLong(1), resultSet.getString(2), resultSet.getLong(3));
+            positions[0]++;
+        });
+        log.info("Portfolio valuation index built from {} positions across {} accounts",
+                positions[0], accountValues.size());
+    }
+
+    /**
+     * Stock market value of one account at current cached prices.
+     */
+    public BigDecimal getMarketValue(Long accountId) {
+        return accountValues.getOrDefault(accountId, BigDecimal.ZERO);
+    }
+
+    public BigDecimal getMarketValue(Collection<Long> accountIds) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Long accountId : accountIds) {
+            total = total.add(getMarketValue(accountId));
+        }
+        return total;
+    }
+
+    /**
+     * Records a change in an account's share count. Inside a transaction it is
+     * applied only once the transaction commits.
+     */
+    public void adjustPosition(Long accountId, String symbol, long shareDelta) {
+        if (shareDelta == 0) {
+            return;
+        }
+        AfterCommit.run(() -> applyLocked(accountId, symbol, shareDelta));
+    }
+
+    // Helper methods
+
+    private synchronized void onPriceChange(String symbol, BigDecimal price) {
+        BigDecimal previous = prices.put(symbol, price);
+        BigDecimal change = previous == null ? price : price.subtract(previous);
+        if (change.signum() == 0) {
+            return;
+        }
+
+        Map<Long, Long> symbolHolders = holders.get(symbol);
+        if (symbolHolders == null) {
+            return;
+        }
+        symbolHolders.forEach((accountId, shares) ->
+                accountValues.merge(accountId, change.multiply(BigDecimal.valueOf(shares)), BigDecimal::add));
+        revaluations.increment(symbolHolders.size());
+    }
+
+    private synchronized void applyLocked(Long accountId, String symbol, long shareDelta) {
+        apply(accountId, symbol, shareDelta);
+    }
+
+    private void apply(Long accountId, String symbol, long shareDelta) {
+        Map<Long, Long> symbolHolders = holders.computeIfAbsent(symbol, key -> new HashMap<>());
+        Long shares = symbolHolders.merge(accountId, shareDelta, Long::sum);
+        if (shares == 0) {
+            symbolHolders.remove(accountId);
+            if (symbolHolders.isEmpty()) {
+                holders.remove(symbol);
+            }
+        }
+
+        BigDecimal price = prices.get(symbol);
+        if (price != null) {
+            accountValues.merge(accountId, price.multiply(BigDecimal.valueOf(shareDelta)), BigDecimal::add);
+        } else {
+            accountValues.putIfAbsent(accountId, BigDecimal.ZERO);
+        }
+    }
+}
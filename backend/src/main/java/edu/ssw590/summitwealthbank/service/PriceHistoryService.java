@@ -0,0 +1,437 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockCandleResponse;
+import edu.ssw590.summitwealthbank.util.CandleBlocks;
+import edu.ssw590.summitwealthbank.util.CandleRing;
+import edu.ssw590.summitwealthbank.util.CandleRing.Interval;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Price history as 1m, 1h and 1d OHLC candles.
+ *
+ * Every price change published by the {@link StockQuoteCache} (admin updates,
+ * bulk updates, the market simulator) is folded into the open candle of each
+ * interval as it arrives, so raw ticks are never stored or rescanned. Recent
+ * candles live in per-symbol {@link CandleRing}s. On a fixed delay the candles
+ * changed since the last flush are appended to stock_candle_block as one packed
+ * row per symbol and interval, and a compaction pass later merges those small
+ * blocks into blocks of a day's worth of minutes. A chart read takes the recent
+ * part of its range from the ring and the rest from a few hundred block rows at
+ * most, so a year of 1-minute candles never touches 500k rows. Block bounds are
+ * stored as epoch seconds, so the repeated hour when clocks go back cannot make
+ * two blocks collide or sort out of order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceHistoryService {
+
+    // Longest range a single request may ask for, in buckets (a year of minutes fits)
+    private static final long MAX_BUCKETS = 600_000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_candle_block (symbol, interval_code, block_start, block_end, candle_count, data) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String RANGE_SQL =
+            "SELECT block_start, data FROM stock_candle_block "
+                    + "WHERE symbol = ? AND interval_code = ? AND block_start < ? AND block_end >= ? "
+                    + "ORDER BY block_start, id";
+    private static final String OPEN_BLOCKS_SQL =
+            "SELECT symbol, block_start, data FROM stock_candle_block "
+                    + "WHERE interval_code = ? AND block_end = ? ORDER BY block_start, id";
+    private static final String COMPACTABLE_SQL =
+            "SELECT symbol, interval_code FROM stock_candle_block WHERE candle_count < ? "
+                    + "GROUP BY symbol, interval_code HAVING COUNT(*) > 1";
+    private static final String PARTIAL_BLOCKS_SQL =
+            "SELECT id, block_start, data FROM stock_candle_block "
+                    + "WHERE symbol = ? AND interval_code = ? AND candle_count < ? ORDER BY block_start, id";
+    private static final String DELETE_SQL = "DELETE FROM stock_candle_block WHERE id = ?";
+
+    private final StockQuoteCache quoteCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.candles.capacity.minute:720}")
+    private int minuteCapacity;
+
+    @Value("${app.candles.capacity.hour:336}")
+    private int hourCapacity;
+
+    @Value("${app.candles.capacity.day:366}")
+    private int dayCapacity;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<String, SymbolCandles> candles = new ConcurrentHashMap<>();
+    private final Map<String, BigDecimal> lastPrices = new ConcurrentHashMap<>();
+    private Counter ticks;
+    private Counter persisted;
+
+    @PostConstruct
+    public void registerListener() {
+        quoteCache.addPriceListener(this::onPriceChange);
+        ticks = Counter.builder("stock.candles.ticks")
+                .description("Price changes folded into candles")
+                .register(meterRegistry);
+        persisted = Counter.builder("stock.candles.persisted")
+                .description("Candles appended to stock_candle_block")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reopens the candles that were still open when the application last stopped,
+     * so a restart does not split the current minute, hour or day in two.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreOpenCandles() {
+        long now = Instant.now().getEpochSecond();
+        int restored = 0;
+        for (Interval interval : Interval.values()) {
+            long bucket = interval.bucketStart(now, zone);
+            // An open candle may have been appended several times; the last copy is the newest
+            Map<String, long[]> open = new HashMap<>();
+            jdbcTemplate.query(OPEN_BLOCKS_SQL, resultSet -> {
+                String symbol = resultSet.getString(1);
+                CandleBlocks.read(resultSet.getBytes(3), resultSet.getLong(2),
+                        (start, o, h, l, c, count) -> {
+                            if (start == bucket) {
+                                open.put(symbol, new long[]{o, h, l, c, count});
+                            }
+                        });
+            }, interval.getCode(), bucket);
+
+            for (Map.Entry<String, long[]> entry : open.entrySet()) {
+                long[] candle = entry.getValue();
+                SymbolCandles series = series(entry.getKey());
+                synchronized (series) {
+                    series.ring(interval).restore(bucket, candle[0], candle[1], candle[2], candle[3], (int) candle[4]);
+                }
+                if (interval == Interval.ONE_DAY) {
+                    lastPrices.putIfAbsent(entry.getKey(), fromCents(candle[3]));
+                }
+                restored++;
+            }
+        }
+        log.info("Price history restored {} open candles", restored);
+    }
+
+    /**
+     * Candles of one symbol with from <= bucket start < to. Omitted bounds default to
+     * the last 24 hours for 1m, 30 days for 1h and a year for 1d, ending now.
+     */
+    public StockCandleResponse getCandles(String symbol, String intervalCode,
+                                          LocalDateTime from, LocalDateTime to) {
+        Interval interval = Interval.fromCode(intervalCode);
+        quoteCache.require(symbol);
+
+        long end = to != null ? to.atZone(zone).toEpochSecond() : Instant.now().getEpochSecond() + 1;
+        long start = from != null ? from.atZone(zone).toEpochSecond() : end - defaultSpan(interval);
+        if (start >= end) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if ((end - start) / interval.getSeconds() > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Range too large: at most " + MAX_BUCKETS + " candles per request");
+        }
+
+        // 1. Copy the recent part of the range out of the ring
+        Columns recent = new Columns(64);
+        long ringOldest = Long.MAX_VALUE;
+        SymbolCandles series = candles.get(symbol);
+        if (series != null) {
+            synchronized (series) {
+                CandleRing ring = series.ring(interval);
+                if (!ring.isEmpty()) {
+                    ringOldest = ring.oldestStart();
+                    ring.forEach(start, end, recent::add);
+                }
+            }
+        }
+
+        // 2. Anything older than the ring comes from the overlapping blocks
+        Columns result = new Columns(recent.size);
+        long dbEnd = Math.min(end, ringOldest);
+        if (start < dbEnd) {
+            jdbcTemplate.query(RANGE_SQL, resultSet -> {
+                CandleBlocks.read(resultSet.getBytes(2), resultSet.getLong(1),
+                        (candleStart, open, high, low, close, count) -> {
+                            if (candleStart >= start && candleStart < dbEnd) {
+                                result.merge(candleStart, open, high, low, close, count);
+                            }
+                        });
+            }, symbol, interval.getCode(), dbEnd, start);
+        }
+
+        // 3. Ring candles come after everything persisted before the ring's oldest
+        for (int i = 0; i < recent.size; i++) {
+            result.add(recent.time[i], recent.open[i], recent.high[i], recent.low[i], recent.close[i],
+                    recent.ticks[i]);
+        }
+        return result.toResponse(symbol, interval);
+    }
+
+    /**
+     * Appends every candle changed since the last flush, one block per symbol and interval.
+     * A candle that is still open is appended again once it changes; the later copy wins.
+     */
+    @Scheduled(fixedDelayString = "${app.candles.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<Runnable> retries = new ArrayList<>();
+        int[] candleCount = {0};
+        candles.forEach((symbol, series) -> {
+            synchronized (series) {
+                for (Interval interval : Interval.values()) {
+                    CandleRing ring = series.ring(interval);
+                    BlockBuilder blocks = new BlockBuilder(symbol, interval, rows);
+                    ring.drainDirty(blocks::add);
+                    blocks.finish();
+                    if (blocks.first != Long.MAX_VALUE) {
+                        candleCount[0] += blocks.candles;
+                        long first = blocks.first;
+                        retries.add(() -> {
+                            synchronized (series) {
+                                ring.markDirty(first);
+                            }
+                        });
+                    }
+                }
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+            persisted.increment(candleCount[0]);
+        } catch (RuntimeException e) {
+            retries.forEach(Runnable::run);
+            log.warn("Candle flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Merges the small blocks left by flushes into full blocks, one symbol and interval
+     * per transaction. Full blocks are never read back, so each pass only rewrites the tail.
+     */
+    @Scheduled(initialDelayString = "${app.candles.compact-interval-ms:600000}",
+               fixedDelayString = "${app.candles.compact-interval-ms:600000}")
+    public synchronized void compact() {
+        List<String[]> series = jdbcTemplate.query(COMPACTABLE_SQL,
+                (resultSet, rowNum) -> new String[]{resultSet.getString(1), resultSet.getString(2)},
+                CandleBlocks.MAX_CANDLES);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int[] blocks = {0};
+        for (String[] key : series) {
+            String symbol = key[0];
+            Interval interval = Interval.fromCode(key[1]);
+            transaction.executeWithoutResult(status -> {
+                // 1. Read the partial blocks oldest first, later copies of a candle replacing earlier ones
+                List<Object[]> ids = new ArrayList<>();
+                Columns merged = new Columns(CandleBlocks.MAX_CANDLES);
+                jdbcTemplate.query(PARTIAL_BLOCKS_SQL, resultSet -> {
+                    ids.add(new Object[]{resultSet.getLong(1)});
+                    CandleBlocks.read(resultSet.getBytes(3), resultSet.getLong(2), merged::merge);
+                }, symbol, interval.getCode(), CandleBlocks.MAX_CANDLES);
+
+                // 2. Replace them with as few blocks as possible
+                List<Object[]> rows = new ArrayList<>();
+                BlockBuilder builder = new BlockBuilder(symbol, interval, rows);
+                for (int i = 0; i < merged.size; i++) {
+                    builder.add(merged.time[i], merged.open[i], merged.high[i], merged.low[i], merged.close[i],
+                            merged.ticks[i]);
+                }
+                builder.finish();
+                jdbcTemplate.batchUpdate(DELETE_SQL, ids);
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                blocks[0] += ids.size() - rows.size();
+            });
+        }
+        if (blocks[0] > 0) {
+            log.info("Candle compaction removed {} blocks across {} series", blocks[0], series.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Helper methods
+
+    private void onPriceChange(String symbol, BigDecimal price) {
+        // The quote cache also announces prices when it (re)loads; only real changes are ticks
+        BigDecimal previous = lastPrices.put(symbol, price);
+        if (previous != null && previous.compareTo(price) == 0) {
+            return;
+        }
+        long now = Instant.now().getEpochSecond();
+        long cents = cents(price);
+        SymbolCandles series = series(symbol);
+        synchronized (series) {
+            for (Interval interval : Interval.values()) {
+                series.ring(interval).add(interval.bucketStart(now, zone), cents);
+            }
+        }
+        ticks.increment();
+    }
+
+    private SymbolCandles series(String symbol) {
+        return candles.computeIfAbsent(symbol, key ->
+                new SymbolCandles(new CandleRing(minuteCapacity), new CandleRing(hourCapacity),
+                        new CandleRing(dayCapacity)));
+    }
+
+    private long defaultSpan(Interval interval) {
+        return switch (interval) {
+            case ONE_MINUTE -> 24 * 3600L;
+            case ONE_HOUR -> 30 * 24 * 3600L;
+            case ONE_DAY -> 366 * 24 * 3600L;
+        };
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private record SymbolCandles(CandleRing minute, CandleRing hour, CandleRing day) {
+        private CandleRing ring(Interval interval) {
+            return switch (interval) {
+                case ONE_MINUTE -> minute;
+                case ONE_HOUR -> hour;
+                case ONE_DAY -> day;
+            };
+        }
+    }
+
+    // Packs consecutive candles into insert rows of at most MAX_CANDLES each
+    private final class BlockBuilder {
+        private final String symbol;
+        private final Interval interval;
+        private final List<Object[]> rows;
+        private CandleBlocks.Writer writer;
+        private long first = Long.MAX_VALUE;
+        private int candles;
+
+        private BlockBuilder(String symbol, Interval interval, List<Object[]> rows) {
+            this.symbol = symbol;
+            this.interval = interval;
+            this.rows = rows;
+        }
+
+        private void add(long start, long open, long high, long low, long close, int count) {
+            if (writer == null) {
+                writer = new CandleBlocks.Writer(start, CandleBlocks.MAX_CANDLES);
+            }
+            writer.add(start, open, high, low, close, count);
+            first = Math.min(first, start);
+            candles++;
+            if (writer.isFull()) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (writer == null) {
+                return;
+            }
+            rows.add(new Object[]{symbol, interval.getCode(), writer.getBlockStart(),
+                    writer.getLastStart(), writer.getCount(), writer.toBytes()});
+            writer = null;
+        }
+    }
+
+    // Growable column buffers for building a response without boxing
+    private static final class Columns {
+        private long[] time;
+        private long[] open;
+        private long[] high;
+        private long[] low;
+        private long[] close;
+        private int[] ticks;
+        private int size;
+
+        private Columns(int capacity) {
+            int length = Math.max(capacity, 16);
+            time = new long[length];
+            open = new long[length];
+            high = new long[length];
+            low = new long[length];
+            close = new long[length];
+            ticks = new int[length];
+        }
+
+        private void add(long start, long o, long h, long l, long c, int count) {
+            if (size == time.length) {
+                int length = size * 2;
+                time = Arrays.copyOf(time, length);
+                open = Arrays.copyOf(open, length);
+                high = Arrays.copyOf(high, length);
+                low = Arrays.copyOf(low, length);
+                close = Arrays.copyOf(close, length);
+                ticks = Arrays.copyOf(ticks, length);
+            }
+            time[size] = start;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            ticks[size] = count;
+            size++;
+        }
+
+        // Like add, but a candle for the newest bucket replaces it and older ones are dropped
+        private void merge(long start, long o, long h, long l, long c, int count) {
+            if (size > 0 && start <= time[size - 1]) {
+                if (start == time[size - 1]) {
+                    size--;
+                    add(start, o, h, l, c, count);
+                }
+                return;
+            }
+            add(start, o, h, l, c, count);
+        }
+
+        private StockCandleResponse toResponse(String symbol, Interval interval) {
+            return StockCandleResponse.builder()
+                    .symbol(symbol)
+                    .interval(interval.getCode())
+                    .time(Arrays.copyOf(time, size))
+                    .open(Arrays.copyOf(open, size))
+                    .high(Arrays.copyOf(high, size))
+                    .low(Arrays.copyOf(low, size))
+                    .close(Arrays.copyOf(close, size))
+                    .ticks(Arrays.copyOf(ticks, size))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.repository.StockTransactionRepository;
+import edu.ssw590.summitwealthbank.repository.TransactionRepository;
+import edu.ssw590.summitwealthbank.util.BloomFilter;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Answers TXN-/STK- reference lookups from memory where it can.
+ *
+ * 1. A Bloom filter holding every reference turns away unknown (usually
+ *    mistyped) references without touching the database. It is loaded at
+ *    startup and fed by the {@link ReferenceGenerator} as references are
+ *    issued; app.references.refresh-ms also adds those written by other
+ *    instances. Until that refresh has run, the filter may be missing them,
+ *    so it only rejects references whose issue date (part of the reference)
+ *    lies before the refreshed window; newer ones it does not hold are looked
+ *    up in the database and added when found.
+ * 2. LRU caches keep recently viewed transfers and stock trades, both of which
+ *    are never changed once written.
+ * 3. An LRU cache of each user's account ids answers the access check without
+ *    loading their accounts. Accounts never change owner, so a cached id stays
+ *    valid; a check that fails reloads the set once in case an account was
+ *    opened since.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceLookupService {
+
+    private static final String LOAD_SQL =
+            "SELECT transaction_reference FROM transaction UNION ALL SELECT transaction_reference FROM stock_transaction";
+    private static final String RECENT_SQL =
+            "SELECT transaction_reference FROM transaction WHERE timestamp >= ? "
+                    + "UNION ALL SELECT transaction_reference FROM stock_transaction WHERE timestamp >= ?";
+
+    private final ReferenceGenerator referenceGenerator;
+    private final TransactionRepository transactionRepository;
+    private final StockTransactionRepository stockTransactionRepository;
+    private final AccountService accountService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.references.bloom.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${app.references.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.references.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${app.references.refresh-grace-ms:60000}")
+    private long refreshGraceMs;
+
+    private BloomFilter references;
+    // Access-ordered LRUs; each guarded by itself
+    private Map<String, Transaction> transfers;
+    private Map<String, StockTransaction> stockTransactions;
+    private Map<String, Set<Long>> accountIdsByEmail;
+    private volatile LocalDateTime refreshedUpTo;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        references = new BloomFilter(expectedInsertions, falsePositiveRate);
+        transfers = lruMap(cacheSize);
+        stockTransactions = lruMap(cacheSize);
+        accountIdsByEmail = lruMap(cacheSize);
+        referenceGenerator.addReferenceListener(references::add);
+
+        FunctionCounter.builder("reference.lookups", rejected, LongAdder::sum)
+                .tag("result", "rejected")
+                .description("Reference lookups answered by the Bloom filter alone")
+                .register(meterRegistry);
+        FunctionCounter.builder("reference.lookups", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("reference.lookups", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadReferences() {
+        LocalDateTime start = LocalDateTime.now();
+        long before = references.getInsertions();
+        jdbcTemplate.query(LOAD_SQL, resultSet -> {
+            references.add(resultSet.getString(1));
+        });
+        refreshedUpTo = start;
+        log.info("Reference filter loaded with {} references ({} bits, {} hashes)",
+                references.getInsertions() - before, references.getBitCount(), references.getHashCount());
+    }
+
+    /**
+     * Adds references written since the last refresh by anything other than this instance's
+     * generator. The window reaches back by the grace period, for rows committed late.
+     */
+    @Scheduled(fixedDelayString = "${app.references.refresh-ms:5000}",
+            initialDelayString = "${app.references.refresh-ms:5000}")
+    public void refresh() {
+        LocalDateTime from = refreshedUpTo;
+        if (from == null) {
+            return;
+        }
+        LocalDateTime start = LocalDateTime.now();
+        Timestamp since = Timestamp.valueOf(from.minusNanos(refreshGraceMs * 1_000_000));
+        jdbcTemplate.query(RECENT_SQL, resultSet -> {
+            references.add(resultSet.getString(1));
+        }, since, since);
+        refreshedUpTo = start;
+    }
+
+    public Optional<Transaction> findTransfer(String reference) {
+        return find(reference, transfers, ref -> transactionRepository.findByTransactionReference(ref));
+    }
+
+    public Optional<StockTransaction> findStockTransaction(String reference) {
+        return find(reference, stockTransactions, ref -> stockTransactionRepository.findByTransactionReference(ref));
+    }
+
+    /**
+     * Whether any of the given accounts belongs to the user; unknown users are reported as
+     * by {@link AccountService#getAccountsByEmail(String)}.
+     */
+    public boolean ownsAny(String email, Long... accountIds) {
+        Set<Long> owned;
+        synchronized (accountIdsByEmail) {
+            owned = accountIdsByEmail.get(email);
+        }
+        if (owned != null && containsAny(owned, accountIds)) {
+            return true;
+        }
+        owned = loadAccountIds(email);
+        return containsAny(owned, accountIds);
+    }
+
+    // Helper methods
+
+    private <T> Optional<T> find(String reference, Map<String, T> cache, Function<String, Optional<T>> loader) {
+        if (reference == null) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        boolean known = references.mightContain(reference);
+        if (!known && issuedBeforeRefresh(reference)) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        T cached;
+        synchronized (cache) {
+            cached = cache.get(reference);
+        }
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        Optional<T> loaded = loader.apply(reference);
+        loaded.ifPresent(value -> {
+            if (!known) {
+                // Written by another instance since the last refresh
+                references.add(reference);
+            }
+            synchronized (cache) {
+                cache.put(reference, value);
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Whether the filter is sure to hold the reference if it exists: it was issued before the
+     * day the last refresh window starts. References not in the generator's format predate it.
+     */
+    private boolean issuedBeforeRefresh(String reference) {
+        LocalDateTime refreshed = refreshedUpTo;
+        if (refreshed == null) {
+            return false;
+        }
+        LocalDate issued = ReferenceGenerator.issueDate(reference);
+        return issued == null || issued.isBefore(refreshed.minusNanos(refreshGraceMs * 1_000_000).toLocalDate());
+    }
+
+    private Set<Long> loadAccountIds(String email) {
+        Set<Long> owned = accountService.getAccountsByEmail(email).stream()
+                .map(Account::getId)
+                .collect(Collectors.toUnmodifiableSet());
+        synchronized (accountIdsByEmail) {
+            accountIdsByEmail.put(email, owned);
+        }
+        return owned;
+    }
+
+    private static boolean containsAny(Set<Long> owned, Long... accountIds) {
+        return Arrays.stream(accountIds).anyMatch(id -> id != null && owned.contains(id));
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
@@ -0,0 +1,174 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.model.Stock;
+import edu.ssw590.summitwealthbank.repository.StockRepository;
+import edu.ssw590.summitwealthbank.util.AfterCommit;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory ledger of the house share pool for every stock symbol.
+ *
+ * Trades reserve and release shares here with a CAS loop instead of doing a
+ * read-modify-write on the stock row. Changed symbols are flushed to the
+ * stock.available_shares column in one JDBC batch on a fixed delay, and the
+ * ledger is rebuilt from the table once the application is ready.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShareInventoryService {
+
+    private static final String FLUSH_SQL = "UPDATE stock SET available_shares = ? WHERE symbol = ?";
+
+    private final StockRepository stockRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, AtomicLong> available = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        available.clear();
+        dirty.clear();
+        for (Stock stock : stockRepository.findAll()) {
+            available.put(stock.getSymbol(), new AtomicLong(stock.getAvailableShares()));
+        }
+        log.info("Share inventory loaded for {} symbols", available.size());
+    }
+
+    /**
+     * Atomically takes shares out of the pool.
+     * Returns false (and changes nothing) when fewer than the requested shares are left.
+     * Inside a transaction the reservation is handed back automatically on rollback.
+     */
+    public boolean reserve(String symbol, long quantity) {
+        AtomicLong pool = pool(symbol);
+        long current;
+        do {
+            current = pool.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!pool.compareAndSet(current, current - quantity));
+
+        dirty.add(symbol);
+        onRollback(() -> release(symbol, quantity));
+        return true;
+    }
+
+    /**
+     * Returns shares to the pool. Inside a transaction the release is undone on rollback.
+     */
+    public void release(String symbol, long quantity) {
+        pool(symbol).addAndGet(quantity);
+        dirty.add(symbol);
+        onRollback(() -> take(symbol, quantity));
+    }
+
+    public long getAvailable(String symbol) {
+        return pool(symbol).get();
+    }
+
+    public boolean contains(String symbol) {
+        return available.containsKey(symbol);
+    }
+
+    /**
+     * Adds a new symbol's pool once the current transaction commits, so a rolled-back
+     * create never leaves a tradable symbol behind.
+     */
+    public void register(Stock stock) {
+        String symbol = stock.getSymbol();
+        long shares = stock.getAvailableShares();
+        AfterCommit.run(() -> available.put(symbol, new AtomicLong(shares)));
+    }
+
+    /**
+     * Drops a symbol's pool once the current transaction commits.
+     */
+    public void remove(String symbol) {
+        AfterCommit.run(() -> {
+            available.remove(symbol);
+            dirty.remove(symbol);
+        });
+    }
+
+    /**
+     * Writes every changed pool back to the stock table in one batch.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:500}")
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        for (String symbol : dirty) {
+            // Remove before reading so a concurrent change re-marks the symbol
+            dirty.remove(symbol);
+            AtomicLong pool = available.get(symbol);
+            if (pool != null) {
+                batch.add(new Object[]{pool.get(), symbol});
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        } catch (RuntimeException e) {
+            batch.forEach(row -> dirty.add((String) row[1]));
+            log.warn("Share inventory flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private AtomicLong pool(String symbol) {
+        AtomicLong pool = available.get(symbol);
+        if (pool == null) {
+            throw new IllegalArgumentException("Stock not found: " + symbol);
+        }
+        return pool;
+    }
+
+    // Unconditional decrement used only to undo a release that was rolled back
+    private void take(String symbol, long quantity) {
+        AtomicLong pool = available.get(symbol);
+        if (pool != null) {
+            pool.addAndGet(-quantity);
+            dirty.add(symbol);
+        }
+    }
+
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+}
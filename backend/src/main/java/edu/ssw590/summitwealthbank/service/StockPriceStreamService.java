@@ -0,0 +1,265 @@
+package edu.ssw590.summitwealthbank.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ssw590.summitwealthbank.dto.StockPriceUpdate;
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stock price and availability changes to Server-Sent Events subscribers.
+ *
+ * Every tick compares the quote cache and the share inventory with the values
+ * last published and emits one "prices" event holding only the symbols that
+ * changed, so any number of updates to a symbol within a tick are coalesced
+ * into one. The event is serialised once and queued to every subscriber. Each
+ * subscriber has a bounded queue drained by a small shared sender pool, and a
+ * subscriber whose queue overflows is dropped rather than slowing the rest.
+ * A new subscriber first receives a "snapshot" event with the whole catalog.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockPriceStreamService {
+
+    private final StockQuoteCache quoteCache;
+    private final ShareInventoryService shareInventory;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.stream.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${app.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${app.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Last published state per symbol, compared against on every tick
+    private final Map<String, Published> published = new HashMap<>();
+    private final AtomicInteger senderIds = new AtomicInteger();
+    private ExecutorService senders;
+    private Counter dropped;
+    private long lastEventAt = System.currentTimeMillis();
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "price-stream-" + senderIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("stock.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        dropped = Counter.builder("stock.stream.dropped")
+                .description("Subscribers disconnected because they fell too far behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a subscriber and queues the current catalog as its first event.
+     */
+    public synchronized SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        List<StockPriceUpdate> catalog = new ArrayList<>();
+        for (StockQuote quote : quoteCache.getAll()) {
+            catalog.add(toUpdate(quote, availableShares(quote.getSymbol())));
+        }
+        subscribers.add(subscriber);
+        subscriber.offer(SseEmitter.event().name("snapshot").data(serialize(catalog), MediaType.APPLICATION_JSON));
+        return emitter;
+    }
+
+    /**
+     * Publishes every symbol whose price or availability changed since the last tick.
+     */
+    @Scheduled(fixedDelayString = "${app.stream.coalesce-ms:250}")
+    public synchronized void publishChanges() {
+        List<StockPriceUpdate> changes = collectChanges();
+        long now = System.currentTimeMillis();
+
+        if (subscribers.isEmpty()) {
+            lastEventAt = now;
+            return;
+        }
+        if (!changes.isEmpty()) {
+            String payload = serialize(changes);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(SseEmitter.event().name("prices").data(payload, MediaType.APPLICATION_JSON));
+            }
+            lastEventAt = now;
+        } else if (now - lastEventAt >= heartbeatMs) {
+            // Keeps idle connections open through proxies and detects closed clients
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(SseEmitter.event().comment("heartbeat"));
+            }
+            lastEventAt = now;
+        }
+    }
+
+    /**
+     * Runs a multi-symbol change and publishes it right away, so subscribers get
+     * it as one event instead of split across two ticks.
+     */
+    public synchronized void publishAtomically(Runnable change) {
+        change.run();
+        publishChanges();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    // Helper methods
+
+    private List<StockPriceUpdate> collectChanges() {
+        List<StockPriceUpdate> changes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (StockQuote quote : quoteCache.getAll()) {
+            String symbol = quote.getSymbol();
+            long available = availableShares(symbol);
+            seen.add(symbol);
+
+            Published last = published.get(symbol);
+            if (last == null || last.version != quote.getVersion() || last.available != available) {
+                published.put(symbol, new Published(quote.getVersion(), quote.getCurrentPrice(), available));
+                // A re-cached quote with the same price and availability is not a change for clients
+                if (last == null || last.available != available || last.price.compareTo(quote.getCurrentPrice()) != 0) {
+                    changes.add(toUpdate(quote, available));
+                }
+            }
+        }
+
+        Iterator<String> symbols = published.keySet().iterator();
+        while (symbols.hasNext()) {
+            String symbol = symbols.next();
+            if (!seen.contains(symbol)) {
+                symbols.remove();
+                changes.add(StockPriceUpdate.builder().symbol(symbol).removed(true).build());
+            }
+        }
+        return changes;
+    }
+
+    private long availableShares(String symbol) {
+        return shareInventory.contains(symbol) ? shareInventory.getAvailable(symbol) : 0;
+    }
+
+    private StockPriceUpdate toUpdate(StockQuote quote, long available) {
+        return StockPriceUpdate.builder()
+                .symbol(quote.getSymbol())
+                .currentPrice(quote.getCurrentPrice())
+                .availableShares(available)
+                .updatedAt(quote.getUpdatedAt())
+                .build();
+    }
+
+    private String serialize(List<StockPriceUpdate> updates) {
+        try {
+            return objectMapper.writeValueAsString(updates);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise price updates", e);
+        }
+    }
+
+    private record Published(long version, BigDecimal price, long available) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                dropped.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter callbacks may not fire for a write failure
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            // An offer may have landed between the last poll and clearing the flag
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+    }
+}
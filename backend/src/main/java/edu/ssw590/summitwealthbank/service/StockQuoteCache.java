@@ -0,0 +1,213 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import edu.ssw590.summitwealthbank.model.Stock;
+import edu.ssw590.summitwealthbank.repository.StockRepository;
+import edu.ssw590.summitwealthbank.util.AfterCommit;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Process-wide cache of immutable stock quotes keyed by symbol.
+ *
+ * Loaded from the stock table once the application is ready and kept current
+ * by write-through from {@link AdminStockService}, which refreshes a quote
+ * after its transaction commits. A miss falls back to the database and caches
+ * the result. Hit, miss and size meters are published as stock.quote.cache.*.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockQuoteCache {
+
+    private final StockRepository stockRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, StockQuote> quotes = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final List<PriceListener> priceListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Notified after a symbol's cached price changes (including when it is first cached).
+     */
+    public interface PriceListener {
+        void onPriceChange(String symbol, BigDecimal price);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("stock.quote.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("stock.quote.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("stock.quote.cache.size", quotes, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("stock.quote.cache.version", catalogVersion, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        quotes.clear();
+        stockRepository.findAll().forEach(this::put);
+        log.info("Stock quote cache loaded with {} symbols (version {})", quotes.size(), catalogVersion.get());
+    }
+
+    public Optional<StockQuote> find(String symbol) {
+        StockQuote quote = quotes.get(symbol);
+        if (quote != null) {
+            hits.increment();
+            return Optional.of(quote);
+        }
+
+        misses.increment();
+        return stockRepository.findBySymbol(symbol).map(this::put);
+    }
+
+    public StockQuote require(String symbol) {
+        return find(symbol).orElseThrow(() -> new IllegalArgumentException("Stock not found: " + symbol));
+    }
+
+    /**
+     * Resolves many symbols at once; any misses are loaded with a single IN query.
+     * Unknown symbols are absent from the result.
+     */
+    public Map<String, StockQuote> findAll(Collection<String> symbols) {
+        Map<String, StockQuote> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String symbol : symbols) {
+            StockQuote quote = quotes.get(symbol);
+            if (quote != null) {
+                result.put(symbol, quote);
+            } else {
+                missing.add(symbol);
+            }
+        }
+
+        hits.add(result.size());
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            stockRepository.findBySymbolIn(missing).forEach(stock -> result.put(stock.getSymbol(), put(stock)));
+        }
+        return result;
+    }
+
+    public List<StockQuote> getAll() {
+        return new ArrayList<>(quotes.values());
+    }
+
+    /**
+     * Write-through: replaces the cached quote once the current transaction commits.
+     */
+    public void refresh(Stock stock) {
+        AfterCommit.run(() -> put(stock));
+    }
+
+    /**
+     * Atomically replaces a cached price with repricer(currentPrice), outside any
+     * transaction. Returns the new price, or null if the symbol is not cached.
+     * Used by the market simulator, which persists prices itself.
+     */
+    public BigDecimal reprice(String symbol, UnaryOperator<BigDecimal> repricer, LocalDateTime updatedAt) {
+        boolean[] changed = {false};
+        StockQuote quote = quotes.computeIfPresent(symbol, (key, current) -> {
+            BigDecimal price = repricer.apply(current.getCurrentPrice());
+            if (price.compareTo(current.getCurrentPrice()) == 0) {
+                return current;
+            }
+            changed[0] = true;
+            return current.toBuilder()
+                    .currentPrice(price)
+                    .version(catalogVersion.incrementAndGet())
+                    .updatedAt(updatedAt)
+                    .build();
+        });
+        if (quote == null) {
+            return null;
+        }
+        if (changed[0]) {
+            notifyPriceChange(symbol);
+        }
+        return quote.getCurrentPrice();
+    }
+
+    public void evict(String symbol) {
+        AfterCommit.run(() -> {
+            quotes.remove(symbol);
+            catalogVersion.incrementAndGet();
+        });
+    }
+
+    public void addPriceListener(PriceListener listener) {
+        priceListeners.add(listener);
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return quotes.size();
+    }
+
+    private StockQuote put(Stock stock) {
+        StockQuote quote = StockQuote.builder()
+                .symbol(stock.getSymbol())
+                .companyName(stock.getCompanyName())
+                .currentPrice(stock.getCurrentPrice())
+                .totalShares(stock.getTotalShares())
+                .sector(stock.getSector())
+                .version(catalogVersion.incrementAndGet())
+                .updatedAt(stock.getUpdatedAt() != null ? stock.getUpdatedAt() : LocalDateTime.now())
+                .build();
+        StockQuote previous = quotes.put(quote.getSymbol(), quote);
+        if (previous == null || previous.getCurrentPrice().compareTo(quote.getCurrentPrice()) != 0) {
+            notifyPriceChange(quote.getSymbol());
+        }
+        return quote;
+    }
+
+    // Passes the price current at call time, so racing updates cannot leave a listener on a stale price
+    private void notifyPriceChange(String symbol) {
+        StockQuote current = quotes.get(symbol);
+        if (current == null) {
+            return;
+        }
+        for (PriceListener listener : priceListeners) {
+            listener.onPriceChange(symbol, current.getCurrentPrice());
+        }
+    }
+}
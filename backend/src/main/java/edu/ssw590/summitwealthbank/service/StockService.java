@@ -1,25 +1,30 @@
 package edu.ssw590.summitwealthbank.service;
 
+import edu.ssw590.summitwealthbank.dto.CursorPage;
 import edu.ssw590.summitwealthbank.dto.StockPortfolioResponse;
+import edu.ssw590.summitwealthbank.dto.StockQuote;
 import edu.ssw590.summitwealthbank.dto.StockTransactionResponse;
 import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
 import edu.ssw590.summitwealthbank.model.Stock;
 import edu.ssw590.summitwealthbank.model.StockPosition;
 import edu.ssw590.summitwealthbank.model.StockTransaction;
 import edu.ssw590.summitwealthbank.repository.StockPositionRepository;
 import edu.ssw590.summitwealthbank.repository.StockRepository;
 import edu.ssw590.summitwealthbank.repository.StockTransactionRepository;
+import edu.ssw590.summitwealthbank.util.PageCursor;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,49 +32,62 @@ import java.util.stream.Collectors;
 @Transactional
 public class StockService {
 
+    static final int MAX_LIMIT = 500;
+
     private final StockRepository stockRepository;
     private final StockPositionRepository positionRepository;
     private final StockTransactionRepository transactionRepository;
     private final AccountService accountService;
+    private final ShareInventoryService shareInventory;
+    private final StockQuoteCache quoteCache;
+    private final TransactionResponseAssembler responseAssembler;
+    private final PortfolioValuationIndex valuationIndex;
+    private final PnlRollupService pnlRollups;
+    private final ReferenceGenerator referenceGenerator;
+    private final ConcurrencyControl concurrencyControl;
+    private final LedgerService ledgerService;
+    private final ReferenceLookupService referenceLookup;
 
     /**
      * BUY STOCK FLOW:
      * 1. Validate account ownership
-     * 2. Fetch stock and verify availability
+     * 2. Fetch stock price
      * 3. Check account balance
-     * 4. Update stock availability (decrement)
+     * 4. Reserve shares from the in-memory inventory (atomic, never oversells)
      * 5. Update/create position with new average cost basis
      * 6. Deduct from account balance
      * 7. Create transaction record
+     * Runs under {@link ConcurrencyControl}: re-run on a conflicting update, or with the account locked.
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public StockTransaction buyStock(Long accountId, String stockSymbol, Long quantity, String userEmail) {
-        // 1. Validate ownership
-        Account account = validateAccountOwnership(accountId, userEmail);
+        return concurrencyControl.execute("stock.buy", Arrays.asList(accountId),
+                () -> buy(accountId, stockSymbol, quantity, userEmail));
+    }
 
-        // 2. Fetch stock
-        Stock stock = stockRepository.findBySymbol(stockSymbol)
-                .orElseThrow(() -> new IllegalArgumentException("Stock not found: " + stockSymbol));
+    private StockTransaction buy(Long accountId, String stockSymbol, Long quantity, String userEmail) {
+        // 1. Validate ownership
+        Account account = validateAccountOwnership(concurrencyControl.loadAccount(accountId), userEmail);
 
-        // 3. Validate availability
-        if (stock.getAvailableShares() < quantity) {
-            throw new IllegalArgumentException(
-                    String.format("Not enough shares available. Available: %d, Requested: %d",
-                            stock.getAvailableShares(), quantity));
-        }
+        // 2. Fetch stock quote
+        StockQuote quote = quoteCache.require(stockSymbol);
 
-        // 4. Calculate total cost
-        BigDecimal totalCost = stock.getCurrentPrice().multiply(BigDecimal.valueOf(quantity));
+        // 3. Calculate total cost
+        BigDecimal totalCost = quote.getCurrentPrice().multiply(BigDecimal.valueOf(quantity));
 
-        // 5. Validate balance
+        // 4. Validate balance
         if (account.getBalance().compareTo(totalCost) < 0) {
             throw new IllegalArgumentException("Insufficient funds in account");
         }
 
-        // 6. Update stock availability (CRITICAL: within transaction)
-        stock.setAvailableShares(stock.getAvailableShares() - quantity);
-        stockRepository.save(stock);
+        // 5. Reserve shares from the in-memory pool (released again if the transaction rolls back)
+        if (!shareInventory.reserve(stockSymbol, quantity)) {
+            throw new IllegalArgumentException(
+                    String.format("Not enough shares available. Available: %d, Requested: %d",
+                            shareInventory.getAvailable(stockSymbol), quantity));
+        }
 
-        // 7. Update or create position
+        // 6. Update or create position
         StockPosition position = positionRepository
                 .findByAccountIdAndStockSymbol(accountId, stockSymbol)
                 .orElse(StockPosition.builder()
@@ -91,25 +109,28 @@ public class StockService {
         position.setTotalShares(newTotalShares);
         position.setAverageCostBasis(newAverageCost);
         positionRepository.save(position);
+        valuationIndex.adjustPosition(accountId, stockSymbol, quantity);
 
-        // 8. Deduct from account
-        account.setBalance(account.getBalance().subtract(totalCost));
-        accountService.saveAccount(account);
-
-        // 9. Create transaction record
+        // 7. Deduct from account
         String txnRef = generateStockTransactionReference();
+        concurrencyControl.debit(account, totalCost, "Insufficient funds in account");
+        ledgerService.post(accountId, totalCost.negate(), LedgerEntry.Kind.STOCK_BUY, txnRef);
+
+        // 8. Create transaction record
         StockTransaction transaction = StockTransaction.builder()
                 .transactionReference(txnRef)
                 .accountId(accountId)
                 .stockSymbol(stockSymbol)
                 .type(StockTransaction.TransactionType.BUY)
                 .quantity(quantity)
-                .pricePerShare(stock.getCurrentPrice())
+                .pricePerShare(quote.getCurrentPrice())
                 .totalAmount(totalCost)
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        return transactionRepository.save(transaction);
+        StockTransaction saved = transactionRepository.save(transaction);
+        pnlRollups.record(List.of(saved));
+        return saved;
     }
 
     /**
@@ -117,14 +138,20 @@ public class StockService {
      * 1. Validate account ownership
      * 2. Fetch position and validate sufficient shares
      * 3. Calculate profit/loss using average cost basis
-     * 4. Update stock availability (return shares to pool)
+     * 4. Release shares back to the in-memory inventory
      * 5. Update position (or delete if fully sold)
      * 6. Add proceeds to account balance
      * 7. Create transaction record with profit/loss
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public StockTransaction sellStock(Long accountId, String stockSymbol, Long quantity, String userEmail) {
+        return concurrencyControl.execute("stock.sell", Arrays.asList(accountId),
+                () -> sell(accountId, stockSymbol, quantity, userEmail));
+    }
+
+    private StockTransaction sell(Long accountId, String stockSymbol, Long quantity, String userEmail) {
         // 1. Validate ownership
-        Account account = validateAccountOwnership(accountId, userEmail);
+        Account account = validateAccountOwnership(concurrencyControl.loadAccount(accountId), userEmail);
 
         // 2. Fetch position
         StockPosition position = positionRepository
@@ -139,17 +166,15 @@ public class StockService {
         }
 
         // 4. Fetch current stock price
-        Stock stock = stockRepository.findBySymbol(stockSymbol)
-                .orElseThrow(() -> new IllegalArgumentException("Stock not found: " + stockSymbol));
+        StockQuote quote = quoteCache.require(stockSymbol);
 
         // 5. Calculate proceeds and profit/loss
-        BigDecimal proceeds = stock.getCurrentPrice().multiply(BigDecimal.valueOf(quantity));
+        BigDecimal proceeds = quote.getCurrentPrice().multiply(BigDecimal.valueOf(quantity));
         BigDecimal costBasis = position.getAverageCostBasis().multiply(BigDecimal.valueOf(quantity));
         BigDecimal profitLoss = proceeds.subtract(costBasis);
 
         // 6. Return shares to pool
-        stock.setAvailableShares(stock.getAvailableShares() + quantity);
-        stockRepository.save(stock);
+        shareInventory.release(stockSymbol, quantity);
 
         // 7. Update position
         Long remainingShares = position.getTotalShares() - quantity;
@@ -159,106 +184,141 @@ public class StockService {
             position.setTotalShares(remainingShares);
             positionRepository.save(position);
         }
+        valuationIndex.adjustPosition(accountId, stockSymbol, -quantity);
 
         // 8. Add proceeds to account
-        account.setBalance(account.getBalance().add(proceeds));
-        accountService.saveAccount(account);
+        String txnRef = generateStockTransactionReference();
+        concurrencyControl.credit(account, proceeds);
+        ledgerService.post(accountId, proceeds, LedgerEntry.Kind.STOCK_SELL, txnRef);
 
         // 9. Create transaction record
-        String txnRef = generateStockTransactionReference();
         StockTransaction transaction = StockTransaction.builder()
                 .transactionReference(txnRef)
                 .accountId(accountId)
                 .stockSymbol(stockSymbol)
                 .type(StockTransaction.TransactionType.SELL)
                 .quantity(quantity)
-                .pricePerShare(stock.getCurrentPrice())
+                .pricePerShare(quote.getCurrentPrice())
                 .totalAmount(proceeds)
                 .profitLoss(profitLoss)
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        return transactionRepository.save(transaction);
+        StockTransaction saved = transactionRepository.save(transaction);
+        pnlRollups.record(List.of(saved));
+        return saved;
     }
 
     /**
-     * Get all stock positions for a user across all their accounts
+     * Get all stock positions for a user across all their accounts.
+     * One joined projection query returns the rows with market value and P&L already computed.
      */
+    @Transactional(readOnly = true)
     public List<StockPortfolioResponse> getUserPortfolio(String email) {
-        List<Account> accounts = accountService.getAccountsByEmail(email);
-        List<Long> accountIds = accounts.stream()
-                .map(Account::getId)
-                .collect(Collectors.toList());
-
-        List<StockPosition> positions = positionRepository.findByAccountIds(accountIds);
-
-        return positions.stream()
+        return positionRepository.findPortfolioByUserEmail(email).stream()
                 .map(this::toPortfolioResponse)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Get all available stocks for trading
+     * Get all available stocks for trading.
+     * Share counts come from the in-memory inventory, which may be ahead of the last flush.
      */
+    @Transactional(readOnly = true)
     public List<Stock> getAvailableStocks() {
-        return stockRepository.findAvailableStocks();
+        List<Stock> stocks = stockRepository.findAllByOrderBySymbolAsc();
+        stocks.forEach(stock -> {
+            if (shareInventory.contains(stock.getSymbol())) {
+                stock.setAvailableShares(shareInventory.getAvailable(stock.getSymbol()));
+            }
+        });
+        return stocks.stream()
+                .filter(stock -> stock.getAvailableShares() > 0)
+                .collect(Collectors.toList());
     }
 
     /**
-     * Get stock transaction history for user
+     * Get stock transaction history for user, newest first.
+     * Pages are keyset-based: pass the previous page's cursor to continue.
      */
-    public List<StockTransactionResponse> getUserTransactionHistory(String email, int limit) {
+    public CursorPage<StockTransactionResponse> getUserTransactionHistory(String email, int limit, String cursor) {
+        validateLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+
         List<Account> accounts = accountService.getAccountsByEmail(email);
         List<Long> accountIds = accounts.stream()
                 .map(Account::getId)
                 .collect(Collectors.toList());
 
-        List<StockTransaction> transactions = transactionRepository
-                .findRecentByAccountIds(accountIds, PageRequest.of(0, limit));
+        // Fetch one extra row to know whether another page exists
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<StockTransaction> transactions = after == null
+                ? transactionRepository.findRecentByAccountIds(accountIds, page)
+                : transactionRepository.findRecentByAccountIdsBefore(accountIds, after.getTimestamp(), after.getId(), page);
 
-        return transactions.stream()
-                .map(this::toTransactionResponse)
-                .collect(Collectors.toList());
+        return toCursorPage(transactions, limit);
     }
 
     /**
      * Get specific transaction by reference
      */
     public StockTransactionResponse getTransactionByReference(String transactionReference, String email) {
-        StockTransaction transaction = transactionRepository
-                .findByTransactionReference(transactionReference)
+        StockTransaction transaction = referenceLookup.findStockTransaction(transactionReference)
                 .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + transactionReference));
 
         // Verify user has access to this transaction
-        List<Account> userAccounts = accountService.getAccountsByEmail(email);
-        boolean hasAccess = userAccounts.stream()
-                .anyMatch(acc -> acc.getId().equals(transaction.getAccountId()));
-
-        if (!hasAccess) {
+        if (!referenceLookup.ownsAny(email, transaction.getAccountId())) {
             throw new SecurityException("You do not have permission to view this transaction");
         }
 
-        return toTransactionResponse(transaction);
+        return responseAssembler.toStockTransactionResponse(transaction);
     }
 
     /**
-     * Admin method to get all stock transactions
+     * Admin method to get all stock transactions, keyset-paged like the user history
      */
-    public List<StockTransactionResponse> getAllStockTransactions(int limit) {
-        List<StockTransaction> transactions = transactionRepository.findAllRecent(PageRequest.of(0, limit));
-        return transactions.stream()
-                .map(this::toTransactionResponse)
-                .collect(Collectors.toList());
+    public CursorPage<StockTransactionResponse> getAllStockTransactions(int limit, String cursor) {
+        validateLimit(limit);
+        PageCursor after = PageCursor.decode(cursor);
+
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<StockTransaction> transactions = after == null
+                ? transactionRepository.findAllRecent(page)
+                : transactionRepository.findAllRecentBefore(after.getTimestamp(), after.getId(), page);
+
+        return toCursorPage(transactions, limit);
     }
 
     // Helper methods
 
-    private Account validateAccountOwnership(Long accountId, String email) {
-        Account account = accountService.getAccount(accountId);
+    private void validateLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        if (limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit cannot exceed " + MAX_LIMIT);
+        }
+    }
+
+    private CursorPage<StockTransactionResponse> toCursorPage(List<StockTransaction> transactions, int limit) {
+        String nextCursor = null;
+        if (transactions.size() > limit) {
+            transactions = transactions.subList(0, limit);
+            StockTransaction last = transactions.get(limit - 1);
+            nextCursor = new PageCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new CursorPage<>(responseAssembler.toStockTransactionResponses(transactions), nextCursor);
+    }
+
+    Account validateAccountOwnership(Long accountId, String email) {
+        return validateAccountOwnership(accountService.getAccount(accountId), email);
+    }
+
+    Account validateAccountOwnership(Account account, String email) {
         List<Account> userAccounts = accountService.getAccountsByEmail(email);
 
         boolean ownsAccount = userAccounts.stream()
-                .anyMatch(acc -> acc.getId().equals(accountId));
+                .anyMatch(acc -> acc.getId().equals(account.getId()));
 
         if (!ownsAccount) {
             throw new SecurityException("You do not have permission to trade from this account");
@@ -271,54 +331,26 @@ public class StockService {
         return account;
     }
 
-    private String generateStockTransactionReference() {
-        String datePart = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String uniquePart = UUID.randomUUID().toString().replace("-", "").substring(0, 6).toUpperCase();
-        return "STK-" + datePart + "-" + uniquePart;
+    String generateStockTransactionReference() {
+        return referenceGenerator.stockTransactionReference();
     }
 
-    private StockPortfolioResponse toPortfolioResponse(StockPosition position) {
-        Stock stock = stockRepository.findBySymbol(position.getStockSymbol())
-                .orElseThrow(() -> new IllegalStateException("Stock not found"));
-
-        BigDecimal marketValue = stock.getCurrentPrice()
-                .multiply(BigDecimal.valueOf(position.getTotalShares()));
-        BigDecimal costBasis = position.getAverageCostBasis()
-                .multiply(BigDecimal.valueOf(position.getTotalShares()));
-        BigDecimal profitLoss = marketValue.subtract(costBasis);
+    private StockPortfolioResponse toPortfolioResponse(StockPositionRepository.PortfolioRow row) {
+        BigDecimal costBasis = row.getCostBasis();
+        BigDecimal profitLoss = row.getProfitLoss();
         BigDecimal profitLossPercent = costBasis.compareTo(BigDecimal.ZERO) > 0
                 ? profitLoss.divide(costBasis, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100))
                 : BigDecimal.ZERO;
 
         return StockPortfolioResponse.builder()
-                .stockSymbol(stock.getSymbol())
-                .companyName(stock.getCompanyName())
-                .totalShares(position.getTotalShares())
-                .averageCostBasis(position.getAverageCostBasis())
-                .currentPrice(stock.getCurrentPrice())
-                .marketValue(marketValue)
+                .stockSymbol(row.getStockSymbol())
+                .companyName(row.getCompanyName())
+                .totalShares(row.getTotalShares())
+                .averageCostBasis(row.getAverageCostBasis())
+                .currentPrice(row.getCurrentPrice())
+                .marketValue(row.getMarketValue())
                 .profitLoss(profitLoss)
                 .profitLossPercent(profitLossPercent)
                 .build();
     }
-
-    private StockTransactionResponse toTransactionResponse(StockTransaction transaction) {
-        Account account = accountService.getAccount(transaction.getAccountId());
-        Stock stock = stockRepository.findBySymbol(transaction.getStockSymbol())
-                .orElseThrow(() -> new IllegalStateException("Stock not found"));
-
-        return StockTransactionResponse.builder()
-                .id(transaction.getId())
-                .transactionReference(transaction.getTransactionReference())
-                .stockSymbol(transaction.getStockSymbol())
-                .companyName(stock.getCompanyName())
-                .type(transaction.getType().name())
-                .quantity(transaction.getQuantity())
-                .pricePerShare(transaction.getPricePerShare())
-                .totalAmount(transaction.getTotalAmount())
-                .profitLoss(transaction.getProfitLoss())
-                .timestamp(transaction.getTimestamp())
-                .accountNumber(account.getAccountNumber())
-                .build();
-    }
 }
@@ -0,0 +1,115 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import edu.ssw590.summitwealthbank.dto.StockTransactionResponse;
+import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds transfer and stock-trade DTOs for a whole page of rows at once.
+ *
+ * Every account id referenced by the page is resolved with one IN query (chunked
+ * to stay under driver bind limits) and every symbol through the quote cache,
+ * then the responses are assembled from those maps.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionResponseAssembler {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final AccountRepository accountRepository;
+    private final StockQuoteCache quoteCache;
+
+    public List<TransactionResponse> toTransactionResponses(List<Transaction> transactions) {
+        Set<Long> accountIds = new HashSet<>();
+        for (Transaction transaction : transactions) {
+            addIfPresent(accountIds, transaction.getFromAccountId());
+            addIfPresent(accountIds, transaction.getToAccountId());
+        }
+        Map<Long, String> accountNumbers = loadAccountNumbers(accountIds);
+
+        return transactions.stream()
+                .map(transaction -> TransactionResponse.builder()
+                        .id(transaction.getId())
+                        .transactionReference(transaction.getTransactionReference())
+                        .fromAccountId(transaction.getFromAccountId())
+                        .fromAccountNumber(accountNumbers.get(transaction.getFromAccountId()))
+                        .toAccountId(transaction.getToAccountId())
+                        .toAccountNumber(accountNumbers.get(transaction.getToAccountId()))
+                        .amount(transaction.getAmount())
+                        .description(transaction.getDescription())
+                        .timestamp(transaction.getTimestamp())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public TransactionResponse toTransactionResponse(Transaction transaction) {
+        return toTransactionResponses(List.of(transaction)).get(0);
+    }
+
+    public List<StockTransactionResponse> toStockTransactionResponses(List<StockTransaction> transactions) {
+        Set<Long> accountIds = new HashSet<>();
+        Set<String> symbols = new HashSet<>();
+        for (StockTransaction transaction : transactions) {
+            addIfPresent(accountIds, transaction.getAccountId());
+            symbols.add(transaction.getStockSymbol());
+        }
+        Map<Long, String> accountNumbers = loadAccountNumbers(accountIds);
+        Map<String, StockQuote> quotes = quoteCache.findAll(symbols);
+
+        return transactions.stream()
+                .map(transaction -> {
+                    StockQuote quote = quotes.get(transaction.getStockSymbol());
+                    return StockTransactionResponse.builder()
+                            .id(transaction.getId())
+                            .transactionReference(transaction.getTransactionReference())
+                            .stockSymbol(transaction.getStockSymbol())
+                            // Delisted symbols keep their history, just without a company name
+                            .companyName(quote != null ? quote.getCompanyName() : null)
+                            .type(transaction.getType().name())
+                            .quantity(transaction.getQuantity())
+                            .pricePerShare(transaction.getPricePerShare())
+                            .totalAmount(transaction.getTotalAmount())
+                            .profitLoss(transaction.getProfitLoss())
+                            .timestamp(transaction.getTimestamp())
+                            .accountNumber(accountNumbers.get(transaction.getAccountId()))
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    public StockTransactionResponse toStockTransactionResponse(StockTransaction transaction) {
+        return toStockTransactionResponses(List.of(transaction)).get(0);
+    }
+
+    private Map<Long, String> loadAccountNumbers(Collection<Long> accountIds) {
+        Map<Long, String> accountNumbers = new HashMap<>();
+        List<Long> ids = new ArrayList<>(accountIds);
+        for (int start = 0; start < ids.size(); start += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(start, Math.min(start + IN_CHUNK_SIZE, ids.size()));
+            accountRepository.findAccountNumbersByIdIn(chunk)
+                    .forEach(view -> accountNumbers.put(view.getId(), view.getAccountNumber()));
+        }
+        return accountNumbers;
+    }
+
+    private static <T> void addIfPresent(Set<T> set, T value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+}
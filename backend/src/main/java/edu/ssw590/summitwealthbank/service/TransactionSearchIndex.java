@@ -0,0 +1,348 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.repository.TransactionRepository;
+import edu.ssw590.summitwealthbank.util.AfterCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Free-text search over transfer descriptions, served from memory.
+ *
+ * Each account gets an inverted index: description token -> ascending ids of the
+ * transfers that touch the account and contain it. An account's index is built
+ * from idx_transaction_from_ts_id and idx_transaction_to_ts_id the first time it
+ * is searched, and new transfers are added to indexes already in memory after
+ * their transaction commits. Query words must all match, each as a word prefix,
+ * so "rent jan" finds "Rent January".
+ *
+ * Memory is bounded by app.search.max-accounts and app.search.max-postings (ids
+ * held across all indexes); the least recently searched accounts are evicted
+ * first and rebuilt on their next search.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String LOAD_SQL =
+            "SELECT id, description FROM transaction WHERE from_account_id = ? "
+                    + "UNION ALL SELECT id, description FROM transaction WHERE to_account_id = ?";
+
+    private final AccountService accountService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionResponseAssembler responseAssembler;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.search.max-accounts:10000}")
+    private int maxAccounts;
+
+    @Value("${app.search.max-postings:2000000}")
+    private long maxPostings;
+
+    // Access-ordered, so iteration starts at the least recently searched account; guarded by itself
+    private final LinkedHashMap<Long, AccountIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong postings = new AtomicLong();
+    private Counter builds;
+    private Counter evictions;
+
+    @PostConstruct
+    public void registerMetrics() {
+        builds = Counter.builder("transaction.search.builds")
+                .description("Account indexes built from the database")
+                .register(meterRegistry);
+        evictions = Counter.builder("transaction.search.evictions")
+                .description("Account indexes dropped to stay within the memory bounds")
+                .register(meterRegistry);
+        Gauge.builder("transaction.search.postings", postings, AtomicLong::get)
+                .description("Transaction ids held across all account indexes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * SEARCH FLOW:
+     * 1. Split the query into words and resolve the user's accounts
+     * 2. Match every word against each account's index (built on first use)
+     * 3. Load the newest matching transfers, at most limit of them
+     */
+    public List<TransactionResponse> search(String email, String text, int limit) {
+        // 1. Validate
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        if (limit > TransferHistoryService.MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit cannot exceed " + TransferHistoryService.MAX_LIMIT);
+        }
+        Set<String> words = tokenize(text);
+        if (words.isEmpty()) {
+            throw new IllegalArgumentException("Search text must contain at least one letter or digit");
+        }
+        List<Long> accountIds = accountService.getAccountsByEmail(email).stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+
+        // 2. Match (newest first across accounts; a transfer between two own accounts counts once)
+        TreeSet<Long> matches = new TreeSet<>(Comparator.reverseOrder());
+        for (Long accountId : accountIds) {
+            long[] ids = null;
+            while (ids == null) {
+                // Null when another search evicted the index in between; it is built again
+                ids = indexFor(accountId).match(words);
+            }
+            for (long id : ids) {
+                matches.add(id);
+                if (matches.size() > limit) {
+                    matches.pollLast();
+                }
+            }
+        }
+        evictIfNeeded();
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        // 3. Load
+        List<Transaction> transactions = new ArrayList<>(transactionRepository.findAllById(matches));
+        transactions.sort(Comparator.comparing(Transaction::getId).reversed());
+        return responseAssembler.toTransactionResponses(transactions);
+    }
+
+    /**
+     * Adds a new transfer to the indexes of both its accounts once the current transaction
+     * commits (immediately when there is none). Accounts not in memory are left alone.
+     */
+    public void indexAfterCommit(Transaction transaction) {
+        AfterCommit.run(() -> {
+            add(transaction.getFromAccountId(), transaction);
+            add(transaction.getToAccountId(), transaction);
+        });
+    }
+
+    /**
+     * Drops the indexes of the given accounts once the current transaction commits, for writers
+     * that insert transfers without reading back their ids; they are rebuilt on their next search.
+     */
+    public void invalidateAfterCommit(Collection<Long> accountIds) {
+        List<Long> ids = List.copyOf(accountIds);
+        AfterCommit.run(() -> {
+            List<AccountIndex> dropped = new ArrayList<>();
+            synchronized (indexes) {
+                for (Long accountId : ids) {
+                    AccountIndex index = indexes.remove(accountId);
+                    if (index != null) {
+                        dropped.add(index);
+                    }
+                }
+            }
+            dropped.forEach(this::release);
+        });
+    }
+
+    /**
+     * Lower-cased words of a description, in order and without repeats.
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // Helper methods
+
+    private AccountIndex indexFor(Long accountId) {
+        AccountIndex index;
+        synchronized (indexes) {
+            index = indexes.computeIfAbsent(accountId, id -> new AccountIndex());
+        }
+        synchronized (index) {
+            if (!index.ready && !index.released) {
+                build(accountId, index);
+            }
+        }
+        return index;
+    }
+
+    // Runs under the index lock, so commits that land meanwhile wait in add() and are merged afterwards
+    private void build(Long accountId, AccountIndex index) {
+        Map<String, List<Long>> loaded = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL, resultSet -> {
+            long id = resultSet.getLong(1);
+            for (String word : tokenize(resultSet.getString(2))) {
+                loaded.computeIfAbsent(word, w -> new ArrayList<>()).add(id);
+            }
+        }, accountId, accountId);
+
+        for (Map.Entry<String, List<Long>> entry : loaded.entrySet()) {
+            long[] ids = entry.getValue().stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            index.words.put(entry.getKey(), new Postings(ids));
+            index.size += ids.length;
+        }
+        index.ready = true;
+        postings.addAndGet(index.size);
+        builds.increment();
+    }
+
+    private void add(Long accountId, Transaction transaction) {
+        if (accountId == null) {
+            return;
+        }
+        AccountIndex index;
+        synchronized (indexes) {
+            // Counts as a use: accounts still receiving transfers stay warm
+            index = indexes.get(accountId);
+        }
+        if (index == null) {
+            return;
+        }
+        synchronized (index) {
+            // Not built yet: the build starts after this commit, so its query will see the row
+            if (!index.ready || index.released) {
+                return;
+            }
+            int added = 0;
+            for (String word : tokenize(transaction.getDescription())) {
+                if (index.words.computeIfAbsent(word, w -> new Postings(new long[0])).add(transaction.getId())) {
+                    added++;
+                }
+            }
+            index.size += added;
+            postings.addAndGet(added);
+        }
+    }
+
+    private void evictIfNeeded() {
+        List<AccountIndex> evicted = new ArrayList<>();
+        synchronized (indexes) {
+            long remaining = postings.get();
+            Iterator<AccountIndex> eldest = indexes.values().iterator();
+            while (eldest.hasNext() && (indexes.size() > maxAccounts || remaining > maxPostings)) {
+                AccountIndex index = eldest.next();
+                eldest.remove();
+                remaining -= index.size;
+                evicted.add(index);
+            }
+        }
+        // Released outside the map lock: the order elsewhere is map, then index, never both at once
+        evicted.forEach(this::release);
+        evictions.increment(evicted.size());
+    }
+
+    private void release(AccountIndex index) {
+        synchronized (index) {
+            index.released = true;
+            postings.addAndGet(-index.size);
+            index.words.clear();
+            index.size = 0;
+        }
+    }
+
+    private static final class AccountIndex {
+        private final NavigableMap<String, Postings> words = new TreeMap<>();
+        private long size;
+        private boolean ready;
+        private boolean released;
+
+        // Ids containing every word as a prefix of one of their tokens; null once evicted
+        private synchronized long[] match(Set<String> prefixes) {
+            if (released) {
+                return null;
+            }
+            long[] result = new long[0];
+            boolean first = true;
+            for (String prefix : prefixes) {
+                TreeSet<Long> ids = new TreeSet<>();
+                for (Postings postings : words.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                    for (int i = 0; i < postings.size; i++) {
+                        ids.add(postings.ids[i]);
+                    }
+                }
+                long[] current = ids.stream().mapToLong(Long::longValue).toArray();
+                result = first ? current : intersect(result, current);
+                first = false;
+                if (result.length == 0) {
+                    break;
+                }
+            }
+            return result;
+        }
+
+        private static long[] intersect(long[] a, long[] b) {
+            long[] out = new long[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+
+    // Sorted, duplicate-free ids of one word; new transfers almost always append at the end
+    private static final class Postings {
+        private long[] ids;
+        private int size;
+
+        private Postings(long[] ids) {
+            this.ids = ids;
+            this.size = ids.length;
+        }
+
+        private boolean add(long id) {
+            int position = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                position = -position - 1;
+            } else if (position < size) {
+                return false;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(4, size * 2));
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+            return true;
+        }
+    }
+}
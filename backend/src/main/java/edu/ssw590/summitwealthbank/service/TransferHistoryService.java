@@ -0,0 +1,168 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.CursorPage;
+import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.dto.TransferHistoryQuery;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Filtered, keyset-paged transfer history for a user's accounts, newest first.
+ *
+ * "from or to is one of my accounts" cannot be served by a single index, so
+ * the query is split into one branch per account and side: outgoing rows come
+ * from idx_transaction_from_ts_id, incoming ones from idx_transaction_to_ts_id.
+ * Each branch pins the leading index column to a single account id, so it walks
+ * its index backwards from the cursor and stops after one page; an IN list over
+ * several accounts would make the database merge or sort the ranges before the
+ * LIMIT applies. The pages are merged with UNION ALL (incoming branches skip
+ * transfers between the user's own accounts, which the outgoing ones already
+ * returned), so the work per page is bounded by the page size times the number
+ * of branches, not by the size of the table.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransferHistoryService {
+
+    static final int MAX_LIMIT = 500;
+
+    private static final String COLUMNS =
+            "id, transaction_reference, from_account_id, to_account_id, amount, description, timestamp";
+    private static final String ORDER = " ORDER BY timestamp DESC, id DESC LIMIT :limit";
+
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> Transaction.builder()
+            .id(rs.getLong("id"))
+            .transactionReference(rs.getString("transaction_reference"))
+            .fromAccountId(rs.getObject("from_account_id", Long.class))
+            .toAccountId(rs.getObject("to_account_id", Long.class))
+            .amount(rs.getBigDecimal("amount"))
+            .description(rs.getString("description"))
+            .timestamp(rs.getTimestamp("timestamp").toLocalDateTime())
+            .build();
+
+    private final AccountService accountService;
+    private final TransactionResponseAssembler responseAssembler;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * HISTORY FLOW:
+     * 1. Validate the filters and resolve the accounts (one of the user's, or all of them)
+     * 2. Query one index-ordered branch per account and direction, each limited to a page
+     * 3. Merge the branches and cut the page, returning a cursor when more rows exist
+     */
+    public CursorPage<TransactionResponse> getHistory(String email, TransferHistoryQuery query) {
+        // 1. Validate
+        validate(query);
+        PageCursor after = PageCursor.decode(query.getCursor());
+
+        List<Long> accountIds = accountService.getAccountsByEmail(email).stream()
+                .map(Account::getId)
+                .collect(Collectors.toList());
+        if (query.getAccountId() != null) {
+            if (!accountIds.contains(query.getAccountId())) {
+                throw new SecurityException("You do not have permission to view this account");
+            }
+            accountIds = List.of(query.getAccountId());
+        }
+        if (accountIds.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // 2. Query (one extra row tells whether another page exists)
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountIds", accountIds)
+                .addValue("limit", query.getLimit() + 1);
+        String filters = filters(query, after, params);
+
+        List<String> branches = new ArrayList<>();
+        for (int i = 0; i < accountIds.size(); i++) {
+            params.addValue("account" + i, accountIds.get(i));
+            if (query.getDirection() != TransferHistoryQuery.Direction.IN) {
+                branches.add(branch("from_account_id", i, filters, false));
+            }
+            if (query.getDirection() != TransferHistoryQuery.Direction.OUT) {
+                branches.add(branch("to_account_id", i, filters,
+                        query.getDirection() == TransferHistoryQuery.Direction.ALL));
+            }
+        }
+        String sql = branches.size() == 1
+                ? branches.get(0)
+                : "SELECT " + COLUMNS + " FROM (" + branches.stream()
+                        .map(branch -> "(" + branch + ")")
+                        .collect(Collectors.joining(" UNION ALL ")) + ") history" + ORDER;
+        List<Transaction> transactions = jdbcTemplate.query(sql, params, ROW_MAPPER);
+
+        // 3. Page
+        String nextCursor = null;
+        if (transactions.size() > query.getLimit()) {
+            transactions = transactions.subList(0, query.getLimit());
+            Transaction last = transactions.get(query.getLimit() - 1);
+            nextCursor = new PageCursor(last.getTimestamp(), last.getId()).encode();
+        }
+        return new CursorPage<>(responseAssembler.toTransactionResponses(transactions), nextCursor);
+    }
+
+    // Helper methods
+
+    private static String branch(String accountColumn, int account, String filters, boolean skipOwnOutgoing) {
+        return "SELECT " + COLUMNS + " FROM transaction WHERE " + accountColumn + " = :account" + account
+                + (skipOwnOutgoing ? " AND from_account_id NOT IN (:accountIds)" : "")
+                + filters + ORDER;
+    }
+
+    private static String filters(TransferHistoryQuery query, PageCursor after, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder();
+        if (query.getFrom() != null) {
+            sql.append(" AND timestamp >= :from");
+            params.addValue("from", query.getFrom());
+        }
+        if (query.getTo() != null) {
+            sql.append(" AND timestamp < :to");
+            params.addValue("to", query.getTo());
+        }
+        if (query.getMinAmount() != null) {
+            sql.append(" AND amount >= :minAmount");
+            params.addValue("minAmount", query.getMinAmount());
+        }
+        if (query.getMaxAmount() != null) {
+            sql.append(" AND amount <= :maxAmount");
+            params.addValue("maxAmount", query.getMaxAmount());
+        }
+        if (after != null) {
+            // Keyset page after (timestamp, id)
+            sql.append(" AND timestamp <= :cursorTimestamp AND (timestamp < :cursorTimestamp OR id < :cursorId)");
+            params.addValue("cursorTimestamp", after.getTimestamp());
+            params.addValue("cursorId", after.getId());
+        }
+        return sql.toString();
+    }
+
+    private static void validate(TransferHistoryQuery query) {
+        if (query.getLimit() <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        if (query.getLimit() > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit cannot exceed " + MAX_LIMIT);
+        }
+        if (query.getDirection() == null) {
+            throw new IllegalArgumentException("Direction must be IN, OUT or ALL");
+        }
+        if (query.getFrom() != null && query.getTo() != null && !query.getFrom().isBefore(query.getTo())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        if (query.getMinAmount() != null && query.getMaxAmount() != null
+                && query.getMinAmount().compareTo(query.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount cannot exceed maxAmount");
+        }
+    }
+}
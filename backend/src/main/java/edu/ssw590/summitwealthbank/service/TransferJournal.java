@@ -0,0 +1,287 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.repository.TransactionRepository;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Opt-in group commit for transfers (app.transfers.group-commit.enabled).
+ *
+ * Callers queue their already validated transfer and wait. A single writer
+ * thread collects whatever arrives within app.transfers.group-commit.window-ms
+ * of the first request (at most max-batch of them) and applies them all in one
+ * database transaction: each is a conditional debit, a credit, their ledger
+ * entries and the Transaction row, exactly as in the conditional mode of {@link ConcurrencyControl}.
+ * Every caller is released once that single commit lands, so many transfers
+ * share the cost of one synchronous commit.
+ *
+ * A transfer the group could not apply (insufficient funds, frozen or foreign
+ * account) is handed back, and so is the whole group if its commit fails; the
+ * caller then runs the direct path, which reports the precise error or retries.
+ * A caller that waits longer than app.transfers.group-commit.wait-timeout-ms
+ * withdraws its transfer and runs it directly, unless the writer has already
+ * taken it into a group; that group always completes, even if the writer fails.
+ *
+ * Each group is applied in order of the lower account id of each transfer, so
+ * groups take row locks in roughly the id order the direct path uses.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TransferJournal {
+
+    private final ConcurrencyControl concurrencyControl;
+    private final TransactionRepository transactionRepository;
+    private final ReferenceGenerator referenceGenerator;
+    private final LedgerService ledgerService;
+    private final TransactionSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.transfers.group-commit.enabled:false}")
+    private volatile boolean enabled;
+
+    @Value("${app.transfers.group-commit.window-ms:2}")
+    private long windowMs;
+
+    @Value("${app.transfers.group-commit.max-batch:256}")
+    private int maxBatch;
+
+    @Value("${app.transfers.group-commit.wait-timeout-ms:1000}")
+    private long waitTimeoutMs;
+
+    private static final Comparator<Pending> LOCK_ORDER = Comparator.comparingLong(pending ->
+            Math.min(pending.request.getFromAccountId(), pending.request.getToAccountId()));
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private Thread writer;
+    private volatile boolean stopped;
+    private Timer commitTimer;
+    private DistributionSummary groupSize;
+    private Counter handedBack;
+    private Counter failedCommits;
+
+    @PostConstruct
+    public void start() {
+        commitTimer = Timer.builder("transfer.group.commit")
+                .description("Time to apply and commit one group of transfers")
+                .register(meterRegistry);
+        groupSize = DistributionSummary.builder("transfer.group.size")
+                .description("Transfers committed together")
+                .register(meterRegistry);
+        handedBack = Counter.builder("transfer.group.handed-back")
+                .description("Transfers returned to the direct path")
+                .register(meterRegistry);
+        failedCommits = Counter.builder("transfer.group.failed")
+                .description("Groups whose commit failed")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Queues a validated transfer and waits for its group to commit. Returns null when the
+     * group did not apply it, in which case the caller must run the transfer itself.
+     */
+    public Transaction submit(TransferRequest request, String email) {
+        if (!ensureRunning()) {
+            return null;
+        }
+        Pending pending = new Pending(request, email);
+        queue.add(pending);
+        if (stopped && queue.remove(pending)) {
+            // Shut down while queuing; the writer will never see it
+            return null;
+        }
+        return await(pending);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        stopped = true;
+        if (writer != null) {
+            writer.interrupt();
+        }
+        handBack(drain());
+    }
+
+    // Helper methods
+
+    private synchronized boolean ensureRunning() {
+        if (stopped) {
+            return false;
+        }
+        if (writer == null || !writer.isAlive()) {
+            writer = new Thread(this::writeLoop, "transfer-journal");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        return true;
+    }
+
+    private Transaction await(Pending pending) {
+        boolean interrupted = false;
+        try {
+            return pending.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Transfer waited {} ms for its group", waitTimeoutMs);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } catch (ExecutionException e) {
+            // Results are only ever completed normally
+            return null;
+        }
+        try {
+            if (pending.taken.compareAndSet(false, true)) {
+                // The writer never saw it, so the direct path cannot apply it twice
+                queue.remove(pending);
+                handedBack.increment();
+                return null;
+            }
+            // Already in a group being committed; the writer completes it whatever happens
+            return pending.result.join();
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (!stopped) {
+            List<Pending> group = new ArrayList<>();
+            try {
+                group.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (group.size() < maxBatch) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                // Skip transfers whose callers gave up waiting
+                group.removeIf(pending -> !pending.taken.compareAndSet(false, true));
+                group.sort(LOCK_ORDER);
+                commit(group);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Transfer journal failed on a group of {} transfers", group.size(), e);
+            } finally {
+                // No caller is ever left waiting on a group, whatever the writer ran into
+                handBack(group);
+            }
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        List<Pending> applied = new ArrayList<>(group.size());
+        try {
+            commitTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                applied.clear();
+                for (Pending pending : group) {
+                    pending.transaction = apply(pending.request, pending.email);
+                    if (pending.transaction != null) {
+                        applied.add(pending);
+                    }
+                }
+            }));
+        } catch (RuntimeException e) {
+            failedCommits.increment();
+            log.warn("Group commit of {} transfers failed, running them directly: {}", group.size(), e.getMessage());
+            handBack(group);
+            return;
+        }
+        groupSize.record(applied.size());
+        for (Pending pending : group) {
+            if (pending.transaction != null) {
+                pending.result.complete(pending.transaction);
+            } else {
+                handedBack.increment();
+                pending.result.complete(null);
+            }
+        }
+    }
+
+    // Debit first and undo it if the credit is refused; the debited row stays locked until commit
+    private Transaction apply(TransferRequest request, String email) {
+        if (!concurrencyControl.tryDebitOwned(request.getFromAccountId(), email, request.getAmount())) {
+            return null;
+        }
+        if (!concurrencyControl.tryCredit(request.getToAccountId(), request.getAmount())) {
+            concurrencyControl.tryCredit(request.getFromAccountId(), request.getAmount());
+            return null;
+        }
+        String reference = referenceGenerator.transactionReference();
+        ledgerService.postTransfer(request.getFromAccountId(), request.getToAccountId(), request.getAmount(),
+                reference);
+        Transaction saved = transactionRepository.save(Transaction.builder()
+                .transactionReference(reference)
+                .fromAccountId(request.getFromAccountId())
+                .toAccountId(request.getToAccountId())
+                .amount(request.getAmount())
+                .description(request.getDescription())
+                .timestamp(LocalDateTime.now())
+                .build());
+        searchIndex.indexAfterCommit(saved);
+        return saved;
+    }
+
+    private List<Pending> drain() {
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        return rest;
+    }
+
+    private void handBack(List<Pending> group) {
+        for (Pending pending : group) {
+            if (pending.result.complete(null)) {
+                handedBack.increment();
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final TransferRequest request;
+        private final String email;
+        private final CompletableFuture<Transaction> result = new CompletableFuture<>();
+        // Set by the writer when it takes the transfer into a group, or by a caller withdrawing it
+        private final AtomicBoolean taken = new AtomicBoolean();
+        private Transaction transaction;
+
+        private Pending(TransferRequest request, String email) {
+            this.request = request;
+            this.email = email;
+        }
+    }
+}
@@ -1,20 +1,21 @@
 package edu.ssw590.summitwealthbank.service;
 
 import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.dto.TransferHistoryQuery;
 import edu.ssw590.summitwealthbank.dto.TransferRequest;
 import edu.ssw590.summitwealthbank.model.Account;
 import edu.ssw590.summitwealthbank.model.Transaction;
 import edu.ssw590.summitwealthbank.repository.TransactionRepository;
+import edu.ssw590.summitwealthbank.util.ReferenceGenerator;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +23,14 @@ public class TransferService {
 
     private final AccountService accountService;
     private final TransactionRepository transactionRepository;
+    private final TransactionResponseAssembler responseAssembler;
+    private final ReferenceGenerator referenceGenerator;
+    private final ConcurrencyControl concurrencyControl;
+    private final TransferJournal transferJournal;
+    private final LedgerService ledgerService;
+    private final TransferHistoryService transferHistoryService;
+    private final TransactionSearchIndex searchIndex;
+    private final ReferenceLookupService referenceLookup;
 
     public Transaction transfer(TransferRequest request, String email) {
         // Validate request
@@ -41,8 +50,26 @@ public class TransferService {
             throw new IllegalArgumentException("Cannot transfer to the same account");
         }
 
-        Account from = accountService.getAccount(request.getFromAccountId());
-        Account to = accountService.getAccount(request.getToAccountId());
+        // Group commit, unless a caller's transaction must own the write
+        if (transferJournal.isEnabled() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            Transaction journaled = transferJournal.submit(request, email);
+            if (journaled != null) {
+                return journaled;
+            }
+        }
+
+        return concurrencyControl.execute("transfer", Arrays.asList(request.getFromAccountId(), request.getToAccountId()),
+                () -> applyTransfer(request, email));
+    }
+
+    private Transaction applyTransfer(TransferRequest request, String email) {
+        if (concurrencyControl.getMode() == ConcurrencyControl.Mode.CONDITIONAL) {
+            return applyConditionalTransfer(request, email);
+        }
+
+        Account[] accounts = concurrencyControl.loadAccounts(request.getFromAccountId(), request.getToAccountId());
+        Account from = accounts[0];
+        Account to = accounts[1];
 
         // Verify ownership - user must own the source account
         List<Account> userAccounts = accountService.getAccountsByEmail(email);
@@ -71,26 +98,77 @@ public class TransferService {
         accountService.saveAccount(from);
         accountService.saveAccount(to);
 
-        // Generate unique transaction reference
-        String transactionReference = generateTransactionReference();
+        return recordTransfer(request, generateTransactionReference());
+    }
+
+    /**
+     * Fast path: one conditional UPDATE debits the source (checking ownership, frozen status
+     * and funds in its WHERE clause), one credits the destination, one inserts the record.
+     * Nothing is read unless an update is refused, and then only to report why.
+     */
+    private Transaction applyConditionalTransfer(TransferRequest request, String email) {
+        Long fromId = request.getFromAccountId();
+        Long toId = request.getToAccountId();
+        BigDecimal amount = request.getAmount();
+
+        // Lower id first, as in the locking modes, so opposite transfers cannot deadlock on row locks
+        if (fromId < toId) {
+            debitSource(fromId, email, amount);
+            creditDestination(toId, amount);
+        } else {
+            creditDestination(toId, amount);
+            debitSource(fromId, email, amount);
+        }
+
+        return recordTransfer(request, generateTransactionReference());
+    }
+
+    void debitSource(Long fromId, String email, BigDecimal amount) {
+        if (concurrencyControl.tryDebitOwned(fromId, email, amount)) {
+            return;
+        }
+        Account from = accountService.getAccount(fromId);
+        boolean ownsFromAccount = accountService.getAccountsByEmail(email).stream()
+                .anyMatch(acc -> acc.getId().equals(fromId));
+        if (!ownsFromAccount) {
+            throw new SecurityException("You do not have permission to transfer from this account");
+        }
+        if (from.isFrozen()) {
+            throw new IllegalStateException("Source account is frozen. Please contact support.");
+        }
+        throw new IllegalArgumentException("Insufficient funds in source account");
+    }
+
+    private void creditDestination(Long toId, BigDecimal amount) {
+        if (concurrencyControl.tryCredit(toId, amount)) {
+            return;
+        }
+        // Throws when the account does not exist; otherwise it is frozen
+        accountService.getAccount(toId);
+        throw new IllegalStateException("Destination account is frozen. Transfer cannot be completed.");
+    }
+
+    private Transaction recordTransfer(TransferRequest request, String transactionReference) {
+        ledgerService.postTransfer(request.getFromAccountId(), request.getToAccountId(), request.getAmount(),
+                transactionReference);
 
         Transaction tx = Transaction.builder()
                 .transactionReference(transactionReference)
-                .fromAccountId(from.getId())
-                .toAccountId(to.getId())
+                .fromAccountId(request.getFromAccountId())
+                .toAccountId(request.getToAccountId())
                 .amount(request.getAmount())
                 .description(request.getDescription())
                 .timestamp(LocalDateTime.now())
                 .build();
 
-        return transactionRepository.save(tx);
+        Transaction saved = transactionRepository.save(tx);
+        searchIndex.indexAfterCommit(saved);
+        return saved;
     }
 
     private String generateTransactionReference() {
         // Format: TXN-YYYYMMDD-XXXXXX (e.g., TXN-20251202-A3F9B2)
-        String datePart = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String uniquePart = UUID.randomUUID().toString().replace("-", "").substring(0, 6).toUpperCase();
-        return "TXN-" + datePart + "-" + uniquePart;
+        return referenceGenerator.transactionReference();
     }
 
     public List<Transaction> getTransactions(Long accountId) {
@@ -98,67 +176,35 @@ public class TransferService {
     }
 
     public List<TransactionResponse> getRecentTransactionsByEmail(String email, int limit) {
-        List<Account> accounts = accountService.getAccountsByEmail(email);
-
-        if (accounts.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        List<Long> accountIds = accounts.stream()
-                .map(Account::getId)
-                .collect(Collectors.toList());
-
-        List<Transaction> transactions = transactionRepository.findRecentByAccountIds(accountIds, PageRequest.of(0, limit));
-
-        // Convert to TransactionResponse with account numbers
-        return transactions.stream()
-                .map(this::toTransactionResponse)
-                .collect(Collectors.toList());
-    }
-
-    private TransactionResponse toTransactionResponse(Transaction transaction) {
-        // Fetch account details to get account numbers
-        Account fromAccount = accountService.getAccount(transaction.getFromAccountId());
-        Account toAccount = accountService.getAccount(transaction.getToAccountId());
-
-        return TransactionResponse.builder()
-                .id(transaction.getId())
-                .transactionReference(transaction.getTransactionReference())
-                .fromAccountId(transaction.getFromAccountId())
-                .fromAccountNumber(fromAccount.getAccountNumber())
-                .toAccountId(transaction.getToAccountId())
-                .toAccountNumber(toAccount.getAccountNumber())
-                .amount(transaction.getAmount())
-                .description(transaction.getDescription())
-                .timestamp(transaction.getTimestamp())
-                .build();
+        // Newest page of the unfiltered history (index-backed per side instead of an OR over both columns),
+        // which rejects a limit outside 1..MAX_LIMIT
+        return transferHistoryService.getHistory(email, TransferHistoryQuery.builder()
+                .limit(limit)
+                .build()).getItems();
     }
 
     public TransactionResponse searchByReference(String transactionReference, String email) {
-        Transaction transaction = transactionRepository.findByTransactionReference(transactionReference)
+        // Unknown references are turned away in memory; recently viewed ones come from a cache
+        Transaction transaction = referenceLookup.findTransfer(transactionReference)
                 .orElseThrow(() -> new IllegalArgumentException("Transaction not found with reference: " + transactionReference));
 
         // Verify user has access to this transaction
-        List<Account> userAccounts = accountService.getAccountsByEmail(email);
-        List<Long> userAccountIds = userAccounts.stream()
-                .map(Account::getId)
-                .collect(Collectors.toList());
-
-        boolean hasAccess = userAccountIds.contains(transaction.getFromAccountId())
-                || userAccountIds.contains(transaction.getToAccountId());
-
-        if (!hasAccess) {
+        if (!referenceLookup.ownsAny(email, transaction.getFromAccountId(), transaction.getToAccountId())) {
             throw new SecurityException("You do not have permission to view this transaction");
         }
 
-        return toTransactionResponse(transaction);
+        return responseAssembler.toTransactionResponse(transaction);
     }
 
     // Admin method to get all transactions
     public List<TransactionResponse> getAllTransactions(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        if (limit > TransferHistoryService.MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit cannot exceed " + TransferHistoryService.MAX_LIMIT);
+        }
         List<Transaction> transactions = transactionRepository.findAllRecent(PageRequest.of(0, limit));
-        return transactions.stream()
-                .map(this::toTransactionResponse)
-                .collect(Collectors.toList());
+        return responseAssembler.toTransactionResponses(transactions);
     }
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
 package edu.ssw590.summitwealthbank.service;
 
 import edu.ssw590.summitwealthbank.dto.RiskScoreRequest;
-import edu.ssw590.summitwealthbank.dto.StockPortfolioResponse;
 import edu.ssw590.summitwealthbank.dto.TotalWealthResponse;
 import edu.ssw590.summitwealthbank.dto.WealthActionRequest;
 import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
 import edu.ssw590.summitwealthbank.model.WealthPortfolio;
 import edu.ssw590.summitwealthbank.repository.WealthPortfolioRepository;
 import edu.ssw590.summitwealthbank.util.ETFPriceSimulator;
@@ -13,6 +13,7 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -23,7 +24,9 @@ public class WealthService {
 
     private final AccountService accountService;
     private final WealthPortfolioRepository wealthPortfolioRepository;
-    private final StockService stockService;
+    private final PortfolioValuationIndex valuationIndex;
+    private final ConcurrencyControl concurrencyControl;
+    private final LedgerService ledgerService;
 
     public WealthPortfolio setRiskScore(RiskScoreRequest req) {
         BigDecimal stock = BigDecimal.valueOf(req.getRiskScore() * 20); // 1→20%, 5→100%
@@ -44,11 +47,13 @@ public class WealthService {
     }
 
     public WealthPortfolio buy(WealthActionRequest req) {
-        Account acc = accountService.getAccount(req.getAccountId());
+        return concurrencyControl.execute("wealth.buy", Arrays.asList(req.getAccountId()), () -> applyBuy(req));
+    }
 
-        if (acc.getBalance().compareTo(req.getAmount()) < 0) {
-            throw new IllegalArgumentException("Not enough cash");
-        }
+    private WealthPortfolio applyBuy(WealthActionRequest req) {
+        // Checks and takes the cash in one step (a single conditional UPDATE in CONDITIONAL mode)
+        concurrencyControl.debit(req.getAccountId(), req.getAmount(), "Not enough cash");
+        ledgerService.post(req.getAccountId(), req.getAmount().negate(), LedgerEntry.Kind.WEALTH_BUY, null);
 
         WealthPortfolio p = wealthPortfolioRepository.findByAccountId(req.getAccountId())
                 .orElseThrow(() -> new IllegalStateException("Portfolio not found"));
@@ -62,15 +67,14 @@ public class WealthService {
         p.setStockUnits(p.getStockUnits().add(stockAmount.divide(stockPrice, 4, RoundingMode.HALF_UP)));
         p.setBondUnits(p.getBondUnits().add(bondAmount.divide(bondPrice, 4, RoundingMode.HALF_UP)));
 
-        acc.setBalance(acc.getBalance().subtract(req.getAmount()));
-        accountService.saveAccount(acc);
-
         return wealthPortfolioRepository.save(p);
     }
 
     public WealthPortfolio sell(WealthActionRequest req) {
-        Account acc = accountService.getAccount(req.getAccountId());
+        return concurrencyControl.execute("wealth.sell", Arrays.asList(req.getAccountId()), () -> applySell(req));
+    }
 
+    private WealthPortfolio applySell(WealthActionRequest req) {
         WealthPortfolio p = wealthPortfolioRepository.findByAccountId(req.getAccountId())
                 .orElseThrow(() -> new IllegalStateException("Portfolio not found"));
 
@@ -89,11 +93,11 @@ public class WealthService {
 
         p.setStockUnits(p.getStockUnits().multiply(BigDecimal.ONE.subtract(sellRatio)));
         p.setBondUnits(p.getBondUnits().multiply(BigDecimal.ONE.subtract(sellRatio)));
+        WealthPortfolio saved = wealthPortfolioRepository.save(p);
 
-        acc.setBalance(acc.getBalance().add(req.getAmount()));
-        accountService.saveAccount(acc);
-
-        return wealthPortfolioRepository.save(p);
+        concurrencyControl.credit(req.getAccountId(), req.getAmount());
+        ledgerService.post(req.getAccountId(), req.getAmount(), LedgerEntry.Kind.WEALTH_SELL, null);
+        return saved;
     }
 
     public BigDecimal getPortfolioValue(Long accountId) {
@@ -138,11 +142,10 @@ public class WealthService {
                 .map(Account::getBalance)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-        // Get stock portfolio value
-        List<StockPortfolioResponse> stockPortfolio = stockService.getUserPortfolio(email);
-        BigDecimal stockPortfolioValue = stockPortfolio.stream()
-                .map(StockPortfolioResponse::getMarketValue)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Get stock portfolio value (maintained incrementally by the valuation index)
+        BigDecimal stockPortfolioValue = valuationIndex.getMarketValue(accounts.stream()
+                .map(Account::getId)
+                .collect(Collectors.toList()));
 
         // Calculate total wealth
         BigDecimal totalWealth = checkingBalance
@@ -0,0 +1,72 @@
+package edu.ssw590.summitwealthbank.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary layout of a persisted candle block: per candle, the start as seconds
+ * after the block start (int), open, high, low and close in cents (long) and
+ * the tick count (int). Candles are in start order.
+ */
+public final class CandleBlocks {
+
+    public static final int CANDLE_BYTES = 4 + 4 * 8 + 4;
+
+    // Most candles packed into one block: a day of minutes
+    public static final int MAX_CANDLES = 1440;
+
+    private CandleBlocks() {
+    }
+
+    public static final class Writer {
+        private final long blockStart;
+        private final ByteBuffer buffer;
+        private int count;
+        private long lastStart;
+
+        public Writer(long blockStart, int capacity) {
+            this.blockStart = blockStart;
+            this.buffer = ByteBuffer.allocate(capacity * CANDLE_BYTES);
+        }
+
+        public void add(long start, long open, long high, long low, long close, int ticks) {
+            buffer.putInt(Math.toIntExact(start - blockStart))
+                    .putLong(open)
+                    .putLong(high)
+                    .putLong(low)
+                    .putLong(close)
+                    .putInt(ticks);
+            lastStart = start;
+            count++;
+        }
+
+        public boolean isFull() {
+            return buffer.remaining() < CANDLE_BYTES;
+        }
+
+        public long getBlockStart() {
+            return blockStart;
+        }
+
+        public long getLastStart() {
+            return lastStart;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public byte[] toBytes() {
+            byte[] bytes = new byte[buffer.position()];
+            buffer.get(0, bytes);
+            return bytes;
+        }
+    }
+
+    public static void read(byte[] data, long blockStart, CandleRing.CandleVisitor visitor) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.remaining() >= CANDLE_BYTES) {
+            visitor.accept(blockStart + buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                    buffer.getLong(), buffer.getInt());
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package edu.ssw590.summitwealthbank.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-capacity ring of OHLC candles for one symbol and one interval.
+ *
+ * Candles are stored column-wise in primitive arrays (bucket start in epoch
+ * seconds, prices in cents) that grow on demand up to the capacity, after
+ * which the oldest candle is overwritten. Ticks only ever update the newest
+ * candle or open a new one, so the candles changed since the last drain are
+ * always a suffix of the ring.
+ *
+ * Not thread-safe: callers serialise access per ring.
+ */
+public class CandleRing {
+
+    public enum Interval {
+        ONE_MINUTE("1m", 60),
+        ONE_HOUR("1h", 3600),
+        ONE_DAY("1d", 86400);
+
+        private final String code;
+        private final long seconds;
+
+        Interval(String code, long seconds) {
+            this.code = code;
+            this.seconds = seconds;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public long getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * Start of the bucket holding the given instant. Days start at local midnight.
+         */
+        public long bucketStart(long epochSecond, ZoneId zone) {
+            if (this == ONE_DAY) {
+                LocalDate day = Instant.ofEpochSecond(epochSecond).atZone(zone).toLocalDate();
+                return day.atStartOfDay(zone).toEpochSecond();
+            }
+            return Math.floorDiv(epochSecond, seconds) * seconds;
+        }
+
+        public static Interval fromCode(String code) {
+            for (Interval interval : values()) {
+                if (interval.code.equals(code.toLowerCase(Locale.ROOT))) {
+                    return interval;
+                }
+            }
+            throw new IllegalArgumentException("Unknown interval: " + code + ". Use 1m, 1h or 1d");
+        }
+    }
+
+    @FunctionalInterface
+    public interface CandleVisitor {
+        void accept(long start, long open, long high, long low, long close, int ticks);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int capacity;
+    private long[] start;
+    private long[] open;
+    private long[] high;
+    private long[] low;
+    private long[] close;
+    private int[] ticks;
+    // Index of the oldest candle
+    private int head;
+    private int size;
+    // Start of the oldest candle changed since the last drain
+    private long dirtyFrom = Long.MAX_VALUE;
+
+    public CandleRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        allocate(Math.min(INITIAL_CAPACITY, capacity));
+    }
+
+    /**
+     * Applies a tick at the given price (cents) to the candle of the given bucket.
+     * A tick for a bucket older than the newest candle is folded into the newest.
+     */
+    public void add(long bucketStart, long price) {
+        if (size > 0) {
+            int last = index(size - 1);
+            if (bucketStart <= start[last]) {
+                high[last] = Math.max(high[last], price);
+                low[last] = Math.min(low[last], price);
+                close[last] = price;
+                ticks[last]++;
+                markDirty(start[last]);
+                return;
+            }
+        }
+        append(bucketStart, price, price, price, price, 1);
+        markDirty(bucketStart);
+    }
+
+    /**
+     * Merges a previously persisted candle back into the ring without marking it dirty.
+     * It is appended when newer than the newest candle and combined with the newest when
+     * both cover the same bucket (the persisted one came first, so it supplies the open).
+     * Older candles are ignored.
+     */
+    public void restore(long bucketStart, long open, long high, long low, long close, int ticks) {
+        if (size > 0) {
+            int last = index(size - 1);
+            if (bucketStart < start[last]) {
+                return;
+            }
+            if (bucketStart == start[last]) {
+                this.open[last] = open;
+                this.high[last] = Math.max(this.high[last], high);
+                this.low[last] = Math.min(this.low[last], low);
+                this.ticks[last] += ticks;
+                return;
+            }
+        }
+        append(bucketStart, open, high, low, close, ticks);
+    }
+
+    /**
+     * Visits candles with fromInclusive <= start < toExclusive, oldest first.
+     */
+    public void forEach(long fromInclusive, long toExclusive, CandleVisitor visitor) {
+        for (int i = firstAtOrAfter(fromInclusive); i < size; i++) {
+            int at = index(i);
+            if (start[at] >= toExclusive) {
+                break;
+            }
+            visitor.accept(start[at], open[at], high[at], low[at], close[at], ticks[at]);
+        }
+    }
+
+    /**
+     * Visits every candle changed since the previous drain and marks them clean.
+     */
+    public void drainDirty(CandleVisitor visitor) {
+        if (dirtyFrom == Long.MAX_VALUE) {
+            return;
+        }
+        forEach(dirtyFrom, Long.MAX_VALUE, visitor);
+        dirtyFrom = Long.MAX_VALUE;
+    }
+
+    public void markDirty(long bucketStart) {
+        dirtyFrom = Math.min(dirtyFrom, bucketStart);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long oldestStart() {
+        if (size == 0) {
+            throw new IllegalStateException("Ring is empty");
+        }
+        return start[head];
+    }
+
+    // Helper methods
+
+    private void append(long bucketStart, long o, long h, long l, long c, int count) {
+        if (size == start.length && start.length < capacity) {
+            grow();
+        }
+        int at;
+        if (size == start.length) {
+            // Full: overwrite the oldest
+            at = head;
+            head = (head + 1) % start.length;
+        } else {
+            at = index(size);
+            size++;
+        }
+        start[at] = bucketStart;
+        open[at] = o;
+        high[at] = h;
+        low[at] = l;
+        close[at] = c;
+        ticks[at] = count;
+    }
+
+    // Binary search over the logical (oldest-first) order
+    private int firstAtOrAfter(long bucketStart) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start[index(mid)] < bucketStart) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int index(int logical) {
+        return (head + logical) % start.length;
+    }
+
+    private void grow() {
+        int newLength = Math.min(capacity, start.length * 2);
+        long[][] columns = {start, open, high, low, close};
+        int[] oldTicks = ticks;
+        int oldLength = start.length;
+        allocate(newLength);
+        long[][] grown = {start, open, high, low, close};
+        for (int c = 0; c < columns.length; c++) {
+            for (int i = 0; i < size; i++) {
+                grown[c][i] = columns[c][(head + i) % oldLength];
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            ticks[i] = oldTicks[(head + i) % oldLength];
+        }
+        head = 0;
+    }
+
+    private void allocate(int length) {
+        start = new long[length];
+        open = new long[length];
+        high = new long[length];
+        low = new long[length];
+        close = new long[length];
+        ticks = new int[length];
+    }
+
+    @Override
+    public String toString() {
+        long[] starts = new long[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = start[index(i)];
+        }
+        return "CandleRing" + Arrays.toString(starts);
+    }
+}
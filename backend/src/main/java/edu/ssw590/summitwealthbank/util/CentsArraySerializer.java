@@ -0,0 +1,48 @@
+package edu.ssw590.summitwealthbank.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Writes an array of amounts held in cents as JSON decimals (12345 -> 123.45),
+ * formatting the digits directly instead of going through double or BigDecimal.
+ */
+public class CentsArraySerializer extends StdSerializer<long[]> {
+
+    public CentsArraySerializer() {
+        super(long[].class);
+    }
+
+    @Override
+    public void serialize(long[] cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        char[] buffer = new char[24];
+        generator.writeStartArray(cents, cents.length);
+        for (long amount : cents) {
+            int start = format(amount, buffer);
+            generator.writeNumber(buffer, start, buffer.length - start);
+        }
+        generator.writeEndArray();
+    }
+
+    // Fills the buffer from the end and returns the index of the first character
+    static int format(long cents, char[] buffer) {
+        long value = Math.abs(cents);
+        int position = buffer.length;
+        buffer[--position] = (char) ('0' + value % 10);
+        value /= 10;
+        buffer[--position] = (char) ('0' + value % 10);
+        value /= 10;
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        if (cents < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+}
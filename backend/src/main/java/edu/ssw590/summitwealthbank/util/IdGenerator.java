@@ -0,0 +1,14 @@
+package edu.ssw590.summitwealthbank.util;
+
+/**
+ * Source of unique, roughly time-ordered ids.
+ */
+public interface IdGenerator {
+
+    long nextId();
+
+    /**
+     * Epoch milliseconds of the start of the tick an id was issued in.
+     */
+    long timestampOf(long id);
+}
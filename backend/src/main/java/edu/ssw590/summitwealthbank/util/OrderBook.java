@@ -0,0 +1,362 @@
+package edu.ssw590.summitwealthbank.util;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Price-time priority limit order book for a single symbol.
+ *
+ * Prices are whole cents. Each side is a sorted map of price levels and every
+ * level is an intrusive FIFO list, so matching walks the best level in arrival
+ * order and a cancel by order id is a hash lookup plus an O(1) unlink.
+ *
+ * An order never trades against a resting order of the same owner: matching
+ * stops there and the rest of the incoming order is not rested (cancel newest).
+ * Fills are applied to the book as they are made, so a caller that later fails
+ * to settle them hands them to {@link #undo} to put the makers back.
+ *
+ * Not thread-safe: callers serialise access per book.
+ */
+public class OrderBook {
+
+    public enum Side {
+        BUY,
+        SELL
+    }
+
+    @Getter
+    private final String symbol;
+
+    private final TreeMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final TreeMap<Long, PriceLevel> asks = new TreeMap<>();
+    private final Map<Long, Order> orders = new HashMap<>();
+
+    public OrderBook(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Matches the order against the opposite side and rests any limit remainder.
+     * Market orders (price == null) never rest; their unfilled quantity is left on the order.
+     * An order with a budget stops filling once the next share would cost more than is left
+     * of it, and an order that reaches a resting order of its own owner stops there and is
+     * flagged {@link Order#isSelfMatched()} instead of resting.
+     */
+    public List<Fill> submit(Order taker) {
+        if (orders.containsKey(taker.id)) {
+            throw new IllegalArgumentException("Duplicate order id: " + taker.id);
+        }
+
+        List<Fill> fills = new ArrayList<>();
+        TreeMap<Long, PriceLevel> opposite = taker.side == Side.BUY ? asks : bids;
+
+        matching:
+        while (taker.remaining > 0 && !opposite.isEmpty()) {
+            Map.Entry<Long, PriceLevel> best = opposite.firstEntry();
+            long price = best.getKey();
+            if (!crosses(taker, price)) {
+                break;
+            }
+
+            PriceLevel level = best.getValue();
+            while (taker.remaining > 0 && level.head != null) {
+                Order maker = level.head;
+                if (maker.ownerId == taker.ownerId) {
+                    taker.selfMatched = true;
+                    break matching;
+                }
+                long quantity = Math.min(taker.remaining, maker.remaining);
+                if (taker.budget != null) {
+                    quantity = Math.min(quantity, taker.budget / price);
+                    if (quantity == 0) {
+                        break matching;
+                    }
+                    taker.budget -= quantity * price;
+                }
+
+                maker.remaining -= quantity;
+                taker.remaining -= quantity;
+                level.quantity -= quantity;
+                fills.add(new Fill(maker, taker, price, quantity));
+
+                if (maker.remaining == 0) {
+                    level.unlink(maker);
+                    orders.remove(maker.id);
+                }
+            }
+
+            if (level.head == null) {
+                opposite.pollFirstEntry();
+            }
+        }
+
+        if (taker.remaining > 0 && taker.price != null && !taker.selfMatched) {
+            rest(taker);
+        }
+        return fills;
+    }
+
+    /**
+     * Reverses fills returned by {@link #submit}, newest first: every maker gets its quantity
+     * back, and one that was filled completely returns to the head of its price level unless
+     * it has since been cancelled or discarded. The taker is left alone; discard it first.
+     */
+    public void undo(List<Fill> fills) {
+        for (int i = fills.size() - 1; i >= 0; i--) {
+            Fill fill = fills.get(i);
+            Order maker = fill.maker;
+            maker.remaining += fill.quantity;
+            if (maker.level != null) {
+                maker.level.quantity += fill.quantity;
+            } else if (!maker.closed) {
+                TreeMap<Long, PriceLevel> side = maker.side == Side.BUY ? bids : asks;
+                PriceLevel level = side.computeIfAbsent(maker.price, p -> new PriceLevel());
+                level.prepend(maker);
+                level.quantity += maker.remaining;
+                orders.put(maker.id, maker);
+            }
+        }
+    }
+
+    /**
+     * Takes an order off the book for good, whether or not it is resting, so a later
+     * {@link #undo} never puts it back.
+     */
+    public void discard(Order order) {
+        cancel(order.id);
+        order.closed = true;
+    }
+
+    /**
+     * Puts an order on the book without matching it (used when rebuilding from storage).
+     */
+    public void restore(Order order) {
+        if (order.price == null) {
+            throw new IllegalArgumentException("Only limit orders can rest on the book");
+        }
+        order.closed = false;
+        rest(order);
+    }
+
+    /**
+     * Removes a resting order. Returns the cancelled order, or null if it is no longer on the book.
+     */
+    public Order cancel(long orderId) {
+        Order order = orders.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+
+        TreeMap<Long, PriceLevel> side = order.side == Side.BUY ? bids : asks;
+        PriceLevel level = order.level;
+        level.unlink(order);
+        level.quantity -= order.remaining;
+        if (level.head == null) {
+            side.remove(order.price);
+        }
+        order.closed = true;
+        return order;
+    }
+
+    public Order getOrder(long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * Cost in cents of buying up to the given quantity from the resting asks.
+     */
+    public long costToBuy(long quantity) {
+        long cost = 0;
+        long left = quantity;
+        for (Map.Entry<Long, PriceLevel> entry : asks.entrySet()) {
+            long take = Math.min(left, entry.getValue().quantity);
+            cost += take * entry.getKey();
+            left -= take;
+            if (left == 0) {
+                break;
+            }
+        }
+        return cost;
+    }
+
+    public Long bestBid() {
+        return bids.isEmpty() ? null : bids.firstKey();
+    }
+
+    public Long bestAsk() {
+        return asks.isEmpty() ? null : asks.firstKey();
+    }
+
+    public List<LevelView> bids(int depth) {
+        return levels(bids, depth);
+    }
+
+    public List<LevelView> asks(int depth) {
+        return levels(asks, depth);
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    public void clear() {
+        bids.clear();
+        asks.clear();
+        orders.clear();
+    }
+
+    private boolean crosses(Order taker, long price) {
+        if (taker.price == null) {
+            return true;
+        }
+        return taker.side == Side.BUY ? price <= taker.price : price >= taker.price;
+    }
+
+    private void rest(Order order) {
+        TreeMap<Long, PriceLevel> side = order.side == Side.BUY ? bids : asks;
+        PriceLevel level = side.computeIfAbsent(order.price, p -> new PriceLevel());
+        level.append(order);
+        level.quantity += order.remaining;
+        orders.put(order.id, order);
+    }
+
+    private List<LevelView> levels(TreeMap<Long, PriceLevel> side, int depth) {
+        if (side.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LevelView> views = new ArrayList<>();
+        for (Map.Entry<Long, PriceLevel> entry : side.entrySet()) {
+            if (views.size() == depth) {
+                break;
+            }
+            views.add(new LevelView(entry.getKey(), entry.getValue().quantity, entry.getValue().count));
+        }
+        return views;
+    }
+
+    public static final class Order {
+        @Getter
+        private final long id;
+        @Getter
+        private final long accountId;
+        // Orders of the same owner never trade with each other
+        @Getter
+        private final long ownerId;
+        @Getter
+        private final Side side;
+        // Limit price in cents, null for market orders
+        @Getter
+        private final Long price;
+        @Getter
+        private long remaining;
+        // Cents this order may still spend, null when only its price limits it
+        @Getter
+        private Long budget;
+        @Getter
+        private boolean selfMatched;
+
+        private boolean closed;
+        private Order prev;
+        private Order next;
+        private PriceLevel level;
+
+        public Order(long id, long accountId, Side side, Long price, long quantity) {
+            this(id, accountId, accountId, side, price, quantity, null);
+        }
+
+        public Order(long id, long accountId, long ownerId, Side side, Long price, long quantity, Long budget) {
+            this.id = id;
+            this.accountId = accountId;
+            this.ownerId = ownerId;
+            this.side = side;
+            this.price = price;
+            this.remaining = quantity;
+            this.budget = budget;
+        }
+    }
+
+    @Getter
+    public static final class Fill {
+        private final Order maker;
+        private final Order taker;
+        private final long price;
+        private final long quantity;
+
+        private Fill(Order maker, Order taker, long price, long quantity) {
+            this.maker = maker;
+            this.taker = taker;
+            this.price = price;
+            this.quantity = quantity;
+        }
+    }
+
+    @Getter
+    public static final class LevelView {
+        private final long price;
+        private final long quantity;
+        private final int orders;
+
+        private LevelView(long price, long quantity, int orders) {
+            this.price = price;
+            this.quantity = quantity;
+            this.orders = orders;
+        }
+    }
+
+    private static final class PriceLevel {
+        private Order head;
+        private Order tail;
+        private long quantity;
+        private int count;
+
+        private void append(Order order) {
+            order.level = this;
+            order.prev = tail;
+            order.next = null;
+            if (tail == null) {
+                head = order;
+            } else {
+                tail.next = order;
+            }
+            tail = order;
+            count++;
+        }
+
+        private void prepend(Order order) {
+            order.level = this;
+            order.prev = null;
+            order.next = head;
+            if (head == null) {
+                tail = order;
+            } else {
+                head.prev = order;
+            }
+            head = order;
+            count++;
+        }
+
+        private void unlink(Order order) {
+            if (order.prev == null) {
+                head = order.next;
+            } else {
+                order.prev.next = order.next;
+            }
+            if (order.next == null) {
+                tail = order.prev;
+            } else {
+                order.next.prev = order.prev;
+            }
+            order.prev = null;
+            order.next = null;
+            order.level = null;
+            count--;
+        }
+    }
+}
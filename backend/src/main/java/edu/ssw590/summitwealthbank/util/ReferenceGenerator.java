@@ -0,0 +1,143 @@
+package edu.ssw590.summitwealthbank.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Builds transaction references (TXN-YYYYMMDD-XXXXXX, STK-YYYYMMDD-XXXXXX) and
+ * 10-digit account numbers from Snowflake-style ids, so they are unique by
+ * construction instead of random.
+ *
+ * A reference packs the seconds since local midnight of the id's tick with the
+ * id's node and sequence bits into 31 bits, written as six base-36 characters;
+ * the date part comes from the same tick, so the pair never repeats. An account
+ * number packs hours since the generator epoch with node and sequence into
+ * 33 bits. Both are scrambled with a reversible mix so they do not reveal
+ * issue order or volume.
+ *
+ * Reference listeners see every transaction reference as it is issued, before
+ * it is written anywhere.
+ */
+public class ReferenceGenerator {
+
+    public static final String TRANSFER_PREFIX = "TXN";
+    public static final String STOCK_PREFIX = "STK";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final int REFERENCE_BITS = 31;
+    private static final int REFERENCE_LENGTH = 6;
+    // PREFIX-YYYYMMDD-XXXXXX
+    private static final int DATE_START = 4;
+    private static final int DATE_END = 12;
+    private static final int ACCOUNT_NUMBER_BITS = 33;
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final SnowflakeIdGenerator referenceIds;
+    private final SnowflakeIdGenerator accountIds;
+    private final ZoneId zone;
+    // Local day of the latest reference, so the date is formatted once a day rather than per call
+    private volatile Day currentDay = new Day(0, 0, "");
+    private final List<Consumer<String>> referenceListeners = new CopyOnWriteArrayList<>();
+
+    public ReferenceGenerator(SnowflakeIdGenerator referenceIds, SnowflakeIdGenerator accountIds, ZoneId zone) {
+        this.referenceIds = referenceIds;
+        this.accountIds = accountIds;
+        this.zone = zone;
+    }
+
+    public void addReferenceListener(Consumer<String> listener) {
+        referenceListeners.add(listener);
+    }
+
+    public String transactionReference() {
+        return reference(TRANSFER_PREFIX);
+    }
+
+    public String stockTransactionReference() {
+        return reference(STOCK_PREFIX);
+    }
+
+    public String accountNumber() {
+        long id = accountIds.nextId();
+        if (id >>> ACCOUNT_NUMBER_BITS != 0) {
+            throw new IllegalStateException("Account number space exhausted; move the generator epoch");
+        }
+        return String.format("%010d", mix(id, ACCOUNT_NUMBER_BITS));
+    }
+
+    /**
+     * The local date a reference was issued on, read from its date part, or null if it is not in this format.
+     */
+    public static LocalDate issueDate(String reference) {
+        if (reference.length() != DATE_END + 1 + REFERENCE_LENGTH
+                || reference.charAt(DATE_START - 1) != '-' || reference.charAt(DATE_END) != '-') {
+            return null;
+        }
+        try {
+            return LocalDate.parse(reference.substring(DATE_START, DATE_END), DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Helper methods
+
+    private String reference(String prefix) {
+        long id = referenceIds.nextId();
+        long epochSecond = Math.floorDiv(referenceIds.timestampOf(id), 1000L);
+        Day day = currentDay;
+        if (epochSecond < day.start() || epochSecond >= day.end()) {
+            day = dayOf(epochSecond);
+            currentDay = day;
+        }
+        // Elapsed rather than wall-clock seconds, so a repeated DST hour cannot reuse a value
+        long secondOfDay = epochSecond - day.start();
+        int lowBits = referenceIds.getLowBits();
+        long value = mix((secondOfDay << lowBits) | (id & ((1L << lowBits) - 1)), REFERENCE_BITS);
+
+        char[] chars = new char[prefix.length() + day.label().length() + 2 + REFERENCE_LENGTH];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        int at = prefix.length();
+        chars[at++] = '-';
+        day.label().getChars(0, day.label().length(), chars, at);
+        at += day.label().length();
+        chars[at] = '-';
+        for (int i = chars.length - 1; i > at; i--) {
+            chars[i] = DIGITS[(int) (value % 36)];
+            value /= 36;
+        }
+        String reference = new String(chars);
+        for (Consumer<String> listener : referenceListeners) {
+            listener.accept(reference);
+        }
+        return reference;
+    }
+
+    private Day dayOf(long epochSecond) {
+        LocalDate date = Instant.ofEpochSecond(epochSecond).atZone(zone).toLocalDate();
+        return new Day(date.atStartOfDay(zone).toEpochSecond(), date.plusDays(1).atStartOfDay(zone).toEpochSecond(),
+                date.format(DATE_FORMAT));
+    }
+
+    /**
+     * Bijection on the low {@code bits} bits: odd multipliers and xor-shifts are both reversible there.
+     */
+    static long mix(long value, int bits) {
+        long mask = (1L << bits) - 1;
+        long x = value & mask;
+        x = (x * 0x9E3779B97F4A7C15L) & mask;
+        x ^= x >>> (bits / 2);
+        x = (x * 0x5DEECE66DL) & mask;
+        x ^= x >>> (bits / 3);
+        return x;
+    }
+
+    private record Day(long start, long end, String label) {
+    }
+}
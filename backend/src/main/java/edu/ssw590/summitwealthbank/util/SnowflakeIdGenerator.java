@@ -0,0 +1,168 @@
+package edu.ssw590.summitwealthbank.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style id generator: ticks since a custom epoch, then the node id,
+ * then a sequence within the tick.
+ *
+ * The last issued tick and sequence are packed into one AtomicLong and advanced
+ * with compare-and-set, so callers never block. When a tick's sequence is used
+ * up the counter carries into the next tick instead of waiting for the clock,
+ * and the clock catches up once the burst is over. A clock that moves backwards
+ * is ignored the same way, so ids from one generator never repeat.
+ *
+ * Ticks borrowed from the future exist only in memory, so a generator that
+ * replaces another on the same node (a restart) could reissue them. To prevent
+ * that the owner persists a reservation: {@link #limitTo} caps the ticks this
+ * generator may use, and a successor is started with {@link #startAfter} the
+ * last reserved tick. A burst that reaches the limit asks the owner to extend it
+ * on the spot ({@link #extendWith}), one caller at a time while the others wait,
+ * and fails with an IllegalStateException if the limit is still not raised
+ * within the allowed wait. Without a limit the generator is unbounded.
+ *
+ * Ids are unique across generators as long as each has its own node id.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    private final long epochMillis;
+    private final long tickMillis;
+    private final int nodeBits;
+    private final int sequenceBits;
+    private final long nodeId;
+    private final long sequenceMask;
+    private final LongSupplier clock;
+    // (tick << sequenceBits) | sequence of the last issued id
+    private final AtomicLong state = new AtomicLong(-1);
+    // Highest tick ids may be issued in
+    private volatile long limitTick = Long.MAX_VALUE;
+    // Raises limitTick when a burst reaches it; one caller runs it while the others wait
+    private volatile Runnable extender = () -> { };
+    private volatile long maxWaitNanos = Long.MAX_VALUE;
+    private final ReentrantLock extending = new ReentrantLock();
+
+    public SnowflakeIdGenerator(long epochMillis, long tickMillis, int nodeBits, int sequenceBits, long nodeId) {
+        this(epochMillis, tickMillis, nodeBits, sequenceBits, nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long epochMillis, long tickMillis, int nodeBits, int sequenceBits, long nodeId,
+                                LongSupplier clock) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1 ms");
+        }
+        if (nodeBits < 0 || sequenceBits < 1 || nodeBits + sequenceBits > 32) {
+            throw new IllegalArgumentException("Node and sequence bits must fit in 32 bits");
+        }
+        if (nodeId < 0 || nodeId >= 1L << nodeBits) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + ((1L << nodeBits) - 1));
+        }
+        this.epochMillis = epochMillis;
+        this.tickMillis = tickMillis;
+        this.nodeBits = nodeBits;
+        this.sequenceBits = sequenceBits;
+        this.nodeId = nodeId;
+        this.sequenceMask = (1L << sequenceBits) - 1;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        long now = currentTick();
+        long waitStarted = 0;
+        while (true) {
+            long last = state.get();
+            // A new tick restarts the sequence; otherwise count on, carrying into the next tick
+            long next = last < 0 || (last >>> sequenceBits) < now ? now << sequenceBits : last + 1;
+            long limit = limitTick;
+            if ((next >>> sequenceBits) > limit) {
+                // Past the reservation: have it extended, failing fast if that does not happen in time
+                if (waitStarted == 0) {
+                    waitStarted = System.nanoTime();
+                } else if (System.nanoTime() - waitStarted > maxWaitNanos) {
+                    throw new IllegalStateException("Id reservation up to tick " + limit + " was not extended in time");
+                }
+                extendPast(limit);
+                now = currentTick();
+                continue;
+            }
+            if (state.compareAndSet(last, next)) {
+                long tick = next >>> sequenceBits;
+                return (tick << (nodeBits + sequenceBits)) | (nodeId << sequenceBits) | (next & sequenceMask);
+            }
+        }
+    }
+
+    @Override
+    public long timestampOf(long id) {
+        return epochMillis + (id >>> (nodeBits + sequenceBits)) * tickMillis;
+    }
+
+    /**
+     * Issue ids only in ticks after {@code tick}, e.g. the last tick a previous
+     * generator for this node had reserved. Never moves the generator backwards.
+     */
+    public void startAfter(long tick) {
+        state.accumulateAndGet(((tick + 1) << sequenceBits) - 1, Math::max);
+    }
+
+    /**
+     * Issue ids only in ticks up to and including {@code tick}.
+     */
+    public void limitTo(long tick) {
+        limitTick = tick;
+    }
+
+    /**
+     * Run {@code extender} when a burst reaches the limit; it should raise the limit
+     * with {@link #limitTo}. Callers past the limit give up after {@code maxWaitMillis}.
+     */
+    public void extendWith(Runnable extender, long maxWaitMillis) {
+        this.extender = extender;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * The clock's tick, or the tick of the last issued id when the generator is ahead of the clock.
+     */
+    public long getLatestTick() {
+        long last = state.get();
+        return Math.max(currentTick(), last < 0 ? 0 : last >>> sequenceBits);
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Id bits below the tick (node id and sequence).
+     */
+    public int getLowBits() {
+        return nodeBits + sequenceBits;
+    }
+
+    // Helper methods
+
+    private void extendPast(long limit) {
+        if (extending.tryLock()) {
+            try {
+                // Another caller may have extended it while this one was computing
+                if (limitTick == limit) {
+                    extender.run();
+                }
+            } finally {
+                extending.unlock();
+            }
+        }
+        if (limitTick == limit) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private long currentTick() {
+        return Math.max(0, (clock.getAsLong() - epochMillis) / tickMillis);
+    }
+}
@@ -0,0 +1,46 @@
+package edu.ssw590.summitwealthbank;
+
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Unsaved users and accounts for tests. The suite shares one database, so
+ * every test should use fresh emails from {@link #email}.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    public static String email(String prefix) {
+        return prefix + "-" + UUID.randomUUID() + "@test.com";
+    }
+
+    public static User user(String email) {
+        return User.builder()
+                .email(email)
+                .password("password")
+                .firstName("Test")
+                .lastName("User")
+                .build();
+    }
+
+    public static Account account(User user) {
+        return account(user, BigDecimal.ZERO);
+    }
+
+    public static Account account(User user, BigDecimal balance) {
+        return account(user, Account.AccountType.CHECKING, balance);
+    }
+
+    public static Account account(User user, Account.AccountType type, BigDecimal balance) {
+        return Account.builder()
+                .user(user)
+                .type(type)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,235 @@
+package edu.ssw590.summitwealthbank.controller;
+
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import edu.ssw590.summitwealthbank.service.IdempotencyService;
+import edu.ssw590.summitwealthbank.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyKeyTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    private String token;
+    private Account checking;
+    private Account savings;
+
+    @BeforeEach
+    void createAccounts() {
+        String email = email("idempotency");
+        User user = userRepository.save(user(email));
+        checking = accountRepository.save(account(user, new BigDecimal("1000.00")));
+        savings = accountRepository.save(account(user, Account.AccountType.SAVINGS, BigDecimal.ZERO));
+        token = "Bearer " + jwtUtil.generateToken(email);
+    }
+
+    @Test
+    void retriedTransferIsReplayedWithoutMovingMoneyAgain() throws Exception {
+        String key = UUID.randomUUID().toString();
+        MockHttpServletResponse first = transfer(key, "100.00");
+        MockHttpServletResponse retry = transfer(key, "100.00");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertNull(first.getHeader("Idempotency-Replayed"));
+        assertEquals("true", retry.getHeader("Idempotency-Replayed"));
+        assertBalance("900.00", checking);
+        assertEquals(1, transferCount());
+
+        // Same key, different request
+        assertEquals(422, transfer(key, "50.00").getStatus());
+        assertBalance("900.00", checking);
+
+        // No key: every request runs
+        transfer(null, "10.00");
+        transfer(null, "10.00");
+        assertBalance("880.00", checking);
+    }
+
+    @Test
+    void failedBusinessRulesAreReplayedToo() throws Exception {
+        String key = UUID.randomUUID().toString();
+        MockHttpServletResponse first = transfer(key, "5000.00");
+        MockHttpServletResponse retry = transfer(key, "5000.00");
+
+        assertEquals(400, first.getStatus());
+        assertEquals(400, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader("Idempotency-Replayed"));
+    }
+
+    @Test
+    void retriedBuyRunsOnceAndReplaysPlainTextErrors() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"accountId\":" + checking.getId() + ",\"stockSymbol\":\"AAPL\",\"quantity\":1}";
+        MockHttpServletResponse first = send("/api/stocks/buy", key, body);
+        MockHttpServletResponse retry = send("/api/stocks/buy", key, body);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock_transaction WHERE account_id = ?", Integer.class, checking.getId()));
+
+        // The same key on another endpoint is a different request
+        assertEquals(422, send("/api/stocks/sell", key, body).getStatus());
+
+        String sellKey = UUID.randomUUID().toString();
+        String sellTooMany = "{\"accountId\":" + checking.getId() + ",\"stockSymbol\":\"AAPL\",\"quantity\":5}";
+        MockHttpServletResponse rejected = send("/api/stocks/sell", sellKey, sellTooMany);
+        MockHttpServletResponse replayed = send("/api/stocks/sell", sellKey, sellTooMany);
+        assertEquals(400, replayed.getStatus());
+        assertEquals(rejected.getContentAsString(), replayed.getContentAsString());
+        assertTrue(replayed.getContentType().startsWith(MediaType.TEXT_PLAIN_VALUE));
+    }
+
+    @Test
+    void concurrentRetriesExecuteExactlyOnce() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int clients = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Callable<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                calls.add(() -> transfer(key, "100.00").getStatus());
+            }
+            int succeeded = 0;
+            for (Future<Integer> result : pool.invokeAll(calls)) {
+                int status = result.get();
+                assertTrue(status == 200 || status == 409, "Unexpected status " + status);
+                succeeded += status == 200 ? 1 : 0;
+            }
+            assertTrue(succeeded >= 1);
+        } finally {
+            pool.shutdown();
+        }
+        assertBalance("900.00", checking);
+        assertEquals(1, transferCount());
+    }
+
+    @Test
+    void aConflictReleasesTheKeySoTheRetryRuns() {
+        String email = email("idempotency-conflict");
+        String key = UUID.randomUUID().toString();
+        ResponseEntity<?> busy = idempotencyService.execute(email, key, "POST /api/transfer", "request",
+                () -> ResponseEntity.status(HttpStatus.CONFLICT).body("The account is busy; please try again"));
+        ResponseEntity<?> retry = idempotencyService.execute(email, key, "POST /api/transfer", "request",
+                () -> ResponseEntity.ok("done"));
+
+        assertEquals(409, busy.getStatusCode().value());
+        assertEquals(200, retry.getStatusCode().value());
+        assertEquals("done", retry.getBody());
+        assertNull(retry.getHeaders().getFirst("Idempotency-Replayed"));
+    }
+
+    @Test
+    void largeResponsesAreStoredWhole() {
+        String email = email("idempotency-large");
+        String key = UUID.randomUUID().toString();
+        String body = "x".repeat(20_000);
+        idempotencyService.execute(email, key, "POST /api/transfer/batch", "request", () -> ResponseEntity.ok(body));
+
+        assertEquals(body, jdbcTemplate.queryForObject(
+                "SELECT response_body FROM idempotency_record WHERE user_email = ? AND idempotency_key = ?",
+                String.class, email, key));
+    }
+
+    @Test
+    void anExpiredRecordIsNotReplayed() {
+        String email = email("idempotency-expired");
+        String key = UUID.randomUUID().toString();
+        idempotencyService.execute(email, key, "POST /api/transfer", "request", () -> ResponseEntity.ok("first"));
+        // Past the time to live, before the purge has run; a fresh key also misses the in-memory cache
+        jdbcTemplate.update("UPDATE idempotency_record SET created_at = ? WHERE user_email = ? AND idempotency_key = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(2)), email, key);
+        String otherKey = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO idempotency_record (user_email, idempotency_key, endpoint, request_hash, "
+                        + "response_status, response_content_type, response_body, created_at) "
+                        + "SELECT user_email, ?, endpoint, request_hash, response_status, response_content_type, "
+                        + "response_body, created_at FROM idempotency_record "
+                        + "WHERE user_email = ? AND idempotency_key = ?",
+                otherKey, email, key);
+
+        ResponseEntity<?> retry = idempotencyService.execute(email, otherKey, "POST /api/transfer", "request",
+                () -> ResponseEntity.ok("second"));
+
+        assertEquals("second", retry.getBody());
+        assertNull(retry.getHeaders().getFirst("Idempotency-Replayed"));
+    }
+
+    private MockHttpServletResponse transfer(String key, String amount) throws Exception {
+        return send("/api/transfer", key, "{\"fromAccountId\":" + checking.getId() + ",\"toAccountId\":"
+                + savings.getId() + ",\"amount\":" + amount + ",\"description\":\"Idempotent\"}");
+    }
+
+    private MockHttpServletResponse send(String path, String key, String body) throws Exception {
+        MockHttpServletRequestBuilder request = post(path)
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body);
+        if (key != null) {
+            request.header("Idempotency-Key", key);
+        }
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+
+    private int transferCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM transaction WHERE from_account_id = ?",
+                Integer.class, checking.getId());
+    }
+
+    private void assertBalance(String expected, Account account) {
+        BigDecimal balance = accountRepository.findById(account.getId()).orElseThrow().getBalance();
+        assertEquals(0, new BigDecimal(expected).compareTo(balance), "Balance was " + balance);
+    }
+}
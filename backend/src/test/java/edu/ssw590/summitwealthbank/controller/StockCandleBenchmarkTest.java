@@ -0,0 +1,206 @@
+package edu.ssw590.summitwealthbank.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ssw590.summitwealthbank.service.PriceHistoryService;
+import edu.ssw590.summitwealthbank.service.StockQuoteCache;
+import edu.ssw590.summitwealthbank.util.CandleBlocks;
+import edu.ssw590.summitwealthbank.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Benchmark: a year of 1-minute candles for one symbol, read from packed blocks.
+ * The endpoint is exercised for correctness; the timing (tagged "benchmark") is
+ * taken at the service because MockMvc's own buffering dominates a 20 MB response.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@Slf4j
+class StockCandleBenchmarkTest {
+
+    private static final String SYMBOL = "CNDL";
+    private static final int MINUTES_PER_YEAR = 365 * 24 * 60;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private StockQuoteCache quoteCache;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${admin.email}")
+    private String adminEmail;
+
+    private String token;
+    private LocalDateTime yearStart;
+    private LocalDateTime yearEnd;
+
+    @BeforeEach
+    void createHistory() {
+        token = "Bearer " + jwtUtil.generateToken(adminEmail);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO stock (symbol, company_name, current_price, total_shares, "
+                + "available_shares, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+                SYMBOL, "Candle Corp", new BigDecimal("100.00"), 1000L, 1000L, now, now);
+
+        // A year of minutes ending yesterday, so none of it is in the in-memory ring
+        ZoneId zone = ZoneId.systemDefault();
+        yearEnd = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(1);
+        yearStart = yearEnd.minusMinutes(MINUTES_PER_YEAR);
+        long minute = yearStart.atZone(zone).toEpochSecond();
+        List<Object[]> rows = new ArrayList<>();
+        CandleBlocks.Writer writer = null;
+        for (int i = 0; i < MINUTES_PER_YEAR; i++, minute += 60) {
+            if (writer == null) {
+                writer = new CandleBlocks.Writer(minute, CandleBlocks.MAX_CANDLES);
+            }
+            long price = 10_000 + i % 500;
+            writer.add(minute, price, price + 100, price - 100, price, 3);
+            if (writer.isFull() || i == MINUTES_PER_YEAR - 1) {
+                rows.add(new Object[]{SYMBOL, "1m", writer.getBlockStart(), writer.getLastStart(),
+                        writer.getCount(), writer.toBytes()});
+                writer = null;
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stock_candle_block (symbol, interval_code, block_start, block_end, "
+                + "candle_count, data) VALUES (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    void deleteHistory() {
+        jdbcTemplate.update("DELETE FROM stock_candle_block WHERE symbol = ?", SYMBOL);
+        jdbcTemplate.update("DELETE FROM stock WHERE symbol = ?", SYMBOL);
+        quoteCache.evict(SYMBOL);
+    }
+
+    @Test
+    void yearOfMinuteCandlesComesBackWhole() throws Exception {
+        mockMvc.perform(candles(yearStart.toString(), yearEnd.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.time.length()").value(MINUTES_PER_YEAR))
+                .andExpect(jsonPath("$.close[499]").value(104.99));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void yearOfMinuteCandlesComesBackInMilliseconds() {
+        // Warm up
+        for (int i = 0; i < 5; i++) {
+            priceHistoryService.getCandles(SYMBOL, "1m", yearStart, yearEnd);
+        }
+
+        long start = System.nanoTime();
+        int candles = priceHistoryService.getCandles(SYMBOL, "1m", yearStart, yearEnd).getTime().length;
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+
+        log.info("{} one-minute candles read in {} ms", candles, Math.round(millis * 10) / 10.0);
+        assertEquals(MINUTES_PER_YEAR, candles);
+        assertTrue(millis < 500, "Reading a year of 1m candles took " + millis + " ms");
+    }
+
+    @Test
+    void liveCandlesAreFlushedCompactedAndServedAfterHistory() throws Exception {
+        // Caching the stock records its current price as the first tick, whichever test ran before
+        quoteCache.find(SYMBOL);
+        updatePrice("101.25");
+        priceHistoryService.flush();
+        updatePrice("102.50");
+        priceHistoryService.flush();
+        updatePrice("101.75");
+        priceHistoryService.flush();
+
+        // Three flushes appended three small blocks per interval; compaction folds each into one
+        assertEquals(3, blockCount("1d"));
+        priceHistoryService.compact();
+        assertEquals(1, blockCount("1d"));
+
+        mockMvc.perform(get("/api/stocks/" + SYMBOL + "/candles")
+                        .header("Authorization", token)
+                        .param("interval", "1d")
+                        .param("from", yearEnd.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.time.length()").value(1))
+                .andExpect(jsonPath("$.open[0]").value(100.00))
+                .andExpect(jsonPath("$.high[0]").value(102.50))
+                .andExpect(jsonPath("$.close[0]").value(101.75))
+                .andExpect(jsonPath("$.ticks[0]").value(4));
+
+        // The last persisted minute comes first, the live minute from the ring last
+        String body = mockMvc.perform(get("/api/stocks/" + SYMBOL + "/candles")
+                        .header("Authorization", token)
+                        .param("interval", "1m")
+                        .param("from", yearEnd.minusMinutes(1).toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode minutes = objectMapper.readTree(body);
+        assertEquals(yearEnd.minusMinutes(1).atZone(ZoneId.systemDefault()).toEpochSecond(),
+                minutes.get("time").get(0).asLong());
+        JsonNode close = minutes.get("close");
+        assertEquals("101.75", close.get(close.size() - 1).decimalValue().toPlainString());
+
+        mockMvc.perform(get("/api/stocks/" + SYMBOL + "/candles")
+                        .header("Authorization", token)
+                        .param("interval", "5m"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void updatePrice(String price) throws Exception {
+        mockMvc.perform(post("/api/admin/stocks/update-price")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"symbol\":\"" + SYMBOL + "\",\"newPrice\":" + price + "}"))
+                .andExpect(status().isOk());
+    }
+
+    private int blockCount(String interval) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock_candle_block WHERE symbol = ? "
+                + "AND interval_code = ?", Integer.class, SYMBOL, interval);
+    }
+
+    private MockHttpServletRequestBuilder candles(String from, String to) {
+        return get("/api/stocks/" + SYMBOL + "/candles")
+                .header("Authorization", token)
+                .param("interval", "1m")
+                .param("from", from)
+                .param("to", to);
+    }
+}
@@ -0,0 +1,85 @@
+package edu.ssw590.summitwealthbank.controller;
+
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.StockPosition;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.StockPositionRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import edu.ssw590.summitwealthbank.util.JwtUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class StockPortfolioQueryCountTest {
+
+    private static final List<String> SYMBOLS = List.of("AAPL", "MSFT", "GOOGL", "AMZN", "NVDA", "TSLA", "INTC", "AMD");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StockPositionRepository positionRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void portfolioIssuesAtMostTwoStatementsRegardlessOfPositionCount() throws Exception {
+        String email = email("portfolio-query-count");
+        User user = userRepository.save(user(email));
+
+        // Spread the positions over two accounts
+        for (Account.AccountType type : Account.AccountType.values()) {
+            Account account = accountRepository.save(account(user, type, BigDecimal.ZERO));
+            for (String symbol : SYMBOLS) {
+                positionRepository.save(StockPosition.builder()
+                        .accountId(account.getId())
+                        .stockSymbol(symbol)
+                        .totalShares(10L)
+                        .averageCostBasis(BigDecimal.valueOf(100))
+                        .build());
+            }
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/stocks/portfolio")
+                        .header("Authorization", "Bearer " + jwtUtil.generateToken(email)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(SYMBOLS.size() * 2));
+
+        // One statement authenticates the JWT user, one loads the portfolio projection
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements > 0, "Hibernate statistics are not being collected");
+        assertTrue(statements <= 2, "Expected at most 2 SQL statements but was " + statements);
+    }
+}
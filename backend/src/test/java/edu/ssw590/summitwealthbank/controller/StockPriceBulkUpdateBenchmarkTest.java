@@ -0,0 +1,149 @@
+package edu.ssw590.summitwealthbank.controller;
+
+import edu.ssw590.summitwealthbank.service.StockQuoteCache;
+import edu.ssw590.summitwealthbank.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Benchmark: loading a catalog of prices through the bulk endpoint versus one
+ * request per symbol. Both go through the full MVC and security stack.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Slf4j
+class StockPriceBulkUpdateBenchmarkTest {
+
+    private static final int SYMBOLS = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private StockQuoteCache quoteCache;
+
+    @Value("${admin.email}")
+    private String adminEmail;
+
+    private String token;
+
+    @BeforeEach
+    void createStocks() {
+        token = "Bearer " + jwtUtil.generateToken(adminEmail);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < SYMBOLS; i++) {
+            rows.add(new Object[]{symbol(i), "Bench " + i, new BigDecimal("10.00"), 1000L, 1000L, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stock (symbol, company_name, current_price, total_shares, "
+                + "available_shares, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    @AfterEach
+    void deleteStocks() {
+        jdbcTemplate.update("DELETE FROM stock WHERE symbol LIKE 'BENCH%'");
+        for (int i = 0; i < SYMBOLS; i++) {
+            quoteCache.evict(symbol(i));
+        }
+    }
+
+    @Test
+    void bulkEndpointUpdatesEverySymbol() throws Exception {
+        mockMvc.perform(bulkUpdate("12.00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(SYMBOLS));
+
+        Integer updated = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stock WHERE symbol LIKE 'BENCH%' AND current_price = 12.00", Integer.class);
+        assertEquals(SYMBOLS, updated);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void bulkEndpointIsFasterThanOneRequestPerSymbol() throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < SYMBOLS; i++) {
+            mockMvc.perform(post("/api/admin/stocks/update-price")
+                            .header("Authorization", token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"symbol\":\"" + symbol(i) + "\",\"newPrice\":11.00}"))
+                    .andExpect(status().isOk());
+        }
+        double perSymbolMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        start = System.nanoTime();
+        mockMvc.perform(bulkUpdate("12.00")).andExpect(status().isOk());
+        double bulkMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        log.info("Price updates for {} symbols: per-symbol {} ms, bulk {} ms ({}x)",
+                SYMBOLS, Math.round(perSymbolMillis), Math.round(bulkMillis),
+                Math.round(perSymbolMillis / bulkMillis * 10) / 10.0);
+        assertTrue(bulkMillis < perSymbolMillis, "Bulk update should beat per-symbol updates");
+    }
+
+    @Test
+    void csvBodyIsAppliedAndInvalidRowsRejectTheWholeBatch() throws Exception {
+        mockMvc.perform(post("/api/admin/stocks/update-prices")
+                        .header("Authorization", token)
+                        .contentType("text/csv")
+                        .content("symbol,price\n" + symbol(0) + ",20.50\n" + symbol(1) + ",21.25\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+
+        mockMvc.perform(post("/api/admin/stocks/update-prices")
+                        .header("Authorization", token)
+                        .contentType("text/csv")
+                        .content(symbol(0) + ",30.00\nNOSUCHSYMBOL,1.00\n"))
+                .andExpect(status().isBadRequest());
+
+        BigDecimal price = jdbcTemplate.queryForObject(
+                "SELECT current_price FROM stock WHERE symbol = ?", BigDecimal.class, symbol(0));
+        assertEquals(0, new BigDecimal("20.50").compareTo(price));
+    }
+
+    private MockHttpServletRequestBuilder bulkUpdate(String price) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < SYMBOLS; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"symbol\":\"").append(symbol(i)).append("\",\"newPrice\":").append(price).append('}');
+        }
+        body.append(']');
+        return post("/api/admin/stocks/update-prices")
+                .header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString());
+    }
+
+    private static String symbol(int i) {
+        return String.format("BENCH%04d", i);
+    }
+}
@@ -0,0 +1,132 @@
+package edu.ssw590.summitwealthbank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class AccountLockManagerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void stripeCountRoundsUpToAPowerOfTwo() {
+        assertEquals(1, new AccountLockManager(meterRegistry, 1).getStripeCount());
+        assertEquals(1024, new AccountLockManager(meterRegistry, 1000).getStripeCount());
+        assertEquals(1024, new AccountLockManager(meterRegistry, 1024).getStripeCount());
+    }
+
+    @Test
+    void randomTransfersLoseNoUpdates() throws Exception {
+        // Few stripes, so unrelated accounts also share locks
+        AccountLockManager locks = new AccountLockManager(meterRegistry, 16);
+        int accounts = 200;
+        long[] balances = new long[accounts];
+        Arrays.fill(balances, 1_000_000);
+        AtomicLongArray expected = new AtomicLongArray(accounts);
+        for (int i = 0; i < accounts; i++) {
+            expected.set(i, 1_000_000);
+        }
+
+        runConcurrently(64, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 2_000; i++) {
+                int from = random.nextInt(accounts);
+                int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+                long amount = 1 + random.nextInt(100);
+                // Opposite directions arrive here too; canonical order keeps them deadlock-free
+                try (AccountLockManager.Held held = locks.lock(List.of((long) from, (long) to))) {
+                    long debited = balances[from] - amount;
+                    Thread.yield();
+                    balances[from] = debited;
+                    balances[to] = balances[to] + amount;
+                }
+                expected.addAndGet(from, -amount);
+                expected.addAndGet(to, amount);
+            }
+        });
+
+        for (int i = 0; i < accounts; i++) {
+            assertEquals(expected.get(i), balances[i], "Lost update on account " + i);
+        }
+        assertEquals(64 * 2_000, meterRegistry.get("account.lock.hold").timer().count());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void disjointAccountsScaleWithThreads() throws Exception {
+        AccountLockManager locks = new AccountLockManager(meterRegistry, 1024);
+        int operations = 40;
+
+        double single = throughput(locks, 1, operations, false);
+        double eight = throughput(locks, 8, operations, false);
+        double sixtyFour = throughput(locks, 64, operations, false);
+        double sixtyFourShared = throughput(locks, 64, operations / 8, true);
+
+        log.info("Transfers/s holding the lock 1 ms: 1 thread {}, 8 threads {}, 64 threads {} "
+                + "(64 threads on one account: {})", Math.round(single), Math.round(eight), Math.round(sixtyFour),
+                Math.round(sixtyFourShared));
+        // Linear would be 8x and 64x; stripe collisions and timer slack cost a little
+        assertTrue(eight > single * 5, "8 threads only " + eight / single + "x");
+        assertTrue(sixtyFour > single * 24, "64 threads only " + sixtyFour / single + "x");
+        assertTrue(sixtyFourShared < single * 2, "One shared account must serialize");
+    }
+
+    // Helper methods
+
+    // Each thread transfers between its own pair of accounts unless shared, holding the locks ~1 ms like a DB write
+    private static double throughput(AccountLockManager locks, int threads, int perThread, boolean shared)
+            throws Exception {
+        long started = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            long from = shared ? 1 : 2L * thread + 1;
+            for (int i = 0; i < perThread; i++) {
+                try (AccountLockManager.Held held = locks.lock(List.of(from, from + 1))) {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+        return threads * perThread * 1e9 / (System.nanoTime() - started);
+    }
+
+    private static void runConcurrently(int threads, IntConsumer body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    body.accept(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
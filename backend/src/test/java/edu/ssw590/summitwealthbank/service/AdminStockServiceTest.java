@@ -0,0 +1,61 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.AdminStockCreateRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class AdminStockServiceTest {
+
+    @Autowired
+    private AdminStockService adminStockService;
+
+    @Autowired
+    private ShareInventoryService shareInventory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void rolledBackCreateLeavesNoTradableSymbol() {
+        String symbol = symbol();
+        transactionTemplate.executeWithoutResult(status -> {
+            adminStockService.createStock(request(symbol));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(shareInventory.contains(symbol));
+    }
+
+    @Test
+    void committedCreateRegistersItsShares() {
+        String symbol = symbol();
+        adminStockService.createStock(request(symbol));
+
+        assertTrue(shareInventory.contains(symbol));
+        assertEquals(500, shareInventory.getAvailable(symbol));
+    }
+
+    private static String symbol() {
+        return "T" + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+    }
+
+    private static AdminStockCreateRequest request(String symbol) {
+        AdminStockCreateRequest request = new AdminStockCreateRequest();
+        request.setSymbol(symbol);
+        request.setCompanyName("Test Corp");
+        request.setCurrentPrice(BigDecimal.TEN);
+        request.setTotalShares(500L);
+        request.setSector("Test");
+        return request;
+    }
+}
@@ -0,0 +1,150 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.BulkTransferRequest;
+import edu.ssw590.summitwealthbank.dto.BulkTransferResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.TransactionRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Slf4j
+class BulkTransferServiceTest {
+
+    private static final int EMPLOYEES = 1000;
+    private static final BigDecimal SALARY = new BigDecimal("25.00");
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String email;
+    private Account payroll;
+    private List<Account> employees;
+
+    @BeforeEach
+    void createAccounts() {
+        email = email("payroll");
+        User employer = userRepository.save(user(email));
+        payroll = accountRepository.save(account(employer, new BigDecimal("100000.00")));
+        // Every employee is a different user, as in a real payroll
+        List<User> staff = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            staff.add(user(email("staff")));
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (User employee : userRepository.saveAll(staff)) {
+            accounts.add(account(employee));
+        }
+        employees = accountRepository.saveAll(accounts);
+    }
+
+    @Test
+    void thousandLegPayrollSettlesEveryLeg() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        BulkTransferResponse response = bulkTransferService.transferBatch(payrollRequest(employees), email);
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements > 0, "Hibernate statistics are not being collected");
+        // The destination check must not load each employee's user
+        assertTrue(statements < 10, "Payroll ran " + statements + " statements through Hibernate");
+
+        assertEquals(EMPLOYEES, response.getTransactionReferences().size());
+        assertEquals(0, new BigDecimal("25000.00").compareTo(response.getTotalAmount()));
+        assertEquals(0, new BigDecimal("75000.00").compareTo(balance(payroll)));
+        assertEquals(0, SALARY.compareTo(balance(employees.get(0))));
+        assertEquals(0, SALARY.compareTo(balance(employees.get(EMPLOYEES - 1))));
+        assertTrue(transactionRepository.findByTransactionReference(response.getTransactionReferences().get(0))
+                .isPresent());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void thousandLegPayrollSettlesInUnderASecond() {
+        // Warm up the code path once on a small run
+        bulkTransferService.transferBatch(payrollRequest(employees.subList(0, 10)), email);
+
+        long started = System.nanoTime();
+        bulkTransferService.transferBatch(payrollRequest(employees), email);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        log.info("Payroll of {} legs settled in {} ms", EMPLOYEES, elapsedMs);
+        assertTrue(elapsedMs < 1000, "Payroll took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void frozenDestinationRollsBackTheWholeBatch() {
+        Account frozen = employees.get(EMPLOYEES / 2);
+        frozen.setFrozen(true);
+        accountRepository.save(frozen);
+
+        assertThrows(IllegalStateException.class,
+                () -> bulkTransferService.transferBatch(payrollRequest(employees), email));
+        assertEquals(0, new BigDecimal("100000.00").compareTo(balance(payroll)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(employees.get(0))));
+    }
+
+    @Test
+    void totalIsCheckedAgainstTheSourceOnce() {
+        BulkTransferRequest request = payrollRequest(employees);
+        request.getLegs().get(0).setAmount(new BigDecimal("99000.00"));
+
+        assertEquals("Insufficient funds in source account",
+                assertThrows(IllegalArgumentException.class, () -> bulkTransferService.transferBatch(request, email))
+                        .getMessage());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(employees.get(0))));
+    }
+
+    // Helper methods
+
+    private BulkTransferRequest payrollRequest(List<Account> accounts) {
+        BulkTransferRequest request = new BulkTransferRequest();
+        request.setFromAccountId(payroll.getId());
+        request.setDescription("Payroll");
+        List<BulkTransferRequest.Leg> legs = new ArrayList<>();
+        for (Account account : accounts) {
+            BulkTransferRequest.Leg leg = new BulkTransferRequest.Leg();
+            leg.setToAccountId(account.getId());
+            leg.setAmount(SALARY);
+            legs.add(leg);
+        }
+        request.setLegs(legs);
+        return request;
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
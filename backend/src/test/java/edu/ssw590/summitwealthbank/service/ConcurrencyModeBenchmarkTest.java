@@ -0,0 +1,170 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Slf4j
+class ConcurrencyModeBenchmarkTest {
+
+    private static final int TOTAL_DEPOSITS = 320;
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ConcurrencyControl concurrencyControl;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ConcurrencyControl.Mode originalMode;
+    private String email;
+    private Account checking;
+    private Account savings;
+
+    @BeforeEach
+    void createAccounts() {
+        originalMode = concurrencyControl.getMode();
+        email = email("contention");
+        User user = userRepository.save(user(email));
+        checking = accountRepository.save(account(user, new BigDecimal("1000.00")));
+        savings = accountRepository.save(account(user, Account.AccountType.SAVINGS, new BigDecimal("1000.00")));
+    }
+
+    @AfterEach
+    void restoreMode() {
+        concurrencyControl.setMode(originalMode);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyControl.Mode.class)
+    void depositsOnOneAccountNeverLoseUpdates(ConcurrencyControl.Mode mode) throws Exception {
+        concurrencyControl.setMode(mode);
+        BigDecimal expected = balance(savings);
+
+        for (int threads : new int[]{1, 8, 64}) {
+            double conflictsBefore = conflicts("deposit", mode);
+            AtomicInteger failed = new AtomicInteger();
+            int perThread = TOTAL_DEPOSITS / threads;
+
+            long started = System.nanoTime();
+            runConcurrently(threads, () -> {
+                for (int i = 0; i < perThread; i++) {
+                    try {
+                        accountService.addMoney(savings.getId(), AMOUNT, email);
+                    } catch (ConcurrencyFailureException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            });
+            long elapsed = System.nanoTime() - started;
+
+            int succeeded = threads * perThread - failed.get();
+            expected = expected.add(AMOUNT.multiply(BigDecimal.valueOf(succeeded)));
+            assertEquals(0, expected.compareTo(balance(savings)), mode + " lost an update at " + threads + " threads");
+            log.info("{}, {} threads: {} deposits/s, {} conflicts, {} gave up",
+                    mode, threads, Math.round(succeeded * 1e9 / elapsed),
+                    (long) (conflicts("deposit", mode) - conflictsBefore), failed.get());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyControl.Mode.class)
+    void opposingTransfersConserveMoneyWithoutDeadlock(ConcurrencyControl.Mode mode) throws Exception {
+        concurrencyControl.setMode(mode);
+        AtomicInteger thread = new AtomicInteger();
+
+        runConcurrently(8, () -> {
+            boolean outbound = thread.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < 20; i++) {
+                TransferRequest request = new TransferRequest();
+                request.setFromAccountId(outbound ? checking.getId() : savings.getId());
+                request.setToAccountId(outbound ? savings.getId() : checking.getId());
+                request.setAmount(AMOUNT);
+                request.setDescription("Contention");
+                try {
+                    transferService.transfer(request, email);
+                } catch (ConcurrencyFailureException e) {
+                    // Gave up after retries: nothing moved
+                }
+            }
+        });
+
+        assertEquals(0, new BigDecimal("2000.00").compareTo(balance(checking).add(balance(savings))));
+    }
+
+    // Helper methods
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private double conflicts(String operation, ConcurrencyControl.Mode mode) {
+        var counter = meterRegistry.find("concurrency.conflicts")
+                .tag("operation", operation)
+                .tag("mode", mode.name().toLowerCase())
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void runConcurrently(int threads, Runnable body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    body.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Slf4j
+class ConditionalBalanceUpdateTest {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ConcurrencyControl concurrencyControl;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ConcurrencyControl.Mode originalMode;
+    private String email;
+    private Account checking;
+    private Account savings;
+
+    @BeforeEach
+    void createAccounts() {
+        originalMode = concurrencyControl.getMode();
+        concurrencyControl.setMode(ConcurrencyControl.Mode.CONDITIONAL);
+        email = email("conditional");
+        User user = userRepository.save(user(email));
+        checking = accountRepository.save(account(user, new BigDecimal("1000.00")));
+        savings = accountRepository.save(account(user, Account.AccountType.SAVINGS, new BigDecimal("1000.00")));
+    }
+
+    @AfterEach
+    void restoreMode() {
+        concurrencyControl.setMode(originalMode);
+    }
+
+    @Test
+    void transferTakesHalfTheStatementsOfReadModifyWrite() {
+        long conditional = statementsFor(ConcurrencyControl.Mode.CONDITIONAL);
+        long optimistic = statementsFor(ConcurrencyControl.Mode.OPTIMISTIC);
+
+        log.info("Statements per transfer: conditional {}, optimistic {}", conditional, optimistic);
+        assertTrue(conditional * 2 <= optimistic, conditional + " statements vs " + optimistic);
+    }
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 32; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10; i++) {
+                        try {
+                            transferService.transfer(request(checking, savings), email);
+                            succeeded.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 1000.00 covers exactly 100 transfers of 10.00; the other 220 are refused by the WHERE clause
+        assertEquals(100, succeeded.get());
+        assertEquals(220, refused.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(checking)));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(balance(savings)));
+    }
+
+    @Test
+    void refusedDebitsReportTheSameErrorsAsBefore() {
+        TransferRequest tooMuch = request(checking, savings);
+        tooMuch.setAmount(new BigDecimal("5000.00"));
+        assertEquals("Insufficient funds in source account",
+                assertThrows(IllegalArgumentException.class, () -> transferService.transfer(tooMuch, email))
+                        .getMessage());
+        String stranger = email("stranger");
+        userRepository.save(user(stranger));
+        assertThrows(SecurityException.class,
+                () -> transferService.transfer(request(checking, savings), stranger));
+
+        Account frozen = accountRepository.findById(savings.getId()).orElseThrow();
+        frozen.setFrozen(true);
+        accountRepository.save(frozen);
+        assertEquals("Destination account is frozen. Transfer cannot be completed.",
+                assertThrows(IllegalStateException.class,
+                        () -> transferService.transfer(request(checking, savings), email)).getMessage());
+        // The debit that ran before the refused credit was rolled back
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(checking)));
+    }
+
+    // Helper methods
+
+    private long statementsFor(ConcurrencyControl.Mode mode) {
+        concurrencyControl.setMode(mode);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        transferService.transfer(request(checking, savings), email);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private TransferRequest request(Account from, Account to) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(from.getId());
+        request.setToAccountId(to.getId());
+        request.setAmount(AMOUNT);
+        request.setDescription("Conditional");
+        return request;
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
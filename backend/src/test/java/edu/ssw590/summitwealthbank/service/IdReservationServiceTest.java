@@ -0,0 +1,75 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.repository.IdReservationRepository;
+import edu.ssw590.summitwealthbank.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class IdReservationServiceTest {
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    @Autowired
+    private IdReservationService reservationService;
+
+    @Autowired
+    private IdReservationRepository reservationRepository;
+
+    @Test
+    void restartResumesAfterThePersistedReservation() {
+        String name = "test-" + UUID.randomUUID();
+        SnowflakeIdGenerator first = generator();
+        reservationService.register(name, first);
+        long reserved = reservationRepository.findById(name).orElseThrow().getReservedTick();
+
+        // Far beyond the clock, as a long burst would go, but inside the reservation
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(first.nextId());
+        }
+        assertTrue(first.getLatestTick() <= reserved);
+
+        SnowflakeIdGenerator restarted = generator();
+        reservationService.register(name, restarted);
+        for (int i = 0; i < 1000; i++) {
+            long id = restarted.nextId();
+            assertTrue(ids.add(id), "A restarted generator repeated an id");
+            assertTrue(id >>> 6 > reserved, "Issued inside the previous reservation");
+        }
+        assertTrue(reservationRepository.findById(name).orElseThrow().getReservedTick() > reserved);
+    }
+
+    @Test
+    void burstBeyondTheReservationExtendsItWithoutWaitingForTheSchedule() {
+        String name = "test-" + UUID.randomUUID();
+        SnowflakeIdGenerator generator = generator();
+        reservationService.register(name, generator);
+        long reserved = reservationRepository.findById(name).orElseThrow().getReservedTick();
+
+        // 2000 ids need 500 ticks, well past the first 300
+        long started = System.nanoTime();
+        for (int i = 0; i < 2000; i++) {
+            generator.nextId();
+        }
+        assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(generator.getLatestTick() > reserved);
+        assertTrue(reservationRepository.findById(name).orElseThrow().getReservedTick() >= generator.getLatestTick());
+    }
+
+    // Helper methods
+
+    private static SnowflakeIdGenerator generator() {
+        // 1 s ticks with 4 ids each, so 1000 ids borrow 250 of the 300 reserved ticks
+        return new SnowflakeIdGenerator(EPOCH, 1000, 4, 2, 1);
+    }
+}
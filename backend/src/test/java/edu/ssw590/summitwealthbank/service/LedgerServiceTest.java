@@ -0,0 +1,131 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.AccountOpenRequest;
+import edu.ssw590.summitwealthbank.dto.LedgerBalanceResponse;
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.repository.LedgerEntryRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class LedgerServiceTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LedgerEntryRepository entryRepository;
+
+    private String email;
+    private Account checking;
+    private Account savings;
+
+    @BeforeEach
+    void openAccounts() {
+        email = email("ledger");
+        userRepository.save(user(email));
+        checking = open(Account.AccountType.CHECKING, "500.00");
+        savings = open(Account.AccountType.SAVINGS, "0");
+    }
+
+    @Test
+    void everyMovementIsPostedAndBalancesReconcile() {
+        accountService.addMoney(savings.getId(), new BigDecimal("200.00"), email);
+        Transaction transfer = transferService.transfer(request(checking, savings, "120.00"), email);
+
+        List<LedgerEntry> entries = entryRepository.findByAccountIdOrderByIdAsc(savings.getId());
+        assertEquals(2, entries.size());
+        assertEquals(LedgerEntry.Kind.DEPOSIT, entries.get(0).getKind());
+        assertEquals(transfer.getTransactionReference(), entries.get(1).getReference());
+
+        // Both sides of the transfer share the reference and cancel out
+        LedgerEntry debit = entryRepository.findByAccountIdOrderByIdAsc(checking.getId()).get(1);
+        assertEquals(transfer.getTransactionReference(), debit.getReference());
+        assertEquals(0, debit.getAmount().add(entries.get(1).getAmount()).signum());
+
+        assertTrue(ledgerService.reconcile(checking.getId()).isConsistent());
+        assertTrue(ledgerService.reconcile(savings.getId()).isConsistent());
+        assertEquals(0, new BigDecimal("380.00").compareTo(ledgerService.reconcile(checking.getId()).getLedgerBalance()));
+    }
+
+    @Test
+    void balanceAsOfReadsTheCheckpointPlusLaterEntries() throws Exception {
+        transferService.transfer(request(checking, savings, "100.00"), email);
+        Thread.sleep(5);
+        LocalDateTime checkpointAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(5);
+        transferService.transfer(request(checking, savings, "50.00"), email);
+        Thread.sleep(5);
+        LocalDateTime between = LocalDateTime.now();
+        Thread.sleep(5);
+        transferService.transfer(request(checking, savings, "25.00"), email);
+
+        assertTrue(ledgerService.checkpoint(checkpointAt) >= 2);
+
+        LedgerBalanceResponse beforeCheckpoint = ledgerService.balanceAsOf(checking.getId(), checkpointAt.minus(1, ChronoUnit.MICROS));
+        assertNull(beforeCheckpoint.getCheckpointAsOf());
+        LedgerBalanceResponse atCheckpoint = ledgerService.balanceAsOf(checking.getId(), checkpointAt);
+        assertEquals(0, new BigDecimal("400.00").compareTo(atCheckpoint.getBalance()));
+        LedgerBalanceResponse later = ledgerService.balanceAsOf(checking.getId(), between);
+        assertNotNull(later.getCheckpointAsOf());
+        assertEquals(0, new BigDecimal("350.00").compareTo(later.getBalance()));
+        assertEquals(0, new BigDecimal("325.00").compareTo(
+                ledgerService.balanceAsOf(checking.getId(), LocalDateTime.now()).getBalance()));
+
+        // A later checkpoint builds on the previous one
+        Thread.sleep(5);
+        LocalDateTime secondAt = LocalDateTime.now();
+        ledgerService.checkpoint(secondAt);
+        LedgerBalanceResponse latest = ledgerService.balanceAsOf(checking.getId(), secondAt);
+        assertEquals(secondAt.truncatedTo(ChronoUnit.MICROS), latest.getCheckpointAsOf());
+        assertEquals(0, new BigDecimal("325.00").compareTo(latest.getBalance()));
+        assertEquals(0, new BigDecimal("350.00").compareTo(
+                ledgerService.balanceAsOf(checking.getId(), between).getBalance()));
+    }
+
+    // Helper methods
+
+    private Account open(Account.AccountType type, String initialDeposit) {
+        AccountOpenRequest request = new AccountOpenRequest();
+        request.setEmail(email);
+        request.setType(type);
+        request.setInitialDeposit(new BigDecimal(initialDeposit));
+        return accountService.openAccount(request);
+    }
+
+    private TransferRequest request(Account from, Account to, String amount) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(from.getId());
+        request.setToAccountId(to.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Ledger");
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.config.MarketSimulatorProperties;
+import edu.ssw590.summitwealthbank.dto.StockQuote;
+import edu.ssw590.summitwealthbank.model.Stock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class MarketSimulatorServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StockQuoteCache quoteCache = new StockQuoteCache(null, meterRegistry);
+
+    @Test
+    void movesPricesAndAdoptsExternalPriceChanges() {
+        addStocks(20);
+        MarketSimulatorService simulator = simulator();
+
+        for (int i = 0; i < 200; i++) {
+            simulator.tick();
+        }
+
+        long moved = quoteCache.getAll().stream()
+                .filter(quote -> quote.getCurrentPrice().compareTo(new BigDecimal("100.00")) != 0)
+                .count();
+        assertTrue(moved > 0, "Expected some prices to move");
+        quoteCache.getAll().forEach(quote ->
+                assertTrue(quote.getCurrentPrice().compareTo(new BigDecimal("0.01")) >= 0));
+
+        // An admin update lands in the cache; the walk must continue from it
+        quoteCache.refresh(stock("SYM0", new BigDecimal("500.00")));
+        simulator.tick();
+        BigDecimal price = quoteCache.find("SYM0").map(StockQuote::getCurrentPrice).orElseThrow();
+        assertTrue(price.subtract(new BigDecimal("500.00")).abs().compareTo(new BigDecimal("5.00")) < 0,
+                "Expected the walk to restart near 500 but was " + price);
+    }
+
+    /**
+     * Throughput benchmark: 10k symbols must tick well inside the 100ms budget of 10 ticks/s,
+     * with the price listeners production runs on every reprice (candles and portfolio values).
+     */
+    @Test
+    @Tag("benchmark")
+    void ticksTenThousandSymbolsAtTenTicksPerSecond() {
+        addStocks(10_000);
+        PriceHistoryService priceHistory = new PriceHistoryService(quoteCache, null, null, meterRegistry);
+        ReflectionTestUtils.setField(priceHistory, "minuteCapacity", 720);
+        ReflectionTestUtils.setField(priceHistory, "hourCapacity", 336);
+        ReflectionTestUtils.setField(priceHistory, "dayCapacity", 366);
+        priceHistory.registerListener();
+        PortfolioValuationIndex valuationIndex = new PortfolioValuationIndex(quoteCache, null, meterRegistry);
+        valuationIndex.registerListener();
+        // 10k accounts holding five symbols each
+        for (long account = 0; account < 10_000; account++) {
+            for (int i = 0; i < 5; i++) {
+                valuationIndex.adjustPosition(account, "SYM" + ((account * 7 + i * 1_999) % 10_000), 10);
+            }
+        }
+        MarketSimulatorService simulator = simulator();
+
+        for (int i = 0; i < 20; i++) {
+            simulator.tick();
+        }
+
+        int ticks = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            simulator.tick();
+        }
+        double millisPerTick = (System.nanoTime() - start) / 1_000_000.0 / ticks;
+
+        log.info("MarketSimulator: 10,000 symbols with candle and valuation listeners, {} ms/tick",
+                Math.round(millisPerTick * 100) / 100.0);
+        assertTrue(millisPerTick < 100, "Expected < 100 ms per tick but was " + millisPerTick);
+    }
+
+    private MarketSimulatorService simulator() {
+        MarketSimulatorProperties properties = new MarketSimulatorProperties();
+        properties.setEnabled(true);
+        // Exaggerated time scale so cent-level moves show up within a few ticks
+        properties.setTimeScale(3600);
+        properties.getSectorVolatility().put("technology", 0.35);
+        MarketSimulatorService simulator = new MarketSimulatorService(quoteCache, null, meterRegistry, properties);
+        simulator.start();
+        return simulator;
+    }
+
+    private void addStocks(int count) {
+        for (int i = 0; i < count; i++) {
+            quoteCache.refresh(stock("SYM" + i, new BigDecimal("100.00")));
+        }
+    }
+
+    private Stock stock(String symbol, BigDecimal price) {
+        return Stock.builder()
+                .symbol(symbol)
+                .companyName(symbol + " Inc.")
+                .currentPrice(price)
+                .totalShares(10_000L)
+                .availableShares(10_000L)
+                .sector(symbol.hashCode() % 2 == 0 ? "Technology" : "Utilities")
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.AdminStockCreateRequest;
+import edu.ssw590.summitwealthbank.dto.OrderBookResponse;
+import edu.ssw590.summitwealthbank.dto.StockOrderRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.LedgerEntry;
+import edu.ssw590.summitwealthbank.model.StockOrder;
+import edu.ssw590.summitwealthbank.model.StockPosition;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.StockPositionRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Slf4j
+class OrderMatchingBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int ORDERS_PER_THREAD = 100;
+    private static final BigDecimal FUNDS = new BigDecimal("100000.00");
+
+    @Autowired
+    private OrderMatchingService orderMatchingService;
+
+    @Autowired
+    private AdminStockService adminStockService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StockPositionRepository positionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int originalMaxBatch;
+
+    @BeforeEach
+    void rememberBatchSize() {
+        originalMaxBatch = (int) ReflectionTestUtils.getField(orderMatchingService, "maxBatch");
+    }
+
+    @AfterEach
+    void restoreBatchSize() {
+        ReflectionTestUtils.setField(orderMatchingService, "maxBatch", originalMaxBatch);
+    }
+
+    /**
+     * Many traders crossing buys and sells on one symbol through the whole service path:
+     * escrow, match and settlement. Settling one order per transaction is compared with
+     * the default batch.
+     */
+    @Test
+    @Tag("benchmark")
+    void settlesConcurrentOrdersOnOneSymbol() throws Exception {
+        // Warm up the JIT before measuring
+        run();
+        ReflectionTestUtils.setField(orderMatchingService, "maxBatch", 1);
+        double single = run();
+        ReflectionTestUtils.setField(orderMatchingService, "maxBatch", originalMaxBatch);
+        DistributionSummary batches = meterRegistry.find("order.settle.batch").summary();
+        long batchesBefore = batches.count();
+        double totalBefore = batches.totalAmount();
+        double batched = run();
+
+        log.info("Orders/s on one symbol at {} threads: one per transaction {}, batched {} ({} settled per transaction)",
+                THREADS, Math.round(single), Math.round(batched),
+                Math.round((batches.totalAmount() - totalBefore) / (batches.count() - batchesBefore) * 10) / 10.0);
+    }
+
+    // Helper methods
+
+    private double run() throws Exception {
+        String symbol = "B" + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        AdminStockCreateRequest stock = new AdminStockCreateRequest();
+        stock.setSymbol(symbol);
+        stock.setCompanyName("Order Benchmark Corp");
+        stock.setCurrentPrice(new BigDecimal("5.00"));
+        stock.setTotalShares(1000L);
+        stock.setSector("Test");
+        adminStockService.createStock(stock);
+
+        List<String> emails = new ArrayList<>();
+        List<Account> accounts = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String email = email("order-bench");
+            Account account = accountRepository.save(account(userRepository.save(user(email)), FUNDS));
+            ledgerService.post(account.getId(), FUNDS, LedgerEntry.Kind.OPENING, null);
+            positionRepository.save(StockPosition.builder()
+                    .accountId(account.getId())
+                    .stockSymbol(symbol)
+                    .totalShares((long) ORDERS_PER_THREAD)
+                    .averageCostBasis(new BigDecimal("5.00"))
+                    .build());
+            emails.add(email);
+            accounts.add(account);
+        }
+
+        AtomicLong filled = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long started;
+        long elapsed;
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Account account = accounts.get(t);
+                String email = emails.get(t);
+                // Half the traders sell and half buy, all at one price, so most orders cross
+                StockTransaction.TransactionType side = t % 2 == 0
+                        ? StockTransaction.TransactionType.SELL
+                        : StockTransaction.TransactionType.BUY;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                        filled.addAndGet(orderMatchingService.placeOrder(order(account, symbol, side), email)
+                                .getFilledQuantity());
+                    }
+                    return null;
+                }));
+            }
+            started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(300, TimeUnit.SECONDS);
+            }
+            elapsed = System.nanoTime() - started;
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        // Every share that changed hands was paid for, and no money appeared or vanished
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            total = total.add(accountRepository.findById(account.getId()).orElseThrow().getBalance());
+            assertTrue(ledgerService.reconcile(account.getId()).isConsistent());
+        }
+        BigDecimal resting = new BigDecimal("5.00").multiply(BigDecimal.valueOf(
+                orderMatchingService.getOrderBook(symbol, 1).getBids().stream().mapToLong(OrderBookResponse.Level::getQuantity).sum()));
+        assertEquals(0, FUNDS.multiply(BigDecimal.valueOf(THREADS)).compareTo(total.add(resting)));
+        assertTrue(filled.get() > 0);
+        return THREADS * ORDERS_PER_THREAD * 1e9 / elapsed;
+    }
+
+    private StockOrderRequest order(Account account, String symbol, StockTransaction.TransactionType side) {
+        StockOrderRequest request = new StockOrderRequest();
+        request.setAccountId(account.getId());
+        request.setStockSymbol(symbol);
+        request.setSide(side);
+        request.setOrderType(StockOrder.OrderType.LIMIT);
+        request.setLimitPrice(new BigDecimal("5.00"));
+        request.setQuantity(1L);
+        return request;
+    }
+}
@@ -0,0 +1,183 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.AccountOpenRequest;
+import edu.ssw590.summitwealthbank.dto.AdminStockCreateRequest;
+import edu.ssw590.summitwealthbank.dto.StockOrderRequest;
+import edu.ssw590.summitwealthbank.dto.StockOrderResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.StockOrder;
+import edu.ssw590.summitwealthbank.model.StockPosition;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.StockPositionRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OrderMatchingServiceTest {
+
+    @Autowired
+    private OrderMatchingService orderMatchingService;
+
+    @Autowired
+    private AdminStockService adminStockService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StockPositionRepository positionRepository;
+
+    private String symbol;
+    private String buyerEmail;
+    private String sellerEmail;
+    private Account buyer;
+    private Account seller;
+
+    @BeforeEach
+    void createMarket() {
+        symbol = "O" + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        AdminStockCreateRequest stock = new AdminStockCreateRequest();
+        stock.setSymbol(symbol);
+        stock.setCompanyName("Order Test Corp");
+        stock.setCurrentPrice(new BigDecimal("5.00"));
+        stock.setTotalShares(1000L);
+        stock.setSector("Test");
+        adminStockService.createStock(stock);
+
+        buyerEmail = email("buyer");
+        sellerEmail = email("seller");
+        buyer = open(buyerEmail, new BigDecimal("1000.00"));
+        seller = open(sellerEmail, BigDecimal.ZERO);
+        positionRepository.save(StockPosition.builder()
+                .accountId(seller.getId())
+                .stockSymbol(symbol)
+                .totalShares(10L)
+                .averageCostBasis(new BigDecimal("4.00"))
+                .build());
+    }
+
+    @Test
+    void escrowAndFillMoveBalancesAndLedgerTogether() {
+        orderMatchingService.placeOrder(order(seller, StockTransaction.TransactionType.SELL, "5.00", 10), sellerEmail);
+        StockOrderResponse bought =
+                orderMatchingService.placeOrder(order(buyer, StockTransaction.TransactionType.BUY, "6.00", 10), buyerEmail);
+
+        assertEquals(StockOrder.OrderStatus.FILLED.name(), bought.getStatus());
+        // Escrowed at the 6.00 limit, filled at the maker's 5.00, the difference refunded
+        assertEquals(0, new BigDecimal("950.00").compareTo(balance(buyer)));
+        assertEquals(0, new BigDecimal("50.00").compareTo(balance(seller)));
+        assertTrue(ledgerService.reconcile(buyer.getId()).isConsistent());
+        assertTrue(ledgerService.reconcile(seller.getId()).isConsistent());
+    }
+
+    @Test
+    void escrowBeyondTheBalanceIsRefusedAndNothingRests() {
+        assertThrows(IllegalArgumentException.class, () -> orderMatchingService.placeOrder(
+                order(buyer, StockTransaction.TransactionType.BUY, "200.00", 10), buyerEmail));
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(buyer)));
+        assertTrue(orderMatchingService.getOrderBook(symbol, 10).getBids().isEmpty());
+        assertTrue(orderMatchingService.getOpenOrders(buyerEmail).isEmpty());
+    }
+
+    @Test
+    void cancelReturnsTheEscrow() {
+        StockOrderResponse resting =
+                orderMatchingService.placeOrder(order(buyer, StockTransaction.TransactionType.BUY, "4.00", 10), buyerEmail);
+        assertEquals(0, new BigDecimal("960.00").compareTo(balance(buyer)));
+
+        orderMatchingService.cancelOrder(resting.getOrderId(), buyerEmail);
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(buyer)));
+        assertTrue(orderMatchingService.getOrderBook(symbol, 10).getBids().isEmpty());
+        assertTrue(ledgerService.reconcile(buyer.getId()).isConsistent());
+    }
+
+    @Test
+    void anOrderNeverTradesWithItsOwnersRestingOrder() {
+        positionRepository.save(StockPosition.builder()
+                .accountId(buyer.getId())
+                .stockSymbol(symbol)
+                .totalShares(5L)
+                .averageCostBasis(new BigDecimal("4.00"))
+                .build());
+        orderMatchingService.placeOrder(order(buyer, StockTransaction.TransactionType.SELL, "5.00", 5), buyerEmail);
+
+        StockOrderResponse bought =
+                orderMatchingService.placeOrder(order(buyer, StockTransaction.TransactionType.BUY, "6.00", 5), buyerEmail);
+
+        assertEquals(StockOrder.OrderStatus.CANCELLED.name(), bought.getStatus());
+        assertEquals(0L, bought.getFilledQuantity());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(buyer)));
+        assertEquals(5L, orderMatchingService.getOrderBook(symbol, 10).getAsks().get(0).getQuantity());
+        assertTrue(orderMatchingService.getOrderBook(symbol, 10).getBids().isEmpty());
+        assertTrue(ledgerService.reconcile(buyer.getId()).isConsistent());
+    }
+
+    @Test
+    void aFillThatCannotSettlePutsTheBookAndEscrowBack() {
+        orderMatchingService.placeOrder(order(seller, StockTransaction.TransactionType.SELL, "5.00", 10), sellerEmail);
+        Account frozen = accountRepository.findById(seller.getId()).orElseThrow();
+        frozen.setFrozen(true);
+        accountRepository.save(frozen);
+
+        // The seller's proceeds cannot be credited to a frozen account, so the fill is refused
+        assertThrows(IllegalStateException.class, () -> orderMatchingService.placeOrder(
+                order(buyer, StockTransaction.TransactionType.BUY, "6.00", 10), buyerEmail));
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(buyer)));
+        assertEquals(10L, orderMatchingService.getOrderBook(symbol, 10).getAsks().get(0).getQuantity());
+        assertTrue(orderMatchingService.getOrderBook(symbol, 10).getBids().isEmpty());
+        assertTrue(orderMatchingService.getOpenOrders(buyerEmail).isEmpty());
+        assertTrue(ledgerService.reconcile(buyer.getId()).isConsistent());
+    }
+
+    // Helper methods
+
+    private Account open(String email, BigDecimal deposit) {
+        userRepository.save(user(email));
+        AccountOpenRequest request = new AccountOpenRequest();
+        request.setEmail(email);
+        request.setType(Account.AccountType.CHECKING);
+        request.setInitialDeposit(deposit);
+        return accountService.openAccount(request);
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    private StockOrderRequest order(Account account, StockTransaction.TransactionType side, String limitPrice,
+                                    long quantity) {
+        StockOrderRequest request = new StockOrderRequest();
+        request.setAccountId(account.getId());
+        request.setStockSymbol(symbol);
+        request.setSide(side);
+        request.setOrderType(StockOrder.OrderType.LIMIT);
+        request.setLimitPrice(new BigDecimal(limitPrice));
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,172 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.StockPnlResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.StockTransaction;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class PnlRollupServiceTest {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_transaction (transaction_reference, account_id, stock_symbol, type, quantity, "
+                    + "price_per_share, total_amount, profit_loss, timestamp, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final LocalDateTime DAY_ONE = LocalDateTime.of(2025, 4, 1, 10, 0);
+    private static final LocalDateTime DAY_TWO = DAY_ONE.plusDays(1);
+
+    @Autowired
+    private PnlRollupService pnlRollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String email;
+    private Account account;
+
+    @BeforeEach
+    void createAccount() {
+        email = email("pnl");
+        account = accountRepository.save(account(userRepository.save(user(email))));
+    }
+
+    @Test
+    void recordAddsToExistingRollupsAndMergesKeysWithinABatch() {
+        // Two trades on the same (account, symbol, day) in one batch, then a third in a later one
+        transactionTemplate.executeWithoutResult(status -> pnlRollupService.record(List.of(
+                trade("AAA", StockTransaction.TransactionType.BUY, 10, "100.00", null, DAY_ONE),
+                trade("AAA", StockTransaction.TransactionType.SELL, 4, "48.00", "8.00", DAY_ONE.plusHours(1)))));
+        transactionTemplate.executeWithoutResult(status -> pnlRollupService.record(List.of(
+                trade("AAA", StockTransaction.TransactionType.SELL, 2, "30.00", "10.00", DAY_ONE.plusHours(2)),
+                trade("BBB", StockTransaction.TransactionType.SELL, 1, "5.00", "-1.50", DAY_TWO))));
+
+        StockPnlResponse aaa = bySymbol("AAA");
+        assertEquals(3L, aaa.getTradeCount());
+        assertEquals(10L, aaa.getSharesBought());
+        assertEquals(6L, aaa.getSharesSold());
+        assertEquals(0, new BigDecimal("100.00").compareTo(aaa.getBuyAmount()));
+        assertEquals(0, new BigDecimal("78.00").compareTo(aaa.getSellAmount()));
+        assertEquals(0, new BigDecimal("18.00").compareTo(aaa.getRealizedProfitLoss()));
+
+        List<StockPnlResponse> byDay = pnlRollupService.getUserPnl(email, null, null, "day");
+        assertEquals(2, byDay.size());
+        assertEquals(0, new BigDecimal("16.50").compareTo(byDay.stream()
+                .map(StockPnlResponse::getRealizedProfitLoss)
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
+    @Test
+    void backfillRebuildsRollupsFromTradeHistory() {
+        insertTrade("AAA", "BUY", 10, "100.00", null, DAY_ONE);
+        insertTrade("AAA", "SELL", 5, "60.00", "10.00", DAY_ONE.plusHours(3));
+        insertTrade("AAA", "SELL", 5, "70.00", "20.00", DAY_TWO);
+        // A stale rollup that the rebuild must replace, not add to
+        transactionTemplate.executeWithoutResult(status -> pnlRollupService.record(List.of(
+                trade("AAA", StockTransaction.TransactionType.SELL, 99, "999.00", "999.00", DAY_ONE))));
+
+        pnlRollupService.backfill();
+
+        StockPnlResponse aaa = bySymbol("AAA");
+        assertEquals(3L, aaa.getTradeCount());
+        assertEquals(10L, aaa.getSharesBought());
+        assertEquals(10L, aaa.getSharesSold());
+        assertEquals(0, new BigDecimal("130.00").compareTo(aaa.getSellAmount()));
+        assertEquals(0, new BigDecimal("30.00").compareTo(aaa.getRealizedProfitLoss()));
+        assertEquals(2, pnlRollupService.getUserPnl(email, null, null, "day").size());
+    }
+
+    @Test
+    void backfillWaitsForTradesStillRecordingAndCountsThemOnce() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> trade = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    insertTrade("AAA", "SELL", 3, "30.00", "6.00", DAY_ONE);
+                    pnlRollupService.record(List.of(
+                            trade("AAA", StockTransaction.TransactionType.SELL, 3, "30.00", "6.00", DAY_ONE)));
+                    recorded.countDown();
+                    await(release);
+                }));
+        assertTrue(recorded.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> backfill = CompletableFuture.supplyAsync(pnlRollupService::backfill);
+        Thread.sleep(200);
+        assertFalse(backfill.isDone(), "The rebuild must wait for the open trade");
+
+        release.countDown();
+        trade.get(10, TimeUnit.SECONDS);
+        backfill.get(10, TimeUnit.SECONDS);
+
+        StockPnlResponse aaa = bySymbol("AAA");
+        assertEquals(1L, aaa.getTradeCount());
+        assertEquals(0, new BigDecimal("6.00").compareTo(aaa.getRealizedProfitLoss()));
+    }
+
+    // Helper methods
+
+    private StockPnlResponse bySymbol(String symbol) {
+        return pnlRollupService.getUserPnl(email, null, null, "symbol").stream()
+                .filter(row -> row.getStockSymbol().equals(symbol))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private StockTransaction trade(String symbol, StockTransaction.TransactionType type, long quantity,
+                                   String total, String profitLoss, LocalDateTime timestamp) {
+        return StockTransaction.builder()
+                .accountId(account.getId())
+                .stockSymbol(symbol)
+                .type(type)
+                .quantity(quantity)
+                .totalAmount(new BigDecimal(total))
+                .profitLoss(profitLoss != null ? new BigDecimal(profitLoss) : null)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private void insertTrade(String symbol, String type, long quantity, String total, String profitLoss,
+                             LocalDateTime timestamp) {
+        jdbcTemplate.update(INSERT_SQL, "STK-" + UUID.randomUUID(), account.getId(), symbol, type, quantity,
+                BigDecimal.ONE, new BigDecimal(total), profitLoss != null ? new BigDecimal(profitLoss) : null,
+                Timestamp.valueOf(timestamp), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
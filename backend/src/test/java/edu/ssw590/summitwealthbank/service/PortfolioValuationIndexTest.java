@@ -0,0 +1,78 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.model.Stock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PortfolioValuationIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StockQuoteCache quoteCache = new StockQuoteCache(null, meterRegistry);
+    private final PortfolioValuationIndex index = new PortfolioValuationIndex(quoteCache, null, meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        index.registerListener();
+        quoteCache.refresh(stock("AAPL", "100.00"));
+        quoteCache.refresh(stock("MSFT", "50.00"));
+    }
+
+    @Test
+    void priceChangeRevaluesOnlyHoldersByDelta() {
+        index.adjustPosition(1L, "AAPL", 10);
+        index.adjustPosition(1L, "MSFT", 4);
+        index.adjustPosition(2L, "AAPL", 3);
+        index.adjustPosition(3L, "MSFT", 7);
+
+        assertValue("1200.00", 1L);
+        assertValue("300.00", 2L);
+        assertValue("350.00", 3L);
+
+        quoteCache.reprice("AAPL", price -> new BigDecimal("110.50"), LocalDateTime.now());
+
+        assertValue("1305.00", 1L);
+        assertValue("331.50", 2L);
+        assertValue("350.00", 3L);
+        // Account 3 holds no AAPL and must not be touched
+        assertEquals(2.0, meterRegistry.counter("portfolio.valuation.revaluations").count());
+        assertEquals(0, new BigDecimal("1636.50").compareTo(index.getMarketValue(List.of(1L, 2L))));
+    }
+
+    @Test
+    void positionChangesUseTheCurrentPrice() {
+        index.adjustPosition(1L, "AAPL", 10);
+        quoteCache.reprice("AAPL", price -> new BigDecimal("90.00"), LocalDateTime.now());
+        index.adjustPosition(1L, "AAPL", -4);
+
+        assertValue("540.00", 1L);
+
+        index.adjustPosition(1L, "AAPL", -6);
+        assertValue("0.00", 1L);
+
+        // No holders left, so a later price change revalues nobody
+        quoteCache.reprice("AAPL", price -> new BigDecimal("95.00"), LocalDateTime.now());
+        assertValue("0.00", 1L);
+    }
+
+    private void assertValue(String expected, Long accountId) {
+        BigDecimal actual = index.getMarketValue(accountId);
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), "Expected " + expected + " but was " + actual);
+    }
+
+    private Stock stock(String symbol, String price) {
+        return Stock.builder()
+                .symbol(symbol)
+                .companyName(symbol)
+                .currentPrice(new BigDecimal(price))
+                .totalShares(10_000L)
+                .availableShares(10_000L)
+                .build();
+    }
+}
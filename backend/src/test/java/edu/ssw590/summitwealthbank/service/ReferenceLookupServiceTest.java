@@ -0,0 +1,140 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ReferenceLookupServiceTest {
+
+    // Enough for the transfers these tests make
+    private static final BigDecimal OPENING_BALANCE = BigDecimal.valueOf(100);
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ReferenceLookupService referenceLookup;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String email;
+    private User owner;
+    private Account checking;
+    private Account stranger;
+
+    @BeforeEach
+    void createAccounts() {
+        email = email("lookup");
+        owner = userRepository.save(user(email));
+        checking = accountRepository.save(account(owner, OPENING_BALANCE));
+        stranger = accountRepository.save(account(userRepository.save(user(email("other"))), OPENING_BALANCE));
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromTheCache() {
+        Transaction transfer = transferService.transfer(transfer(), email);
+
+        double hitsBefore = lookups("hit");
+        assertEquals(transfer.getId(), transferService.searchByReference(transfer.getTransactionReference(), email).getId());
+        assertEquals(transfer.getId(), transferService.searchByReference(transfer.getTransactionReference(), email).getId());
+        assertEquals(hitsBefore + 1, lookups("hit"));
+    }
+
+    @Test
+    void unknownReferencesAreRejectedByTheFilter() {
+        double rejectedBefore = lookups("rejected");
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.searchByReference("TXN-20250101-NOSUCH", email));
+        assertEquals(rejectedBefore + 1, lookups("rejected"));
+    }
+
+    @Test
+    void referencesWrittenElsewhereAppearAfterRefresh() {
+        // As another instance would write it: not issued by this generator
+        String reference = "TXN-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO transaction (transaction_reference, from_account_id, to_account_id, amount, "
+                        + "description, timestamp) VALUES (?, ?, ?, ?, ?, ?)",
+                reference, stranger.getId(), checking.getId(), BigDecimal.ONE, "Imported",
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        referenceLookup.refresh();
+        assertEquals(reference, transferService.searchByReference(reference, email).getTransactionReference());
+    }
+
+    @Test
+    void recentReferencesWrittenElsewhereAreFoundBeforeRefresh() {
+        // Dated today, as another instance's generator would issue it, and not refreshed yet
+        String reference = "TXN-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "-"
+                + UUID.randomUUID().toString().replace("-", "").substring(0, 6).toUpperCase();
+        jdbcTemplate.update("INSERT INTO transaction (transaction_reference, from_account_id, to_account_id, amount, "
+                        + "description, timestamp) VALUES (?, ?, ?, ?, ?, ?)",
+                reference, stranger.getId(), checking.getId(), BigDecimal.ONE, "Imported",
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        assertEquals(reference, transferService.searchByReference(reference, email).getTransactionReference());
+        assertEquals(reference, referenceLookup.findTransfer(reference).orElseThrow().getTransactionReference());
+    }
+
+    @Test
+    void accessCheckSeesAccountsOpenedAfterCaching() {
+        Transaction transfer = transferService.transfer(transfer(), email);
+        transferService.searchByReference(transfer.getTransactionReference(), email);
+
+        Account savings = accountRepository.save(account(owner, OPENING_BALANCE));
+        assertTrue(referenceLookup.ownsAny(email, savings.getId()));
+        assertFalse(referenceLookup.ownsAny(email, stranger.getId()));
+        String outsider = userRepository.save(user(email("outsider"))).getEmail();
+        assertThrows(SecurityException.class,
+                () -> transferService.searchByReference(transfer.getTransactionReference(), outsider));
+    }
+
+    // Helper methods
+
+    private double lookups(String result) {
+        return meterRegistry.get("reference.lookups").tag("result", result).functionCounter().count();
+    }
+
+    private TransferRequest transfer() {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(checking.getId());
+        request.setToAccountId(stranger.getId());
+        request.setAmount(BigDecimal.TEN);
+        request.setDescription("Lookup test");
+        return request;
+    }
+}
@@ -0,0 +1,119 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.CursorPage;
+import edu.ssw590.summitwealthbank.dto.StockTransactionResponse;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.StockRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StockTransactionHistoryTest {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO stock_transaction (transaction_reference, account_id, stock_symbol, type, quantity, "
+                    + "price_per_share, total_amount, profit_loss, timestamp, notes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 9, 0);
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+
+    @BeforeEach
+    void createTrades() {
+        email = email("stock-history");
+        Account account = accountRepository.save(account(userRepository.save(user(email))));
+        String symbol = stockRepository.findAll().get(0).getSymbol();
+
+        // Seven trades; the last three share a timestamp so the id must break the tie
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            LocalDateTime timestamp = START.plusMinutes(Math.min(i, 4));
+            rows.add(new Object[]{"STK-" + UUID.randomUUID(), account.getId(), symbol, "BUY", 1L, BigDecimal.ONE,
+                    BigDecimal.ONE, null, Timestamp.valueOf(timestamp), null});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Test
+    void cursorsWalkEveryTradeOnceNewestFirst() {
+        List<StockTransactionResponse> all = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<StockTransactionResponse> page = stockService.getUserTransactionHistory(email, 3, cursor);
+            all.addAll(page.getItems());
+            pageSizes.add(page.getItems().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(3, 3, 1), pageSizes);
+        Set<Long> ids = new HashSet<>();
+        all.forEach(trade -> ids.add(trade.getId()));
+        assertEquals(7, ids.size());
+        for (int i = 1; i < all.size(); i++) {
+            StockTransactionResponse previous = all.get(i - 1);
+            StockTransactionResponse current = all.get(i);
+            assertTrue(current.getTimestamp().isBefore(previous.getTimestamp())
+                    || current.getTimestamp().isEqual(previous.getTimestamp()) && current.getId() < previous.getId());
+        }
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        CursorPage<StockTransactionResponse> first = stockService.getUserTransactionHistory(email, 4, null);
+        assertNotNull(first.getNextCursor());
+
+        CursorPage<StockTransactionResponse> last = stockService.getUserTransactionHistory(email, 3,
+                first.getNextCursor());
+        assertEquals(3, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void rejectsInvalidCursorsAndLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> stockService.getUserTransactionHistory(email, 3, "not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> stockService.getUserTransactionHistory(email, 0, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> stockService.getUserTransactionHistory(email, StockService.MAX_LIMIT + 1, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> stockService.getAllStockTransactions(Integer.MAX_VALUE, null));
+    }
+}
@@ -0,0 +1,130 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class StripedTransferTest {
+
+    private static final int ACCOUNTS = 16;
+    private static final int THREADS = 64;
+    private static final int TRANSFERS_PER_THREAD = 10;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private ConcurrencyControl concurrencyControl;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ConcurrencyControl.Mode configuredMode;
+
+    @AfterEach
+    void restoreConcurrencyControl() {
+        concurrencyControl.setAccountLocks(false);
+        if (configuredMode != null) {
+            concurrencyControl.setMode(configuredMode);
+        }
+    }
+
+    @Test
+    void randomTransfersUnderAccountLocksLoseNoUpdatesAndNeverConflict() throws Exception {
+        // Optimistic mode would turn every concurrent update of an account into a version conflict
+        configuredMode = concurrencyControl.getMode();
+        concurrencyControl.setMode(ConcurrencyControl.Mode.OPTIMISTIC);
+        concurrencyControl.setAccountLocks(true);
+        String email = email("striped");
+        User user = userRepository.save(user(email));
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(account(user, new BigDecimal("1000.00"))));
+        }
+        double conflictsBefore = conflicts();
+        long[] expectedCents = new long[ACCOUNTS];
+        Arrays.fill(expectedCents, 100_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long[] deltas = new long[ACCOUNTS];
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        long cents = 1 + random.nextInt(500);
+                        TransferRequest request = new TransferRequest();
+                        request.setFromAccountId(accounts.get(from).getId());
+                        request.setToAccountId(accounts.get(to).getId());
+                        request.setAmount(BigDecimal.valueOf(cents, 2));
+                        request.setDescription("Random transfer");
+                        transferService.transfer(request, email);
+                        deltas[from] -= cents;
+                        deltas[to] += cents;
+                    }
+                    return deltas;
+                }));
+            }
+            start.countDown();
+            for (Future<long[]> future : futures) {
+                long[] deltas = future.get(120, TimeUnit.SECONDS);
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    expectedCents[i] += deltas[i];
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            BigDecimal balance = accountRepository.findById(accounts.get(i).getId()).orElseThrow().getBalance();
+            assertEquals(0, BigDecimal.valueOf(expectedCents[i], 2).compareTo(balance), "Lost update on account " + i);
+        }
+        // Conflicting transfers queued on the in-process locks instead of failing version checks
+        assertEquals(conflictsBefore, conflicts());
+    }
+
+    // Helper methods
+
+    private double conflicts() {
+        return meterRegistry.find("concurrency.conflicts").tag("operation", "transfer").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
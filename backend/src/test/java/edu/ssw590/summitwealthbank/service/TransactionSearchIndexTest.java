@@ -0,0 +1,129 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.Transaction;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TransactionSearchIndexTest {
+
+    // Enough for the transfers these tests make
+    private static final BigDecimal OPENING_BALANCE = BigDecimal.valueOf(100);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transaction (transaction_reference, from_account_id, to_account_id, amount, description, "
+                    + "timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private TransactionSearchIndex searchIndex;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+    private Account checking;
+    private Account stranger;
+
+    @BeforeEach
+    void createAccounts() {
+        email = email("search");
+        checking = accountRepository.save(account(userRepository.save(user(email)), OPENING_BALANCE));
+        User other = userRepository.save(user(email("other")));
+        stranger = accountRepository.save(account(other, OPENING_BALANCE));
+        Account strangerSavings = accountRepository.save(account(other, OPENING_BALANCE));
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(checking, stranger, "Rent January"));
+        rows.add(row(checking, stranger, "Rent February"));
+        rows.add(row(stranger, checking, "rent refund (January)"));
+        rows.add(row(checking, stranger, "Groceries"));
+        // Not the user's: must never be found
+        rows.add(row(stranger, strangerSavings, "Rent January"));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Test
+    void matchesEveryWordAsAPrefixNewestFirst() {
+        List<TransactionResponse> rent = searchIndex.search(email, "RENT", 50);
+        assertEquals(3, rent.size());
+        for (int i = 1; i < rent.size(); i++) {
+            assertTrue(rent.get(i).getId() < rent.get(i - 1).getId());
+        }
+
+        List<TransactionResponse> january = searchIndex.search(email, "rent jan", 50);
+        assertEquals(2, january.size());
+        assertTrue(january.stream().allMatch(t -> t.getDescription().toLowerCase().contains("jan")));
+
+        assertEquals(1, searchIndex.search(email, "rent", 1).size());
+        assertEquals(0, searchIndex.search(email, "rent march", 50).size());
+    }
+
+    @Test
+    void addsCommittedTransfersToIndexesInMemory() {
+        assertEquals(0, searchIndex.search(email, "gym", 50).size());
+
+        Transaction gym = transferService.transfer(transfer("Gym membership"), email);
+
+        List<TransactionResponse> found = searchIndex.search(email, "gym", 50);
+        assertEquals(1, found.size());
+        assertEquals(gym.getId(), found.get(0).getId());
+        assertEquals(1, searchIndex.search(email, "membership gym", 50).size());
+        assertEquals(3, searchIndex.search(email, "rent", 50).size());
+    }
+
+    @Test
+    void rejectsQueriesWithoutWords() {
+        assertThrows(IllegalArgumentException.class, () -> searchIndex.search(email, " - ", 50));
+        assertThrows(IllegalArgumentException.class, () -> searchIndex.search(email, "rent", 0));
+        assertEquals(Set.of("rent", "refund", "january"), TransactionSearchIndex.tokenize("Rent refund (January) rent"));
+    }
+
+    // Helper methods
+
+    private TransferRequest transfer(String description) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(checking.getId());
+        request.setToAccountId(stranger.getId());
+        request.setAmount(BigDecimal.TEN);
+        request.setDescription(description);
+        return request;
+    }
+
+    private static Object[] row(Account from, Account to, String description) {
+        return new Object[]{"TXN-" + UUID.randomUUID(), from.getId(), to.getId(), BigDecimal.ONE, description,
+                Timestamp.valueOf(LocalDateTime.now())};
+    }
+}
@@ -0,0 +1,189 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.TransferRequest;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Slf4j
+class TransferGroupCommitBenchmarkTest {
+
+    private static final int ACCOUNTS = 16;
+    private static final int THREADS = 64;
+    private static final int TRANSFERS_PER_THREAD = 20;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private TransferJournal transferJournal;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+    private List<Account> accounts;
+
+    @BeforeEach
+    void createAccounts() {
+        email = email("journal");
+        User user = userRepository.save(user(email));
+        accounts = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(accountRepository.save(account(user, new BigDecimal("1000.00"))));
+        }
+    }
+
+    @AfterEach
+    void disableGroupCommit() {
+        transferJournal.setEnabled(false);
+        ReflectionTestUtils.setField(transferJournal, "waitTimeoutMs", 1000L);
+    }
+
+    @Test
+    void concurrentTransfersAreGroupedAndConserveMoney() throws Exception {
+        transferJournal.setEnabled(true);
+        DistributionSummary groups = meterRegistry.get("transfer.group.size").summary();
+        long groupsBefore = groups.count();
+        double groupedBefore = groups.totalAmount();
+        throughput();
+        long commits = groups.count() - groupsBefore;
+        double journaled = groups.totalAmount() - groupedBefore;
+
+        assertTrue(journaled / commits > 1, "Transfers were not grouped");
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            BigDecimal balance = balance(account);
+            assertTrue(balance.signum() >= 0);
+            total = total.add(balance);
+        }
+        assertEquals(0, new BigDecimal("16000.00").compareTo(total));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void groupCommitVersusDirectTransfers() throws Exception {
+        double direct = throughput();
+        transferJournal.setEnabled(true);
+        DistributionSummary groups = meterRegistry.get("transfer.group.size").summary();
+        long groupsBefore = groups.count();
+        double groupedBefore = groups.totalAmount();
+        double grouped = throughput();
+        long commits = groups.count() - groupsBefore;
+        double journaled = groups.totalAmount() - groupedBefore;
+
+        log.info("Transfers/s at {} threads: direct {}, group commit {} ({} transfers per commit)",
+                THREADS, Math.round(direct), Math.round(grouped), Math.round(journaled / commits * 10) / 10.0);
+    }
+
+    @Test
+    void refusedTransferFallsBackToTheDirectPathError() {
+        transferJournal.setEnabled(true);
+        TransferRequest request = request(0, 1, 500_000);
+
+        assertEquals("Insufficient funds in source account",
+                assertThrows(IllegalArgumentException.class, () -> transferService.transfer(request, email))
+                        .getMessage());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(balance(accounts.get(0))));
+    }
+
+    @Test
+    void callersThatStopWaitingRunEachTransferExactlyOnce() throws Exception {
+        transferJournal.setEnabled(true);
+        // Every caller gives up at once: each transfer is withdrawn or already taken by the writer, never both
+        ReflectionTestUtils.setField(transferJournal, "waitTimeoutMs", 0L);
+        throughput();
+
+        Integer recorded = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction WHERE description = ?", Integer.class, email);
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, recorded);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            total = total.add(balance(account));
+        }
+        assertEquals(0, new BigDecimal("16000.00").compareTo(total));
+    }
+
+    // Helper methods
+
+    private double throughput() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        transferService.transfer(request(from, to, 1 + random.nextInt(100)), email);
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+            return THREADS * TRANSFERS_PER_THREAD * 1e9 / (System.nanoTime() - started);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private TransferRequest request(int from, int to, long cents) {
+        TransferRequest request = new TransferRequest();
+        request.setFromAccountId(accounts.get(from).getId());
+        request.setToAccountId(accounts.get(to).getId());
+        request.setAmount(BigDecimal.valueOf(cents, 2));
+        // Unique per test, so the rows written can be counted
+        request.setDescription(email);
+        return request;
+    }
+
+    private BigDecimal balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,204 @@
+package edu.ssw590.summitwealthbank.service;
+
+import edu.ssw590.summitwealthbank.dto.CursorPage;
+import edu.ssw590.summitwealthbank.dto.TransactionResponse;
+import edu.ssw590.summitwealthbank.dto.TransferHistoryQuery;
+import edu.ssw590.summitwealthbank.model.Account;
+import edu.ssw590.summitwealthbank.model.User;
+import edu.ssw590.summitwealthbank.repository.AccountRepository;
+import edu.ssw590.summitwealthbank.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static edu.ssw590.summitwealthbank.TestData.account;
+import static edu.ssw590.summitwealthbank.TestData.email;
+import static edu.ssw590.summitwealthbank.TestData.user;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Slf4j
+class TransferHistoryServiceTest {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transaction (transaction_reference, from_account_id, to_account_id, amount, description, "
+                    + "timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Autowired
+    private TransferHistoryService historyService;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String email;
+    private Account checking;
+    private Account savings;
+    private Account stranger;
+
+    @BeforeEach
+    void createAccounts() {
+        email = email("history");
+        User user = userRepository.save(user(email));
+        checking = accountRepository.save(account(user));
+        savings = accountRepository.save(account(user));
+        stranger = accountRepository.save(account(userRepository.save(user(email("other")))));
+
+        // Minute i: out to the stranger (odd), in from the stranger (even), between own accounts every 5th
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 60; i++) {
+            Account from = i % 5 == 0 ? checking : i % 2 == 1 ? checking : stranger;
+            Account to = i % 5 == 0 ? savings : i % 2 == 1 ? stranger : checking;
+            rows.add(row(from.getId(), to.getId(), BigDecimal.valueOf(i), START.plusMinutes(i)));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Test
+    void pagesThroughEveryTransferOnceNewestFirst() {
+        List<TransactionResponse> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TransactionResponse> page = historyService.getHistory(email,
+                    TransferHistoryQuery.builder().limit(7).cursor(cursor).build());
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(60, all.size());
+        Set<Long> ids = new HashSet<>();
+        all.forEach(t -> ids.add(t.getId()));
+        assertEquals(60, ids.size(), "Transfers between own accounts must appear once");
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(!all.get(i).getTimestamp().isAfter(all.get(i - 1).getTimestamp()));
+        }
+    }
+
+    @Test
+    void filtersByDirectionAmountAndTime() {
+        // Outgoing from checking: odd minutes plus the own transfers (multiples of 5)
+        List<TransactionResponse> out = history(TransferHistoryQuery.builder()
+                .accountId(checking.getId())
+                .direction(TransferHistoryQuery.Direction.OUT)
+                .limit(500)
+                .build());
+        assertEquals(36, out.size());
+        assertTrue(out.stream().allMatch(t -> t.getFromAccountId().equals(checking.getId())));
+
+        // Money arriving in savings only comes from checking
+        assertEquals(12, history(TransferHistoryQuery.builder()
+                .accountId(savings.getId())
+                .direction(TransferHistoryQuery.Direction.IN)
+                .build()).size());
+
+        List<TransactionResponse> filtered = history(TransferHistoryQuery.builder()
+                .from(START.plusMinutes(10))
+                .to(START.plusMinutes(30))
+                .minAmount(new BigDecimal("15"))
+                .maxAmount(new BigDecimal("25"))
+                .build());
+        assertEquals(11, filtered.size());
+        assertEquals(0, new BigDecimal("25").compareTo(filtered.get(0).getAmount()));
+        assertEquals(0, new BigDecimal("15").compareTo(filtered.get(10).getAmount()));
+
+        assertThrows(SecurityException.class, () -> history(TransferHistoryQuery.builder()
+                .accountId(stranger.getId())
+                .build()));
+        assertThrows(IllegalArgumentException.class, () -> history(TransferHistoryQuery.builder()
+                .minAmount(BigDecimal.TEN)
+                .maxAmount(BigDecimal.ONE)
+                .build()));
+    }
+
+    @Test
+    void recentAndAdminListsRejectLimitsOutOfRange() {
+        assertEquals(10, transferService.getRecentTransactionsByEmail(email, 10).size());
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.getRecentTransactionsByEmail(email, 501));
+        assertThrows(IllegalArgumentException.class, () -> transferService.getRecentTransactionsByEmail(email, 0));
+        assertThrows(IllegalArgumentException.class, () -> transferService.getAllTransactions(501));
+        assertThrows(IllegalArgumentException.class, () -> transferService.getAllTransactions(0));
+    }
+
+    @Test
+    void unrelatedTransfersNeverAppearInTheHistory() {
+        insertUnrelatedTransfers(1_000);
+
+        CursorPage<TransactionResponse> page = historyService.getHistory(email,
+                TransferHistoryQuery.builder().limit(500).build());
+        assertEquals(60, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void pageLatencyStaysFlatAsTheTableGrows() {
+        double small = pageMillis();
+        insertUnrelatedTransfers(100_000);
+        double large = pageMillis();
+
+        log.info("History page: {} ms before, {} ms after adding 100,000 unrelated transfers",
+                Math.round(small * 100) / 100.0, Math.round(large * 100) / 100.0);
+        assertTrue(large < small * 5 + 5, "Page latency grew from " + small + " to " + large + " ms");
+    }
+
+    // Helper methods
+
+    private List<TransactionResponse> history(TransferHistoryQuery query) {
+        return historyService.getHistory(email, query).getItems();
+    }
+
+    private double pageMillis() {
+        for (int i = 0; i < 20; i++) {
+            historyService.getHistory(email, TransferHistoryQuery.builder().limit(20).build());
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < 50; i++) {
+            historyService.getHistory(email, TransferHistoryQuery.builder().limit(20).build());
+        }
+        return (System.nanoTime() - started) / 50 / 1e6;
+    }
+
+    private void insertUnrelatedTransfers(int count) {
+        Account a = accountRepository.save(account(userRepository.save(user(email("bulk")))));
+        Account b = accountRepository.save(account(userRepository.save(user(email("bulk")))));
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(row(a.getId(), b.getId(), BigDecimal.ONE, START.plusSeconds(i)));
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                rows.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private static Object[] row(Long from, Long to, BigDecimal amount, LocalDateTime timestamp) {
+        return new Object[]{"H-" + UUID.randomUUID(), from, to, amount, "History", Timestamp.valueOf(timestamp)};
+    }
+}
@@ -0,0 +1,91 @@
+package edu.ssw590.summitwealthbank.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandleRingTest {
+
+    @Test
+    void ticksAggregateIntoOhlcPerBucket() {
+        CandleRing ring = new CandleRing(10);
+        ring.add(60, 1000);
+        ring.add(60, 1200);
+        ring.add(60, 900);
+        ring.add(60, 1100);
+        ring.add(120, 1150);
+
+        List<long[]> candles = collect(ring, 0, Long.MAX_VALUE);
+        assertEquals(2, candles.size());
+        assertArrayEquals(new long[]{60, 1000, 1200, 900, 1100, 4}, candles.get(0));
+        assertArrayEquals(new long[]{120, 1150, 1150, 1150, 1150, 1}, candles.get(1));
+    }
+
+    @Test
+    void fullRingOverwritesOldestAndKeepsOrder() {
+        CandleRing ring = new CandleRing(40);
+        for (int i = 0; i < 100; i++) {
+            ring.add(i * 60L, i);
+        }
+
+        assertEquals(40, ring.size());
+        assertEquals(60 * 60, ring.oldestStart());
+        List<long[]> range = collect(ring, 70 * 60, 75 * 60);
+        assertEquals(5, range.size());
+        assertEquals(70 * 60, range.get(0)[0]);
+        assertEquals(74 * 60, range.get(4)[0]);
+    }
+
+    @Test
+    void drainReturnsOnlyChangedSuffix() {
+        CandleRing ring = new CandleRing(10);
+        ring.add(60, 100);
+        ring.add(120, 100);
+        assertEquals(2, drain(ring).size());
+        assertEquals(0, drain(ring).size());
+
+        ring.add(120, 105);
+        ring.add(180, 110);
+        List<long[]> changed = drain(ring);
+        assertEquals(2, changed.size());
+        assertEquals(120, changed.get(0)[0]);
+        assertEquals(105, changed.get(0)[4]);
+    }
+
+    @Test
+    void restoreMergesWithTickForSameBucket() {
+        CandleRing ring = new CandleRing(10);
+        ring.add(60, 500);
+        ring.restore(60, 400, 450, 350, 420, 7);
+
+        assertArrayEquals(new long[]{60, 400, 500, 350, 500, 8}, collect(ring, 0, Long.MAX_VALUE).get(0));
+    }
+
+    @Test
+    void dailyBucketsStartAtLocalMidnight() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        // 2024-03-15T15:30 in New York
+        long afternoon = 1710531000L;
+        assertEquals(1710475200L, CandleRing.Interval.ONE_DAY.bucketStart(afternoon, zone));
+        assertEquals(1710529200L, CandleRing.Interval.ONE_HOUR.bucketStart(afternoon, zone));
+    }
+
+    private List<long[]> collect(CandleRing ring, long from, long to) {
+        List<long[]> candles = new ArrayList<>();
+        ring.forEach(from, to, (start, open, high, low, close, ticks) ->
+                candles.add(new long[]{start, open, high, low, close, ticks}));
+        return candles;
+    }
+
+    private List<long[]> drain(CandleRing ring) {
+        List<long[]> candles = new ArrayList<>();
+        ring.drainDirty((start, open, high, low, close, ticks) ->
+                candles.add(new long[]{start, open, high, low, close, ticks}));
+        return candles;
+    }
+}
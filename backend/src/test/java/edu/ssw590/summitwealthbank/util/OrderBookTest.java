@@ -0,0 +1,205 @@
+package edu.ssw590.summitwealthbank.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class OrderBookTest {
+
+    private long nextId = 1;
+
+    @Test
+    void matchesBestPriceFirstThenArrivalOrder() {
+        OrderBook book = new OrderBook("AAPL");
+        book.submit(limit(OrderBook.Side.SELL, 10_100, 5));
+        OrderBook.Order first = limit(OrderBook.Side.SELL, 10_000, 5);
+        book.submit(first);
+        // Same price as "first" but arrived later, so it must fill after it
+        OrderBook.Order second = limit(OrderBook.Side.SELL, 10_000, 5);
+        book.submit(second);
+
+        List<OrderBook.Fill> fills = book.submit(limit(OrderBook.Side.BUY, 10_100, 12));
+
+        assertEquals(3, fills.size());
+        assertSame(first, fills.get(0).getMaker());
+        assertSame(second, fills.get(1).getMaker());
+        assertEquals(10_000, fills.get(1).getPrice());
+        assertEquals(10_100, fills.get(2).getPrice());
+        assertEquals(2, fills.get(2).getQuantity());
+        assertEquals(10_100L, book.bestAsk());
+        assertNull(book.bestBid());
+    }
+
+    @Test
+    void restsUnfilledLimitRemainderButNotMarketRemainder() {
+        OrderBook book = new OrderBook("AAPL");
+        book.submit(limit(OrderBook.Side.SELL, 5_000, 3));
+
+        OrderBook.Order market = order(OrderBook.Side.BUY, null, 10);
+        book.submit(market);
+        assertEquals(7, market.getRemaining());
+        assertEquals(0, book.size());
+
+        OrderBook.Order bid = limit(OrderBook.Side.BUY, 4_900, 4);
+        book.submit(bid);
+        assertEquals(4_900L, book.bestBid());
+        assertEquals(1, book.size());
+    }
+
+    @Test
+    void cancelRemovesOrderAndEmptyLevel() {
+        OrderBook book = new OrderBook("AAPL");
+        OrderBook.Order first = limit(OrderBook.Side.BUY, 100, 1);
+        OrderBook.Order second = limit(OrderBook.Side.BUY, 100, 2);
+        book.submit(first);
+        book.submit(second);
+
+        assertSame(first, book.cancel(first.getId()));
+        assertNull(book.cancel(first.getId()));
+        assertEquals(2, book.bids(5).get(0).getQuantity());
+
+        book.cancel(second.getId());
+        assertNull(book.bestBid());
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void costToBuyWalksTheAsks() {
+        OrderBook book = new OrderBook("AAPL");
+        book.submit(limit(OrderBook.Side.SELL, 100, 2));
+        book.submit(limit(OrderBook.Side.SELL, 150, 2));
+
+        assertEquals(100 * 2 + 150, book.costToBuy(3));
+        assertEquals(500, book.costToBuy(10));
+    }
+
+    @Test
+    void stopsAtTheOwnersRestingOrderAndDoesNotRestTheRest() {
+        OrderBook book = new OrderBook("AAPL");
+        OrderBook.Order other = limit(OrderBook.Side.SELL, 100, 2);
+        OrderBook.Order own = new OrderBook.Order(nextId++, 50L, 7L, OrderBook.Side.SELL, 101L, 5, null);
+        book.submit(other);
+        book.submit(own);
+
+        OrderBook.Order taker = new OrderBook.Order(nextId++, 51L, 7L, OrderBook.Side.BUY, 105L, 10, null);
+        List<OrderBook.Fill> fills = book.submit(taker);
+
+        assertEquals(1, fills.size());
+        assertSame(other, fills.get(0).getMaker());
+        assertTrue(taker.isSelfMatched());
+        assertEquals(8, taker.getRemaining());
+        assertNull(book.getOrder(taker.getId()));
+        assertNull(book.bestBid());
+        assertEquals(5, own.getRemaining());
+    }
+
+    @Test
+    void budgetStopsAMarketBuyBeforeItOverspends() {
+        OrderBook book = new OrderBook("AAPL");
+        book.submit(limit(OrderBook.Side.SELL, 100, 2));
+        book.submit(limit(OrderBook.Side.SELL, 150, 5));
+
+        OrderBook.Order market = new OrderBook.Order(nextId++, 99L, 99L, OrderBook.Side.BUY, null, 10, 520L);
+        List<OrderBook.Fill> fills = book.submit(market);
+
+        // 2 x 100 leaves 320, enough for 2 more at 150
+        assertEquals(2, fills.size());
+        assertEquals(2, fills.get(1).getQuantity());
+        assertEquals(20L, market.getBudget());
+        assertEquals(6, market.getRemaining());
+        assertEquals(3, book.asks(5).get(0).getQuantity());
+    }
+
+    @Test
+    void undoPutsMakersBackInTheirPlaceButNotDiscardedOnes() {
+        OrderBook book = new OrderBook("AAPL");
+        OrderBook.Order first = limit(OrderBook.Side.SELL, 100, 2);
+        OrderBook.Order second = limit(OrderBook.Side.SELL, 100, 3);
+        OrderBook.Order third = limit(OrderBook.Side.SELL, 110, 4);
+        book.submit(first);
+        book.submit(second);
+        book.submit(third);
+
+        OrderBook.Order taker = limit(OrderBook.Side.BUY, 110, 7);
+        List<OrderBook.Fill> fills = book.submit(taker);
+        assertEquals(1, book.size());
+
+        book.discard(taker);
+        book.undo(fills);
+
+        assertEquals(3, book.size());
+        assertEquals(5, book.asks(5).get(0).getQuantity());
+        assertEquals(4, book.asks(5).get(1).getQuantity());
+        // Arrival order within the level survives the undo
+        List<OrderBook.Fill> again = book.submit(limit(OrderBook.Side.BUY, 100, 3));
+        assertSame(first, again.get(0).getMaker());
+        assertSame(second, again.get(1).getMaker());
+
+        // A maker cancelled before the undo stays off the book
+        List<OrderBook.Fill> more = book.submit(limit(OrderBook.Side.BUY, 100, 1));
+        assertSame(second, book.cancel(second.getId()));
+        book.undo(more);
+        assertNull(book.getOrder(second.getId()));
+        assertEquals(110L, book.bestAsk());
+    }
+
+    /**
+     * Throughput benchmark: a random mix of limit orders around a mid price,
+     * market orders and cancels against one symbol on one thread.
+     */
+    @Test
+    @Tag("benchmark")
+    void sustainsTensOfThousandsOfEventsPerSecond() {
+        OrderBook book = new OrderBook("BENCH");
+        Random random = new Random(42);
+        int events = 1_000_000;
+        long[] resting = new long[4096];
+
+        // Warm up the JIT before measuring
+        runEvents(new OrderBook("WARMUP"), new Random(7), 200_000, new long[4096]);
+
+        long start = System.nanoTime();
+        long fills = runEvents(book, random, events, resting);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        double perSecond = events / seconds;
+
+        log.info("OrderBook: {} events in {} ms ({} events/s, {} fills, {} resting)",
+                events, Math.round(seconds * 1000), Math.round(perSecond), fills, book.size());
+        assertTrue(perSecond > 50_000, "Expected > 50k events/s but was " + perSecond);
+    }
+
+    private long runEvents(OrderBook book, Random random, int events, long[] resting) {
+        long fills = 0;
+        for (int i = 0; i < events; i++) {
+            int roll = random.nextInt(100);
+            OrderBook.Side side = random.nextBoolean() ? OrderBook.Side.BUY : OrderBook.Side.SELL;
+            if (roll < 70) {
+                long price = 10_000 + random.nextInt(200) - 100;
+                OrderBook.Order order = limit(side, price, 1 + random.nextInt(100));
+                fills += book.submit(order).size();
+                resting[i & (resting.length - 1)] = order.getId();
+            } else if (roll < 80) {
+                fills += book.submit(order(side, null, 1 + random.nextInt(50))).size();
+            } else {
+                book.cancel(resting[random.nextInt(resting.length)]);
+            }
+        }
+        return fills;
+    }
+
+    private OrderBook.Order limit(OrderBook.Side side, long price, long quantity) {
+        return order(side, price, quantity);
+    }
+
+    // Every order gets its own account, so none of them is a self-trade
+    private OrderBook.Order order(OrderBook.Side side, Long price, long quantity) {
+        long id = nextId++;
+        return new OrderBook.Order(id, id, side, price, quantity);
+    }
+}
@@ -0,0 +1,220 @@
+package edu.ssw590.summitwealthbank.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int THREADS = 16;
+
+    @Test
+    void sequenceCarriesIntoNextTickAndSurvivesClockGoingBack() {
+        AtomicLong clock = new AtomicLong(EPOCH + 5_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1000, 4, 2, 3, clock::get);
+
+        long previous = -1;
+        for (int i = 0; i < 10; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(3, (id >>> 2) & 0xF);
+            previous = id;
+        }
+        // Ten ids at four per tick: ticks 5, 6 and 7 (borrowed ahead of the clock)
+        assertEquals(EPOCH + 7_000, generator.timestampOf(previous));
+
+        clock.set(EPOCH);
+        assertTrue(generator.nextId() > previous);
+    }
+
+    @Test
+    void restartedGeneratorNeverRepeatsBorrowedTicks() {
+        AtomicLong clock = new AtomicLong(EPOCH + 5_000);
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(EPOCH, 1000, 4, 2, 3, clock::get);
+        first.limitTo(8);
+        Set<Long> ids = new HashSet<>();
+        // A burst borrows ticks 6, 7 and 8 ahead of the clock, then the process dies
+        long last = -1;
+        for (int i = 0; i < 16; i++) {
+            last = first.nextId();
+            ids.add(last);
+        }
+        assertEquals(EPOCH + 8_000, first.timestampOf(last));
+
+        // Restarted within the same second, resuming after the reservation
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(EPOCH, 1000, 4, 2, 3, clock::get);
+        restarted.startAfter(8);
+        for (int i = 0; i < 16; i++) {
+            assertTrue(ids.add(restarted.nextId()), "A restarted generator repeated an id");
+        }
+    }
+
+    @Test
+    void generatorWaitsForItsReservationToBeExtended() throws Exception {
+        AtomicLong clock = new AtomicLong(EPOCH + 5_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1000, 4, 2, 3, clock::get);
+        generator.limitTo(5);
+        for (int i = 0; i < 4; i++) {
+            generator.nextId();
+        }
+
+        CompletableFuture<Long> blocked = CompletableFuture.supplyAsync(generator::nextId);
+        Thread.sleep(50);
+        assertFalse(blocked.isDone(), "Tick 6 is not reserved yet");
+
+        generator.limitTo(6);
+        assertEquals(EPOCH + 6_000, generator.timestampOf(blocked.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void burstExtendsTheReservationOnDemandAndFailsFastWhenItCannot() {
+        AtomicLong clock = new AtomicLong(EPOCH + 5_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 1000, 4, 2, 3, clock::get);
+        generator.limitTo(5);
+        AtomicLong extensions = new AtomicLong();
+        generator.extendWith(() -> generator.limitTo(5 + extensions.incrementAndGet()), 100);
+
+        // Twelve ids at four per tick need ticks 6 and 7 as well, each reserved when the burst reaches it
+        long last = -1;
+        for (int i = 0; i < 12; i++) {
+            last = generator.nextId();
+        }
+        assertEquals(2, extensions.get());
+        assertEquals(EPOCH + 7_000, generator.timestampOf(last));
+
+        // Tick 7 is used up and nothing extends the reservation any more
+        generator.extendWith(() -> { }, 100);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void mixIsABijection() {
+        Set<Long> seen = new HashSet<>();
+        for (long value = 0; value < 1 << 16; value++) {
+            long mixed = ReferenceGenerator.mix(value, 16);
+            assertTrue(mixed < 1 << 16);
+            seen.add(mixed);
+        }
+        assertEquals(1 << 16, seen.size());
+    }
+
+    @Test
+    void referencesAndAccountNumbersAreUniqueAcrossThreadsAndNodes() throws Exception {
+        // Two application instances sharing a database, hammered far beyond 1024 references per second
+        List<ReferenceGenerator> nodes = List.of(referenceGenerator(1), referenceGenerator(2));
+        int perThread = 25_000;
+        Set<String> references = ConcurrentHashMap.newKeySet();
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(THREADS, thread -> {
+            ReferenceGenerator generator = nodes.get(thread % nodes.size());
+            for (int i = 0; i < perThread; i++) {
+                String reference = i % 2 == 0 ? generator.transactionReference() : generator.stockTransactionReference();
+                assertTrue(reference.matches("(TXN|STK)-\\d{8}-[0-9A-Z]{6}"), reference);
+                // Same unique part under both prefixes would still be one id issued twice
+                assertTrue(references.add(reference.substring(4)), "Duplicate reference " + reference);
+                if (i % 50 == 0) {
+                    String accountNumber = generator.accountNumber();
+                    assertTrue(accountNumber.matches("\\d{10}"), accountNumber);
+                    assertTrue(accountNumbers.add(accountNumber), "Duplicate account number " + accountNumber);
+                }
+            }
+        });
+
+        assertEquals(THREADS * perThread, references.size());
+        assertEquals(THREADS * (perThread / 50), accountNumbers.size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkAgainstRandomUuidReferences() throws Exception {
+        ReferenceGenerator generator = referenceGenerator(0);
+        int perThread = 100_000;
+        // Warm up both paths
+        measure(generator::transactionReference, perThread / 10);
+        measure(SnowflakeIdGeneratorTest::uuidReference, perThread / 10);
+
+        long snowflakeNanos = measure(generator::transactionReference, perThread);
+        long uuidNanos = measure(SnowflakeIdGeneratorTest::uuidReference, perThread);
+
+        long total = (long) THREADS * perThread;
+        log.info("{} references from {} threads: snowflake {} ns each, random UUID {} ns each",
+                total, THREADS, snowflakeNanos / total, uuidNanos / total);
+        assertTrue(snowflakeNanos < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    // Helper methods
+
+    private static ReferenceGenerator referenceGenerator(long nodeId) {
+        return new ReferenceGenerator(
+                new SnowflakeIdGenerator(EPOCH, 1000, 4, 10, nodeId),
+                new SnowflakeIdGenerator(EPOCH, 3_600_000, 4, 11, nodeId),
+                ZoneId.systemDefault());
+    }
+
+    // The previous scheme: six hex characters of a random UUID
+    private static String uuidReference() {
+        return "TXN-20250101-" + UUID.randomUUID().toString().replace("-", "").substring(0, 6).toUpperCase();
+    }
+
+    private static long measure(Supplier<String> source, int perThread) throws Exception {
+        long started = System.nanoTime();
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                source.get();
+            }
+        });
+        return System.nanoTime() - started;
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}